@@ -0,0 +1,61 @@
+package com.pricedrop.services.watches;
+
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Which watches one observed price triggers on one product: a pass over every watch document, as when the
+// watches were filtered one by one, against a ThresholdIndex lookup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ThresholdIndexBenchmark {
+    @Param({"10", "100", "1000"})
+    public int watches;
+
+    private List<JsonObject> documents;
+    private ThresholdIndex.Thresholds thresholds;
+    private long priceMinor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        documents = new ArrayList<>();
+        for (int i = 0; i < watches; i++) {
+            long targetMinor = (50_000 + random.nextInt(100_000)) * 100L;
+            documents.add(new JsonObject()
+                    .put("_id", "watch-" + i)
+                    .put("threshold", Math.floorDiv(targetMinor * 105, 100)));
+        }
+        thresholds = ThresholdIndex.Thresholds.of(documents, System.currentTimeMillis());
+        // a price a few watches are waiting for, so both variants do some work
+        priceMinor = 6_000_000;
+    }
+
+    @Benchmark
+    public List<Object> scanWatches() {
+        List<Object> triggered = new ArrayList<>();
+        for (JsonObject watch : documents) {
+            if (watch.getLong("threshold") >= priceMinor) {
+                triggered.add(watch.getValue("_id"));
+            }
+        }
+        return triggered;
+    }
+
+    @Benchmark
+    public List<Object> thresholdIndex() {
+        return thresholds.triggeredBy(priceMinor);
+    }
+}
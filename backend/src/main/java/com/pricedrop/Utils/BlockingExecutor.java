@@ -0,0 +1,85 @@
+package com.pricedrop.Utils;
+
+import com.pricedrop.services.metrics.Metrics;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// Runs blocking calls on virtual threads instead of the shared 20-thread worker pool. Each category has
+// its own concurrency limit (BLOCKING_<CATEGORY>_MAX_CONCURRENCY); a task waiting for a permit parks its
+// virtual thread, not a platform thread. Results are delivered back on the caller's Vert.x context.
+public class BlockingExecutor {
+    public enum Category {
+        REDIRECT(256),
+        MAIL(64),
+        // each task holds one pooled browser session, so this follows the pool's size
+        BROWSER(WebDriverPool.configuredSize()),
+        // BCrypt is CPU-bound: more than one task per core only adds latency
+        PASSWORD(Runtime.getRuntime().availableProcessors());
+
+        private final int defaultLimit;
+
+        Category(int defaultLimit) {
+            this.defaultLimit = defaultLimit;
+        }
+    }
+
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Map<Category, Semaphore> limits = new EnumMap<>(Category.class);
+
+    static {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        for (Category category : Category.values()) {
+            int limit = Integer.parseInt(dotenv.get("BLOCKING_" + category.name() + "_MAX_CONCURRENCY",
+                    String.valueOf(category.defaultLimit)));
+            Semaphore semaphore = new Semaphore(Math.max(1, limit), true);
+            limits.put(category, semaphore);
+            String prefix = "blocking." + category.name().toLowerCase();
+            Metrics.gauge(prefix + ".active", () -> limit - semaphore.availablePermits());
+            Metrics.gauge(prefix + ".waiting", semaphore::getQueueLength);
+        }
+    }
+
+    public static <T> Future<T> execute(Category category, Callable<T> task) {
+        Context context = Vertx.currentContext();
+        Promise<T> promise = Promise.promise();
+        Semaphore semaphore = limits.get(category);
+        executor.execute(() -> {
+            T result;
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                deliver(context, () -> promise.fail(e));
+                return;
+            }
+            try {
+                result = task.call();
+            } catch (Throwable e) {
+                deliver(context, () -> promise.fail(e));
+                return;
+            } finally {
+                semaphore.release();
+            }
+            deliver(context, () -> promise.complete(result));
+        });
+        return promise.future();
+    }
+
+    private static void deliver(Context context, Runnable completion) {
+        if (context == null) {
+            completion.run();
+        } else {
+            context.runOnContext(v -> completion.run());
+        }
+    }
+}
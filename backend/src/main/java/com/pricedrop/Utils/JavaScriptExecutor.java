@@ -1,5 +1,6 @@
 package com.pricedrop.Utils;
 
+import io.github.cdimascio.dotenv.Dotenv;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
@@ -7,49 +8,33 @@ import io.vertx.core.json.JsonObject;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
 
 public class JavaScriptExecutor {
 
     private static final Logger log = LoggerFactory.getLogger(JavaScriptExecutor.class);
+    private static final long POOL_WAIT_MS;
+
+    static {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        POOL_WAIT_MS = Long.parseLong(dotenv.get("BROWSER_POOL_WAIT_MS", "60000"));
+    }
 
     public static Future<JsonObject> scrape(Vertx vertx, String url) {
         Promise<JsonObject> promise = Promise.promise();
         JsonObject result = new JsonObject();
-        vertx.executeBlocking(() -> {
-            System.setProperty("webdriver.chrome.driver", "/usr/bin/chromedriver");
-            ChromeOptions options = new ChromeOptions();
-            options.setBinary("/usr/bin/chromium");
-            options.addArguments("--headless=new");
-            options.addArguments("--no-sandbox");
-            options.addArguments("--disable-dev-shm-usage");
-            options.addArguments("--disable-blink-features=AutomationControlled");
-            options.addArguments("user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64)");
-            Map<String, Object> prefs = new HashMap<>();
-            options.setExperimentalOption("prefs", prefs);
-            prefs.put("profile.managed_default_content_settings.images", 2);
-            prefs.put("profile.default_content_setting_values.notifications", 2);
-            prefs.put("profile.default_content_setting_values.stylesheets", 2);
-            prefs.put("profile.managed_default_content_settings.plugins", 2);
-            options.setExperimentalOption("excludeSwitches", new String[]{"enable-automation"});
-            options.setExperimentalOption("useAutomationExtension", false);
-
-            WebDriver driver = new ChromeDriver(options);
-
+        // the driver blocks for the whole page load, so it runs on a virtual thread under the browser limit
+        BlockingExecutor.execute(BlockingExecutor.Category.BROWSER, () -> {
+            WebDriverPool pool = WebDriverPool.shared();
+            WebDriverPool.Session session = pool.borrow(POOL_WAIT_MS);
+            boolean broken = true;
             try {
-                ((JavascriptExecutor) driver).executeScript(
-                        "Object.defineProperty(navigator, 'webdriver', {get: () => undefined})");
-
+                WebDriver driver = session.getDriver();
                 driver.get(url);
                 WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
 
@@ -71,9 +56,9 @@ public class JavaScriptExecutor {
                 } catch (Exception e) {
                     result.put("title", "not found");
                 }
-
+                broken = false;
             } finally {
-                driver.quit();
+                pool.release(session, broken);
             }
             return result;
         }).onSuccess(driverResult -> {
@@ -0,0 +1,380 @@
+package com.pricedrop.Utils;
+
+import com.pricedrop.services.metrics.Metrics;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Long-lived python workers speaking line-delimited JSON over stdin/stdout, instead of paying process
+// spawn plus interpreter startup per product. A request is {"id", ...payload}; the reply is
+// {"id", "result"} or {"id", "error"}. Each worker takes up to maxInFlight requests at once and the rest
+// wait in a bounded queue. stdout is read on a virtual thread per worker, so no Vert.x thread ever blocks
+// on the pipe. A worker that exits fails its in-flight requests and is restarted after restartDelayMs.
+public class PythonWorkerPool {
+    private static final Logger log = LoggerFactory.getLogger(PythonWorkerPool.class);
+    private static PythonWorkerPool shared;
+    private final Supplier<ProcessBuilder> launcher;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long timeoutMs;
+    private final long restartDelayMs;
+    private final List<Worker> workers = new ArrayList<>();
+    private final ArrayDeque<Request> queue = new ArrayDeque<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+    private final ExecutorService io = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "python-worker-pool-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean closed = false;
+
+    private static final class Request {
+        private final long id;
+        private final String line;
+        private final Promise<JsonObject> promise = Promise.promise();
+        private final Context context;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private Worker worker;
+        private ScheduledFuture<?> timeout;
+
+        Request(long id, String line, Context context) {
+            this.id = id;
+            this.line = line;
+            this.context = context;
+        }
+    }
+
+    private static final class Worker {
+        private final int index;
+        // guarded by the pool
+        private final Map<Long, Request> pending = new HashMap<>();
+        private Process process;
+        private BufferedWriter stdin;
+        private boolean alive = false;
+
+        Worker(int index) {
+            this.index = index;
+        }
+    }
+
+    public PythonWorkerPool(int size, int maxInFlight, int maxQueued, long timeoutMs, long restartDelayMs,
+                            Supplier<ProcessBuilder> launcher) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.timeoutMs = timeoutMs;
+        this.restartDelayMs = restartDelayMs;
+        this.launcher = launcher;
+        for (int i = 0; i < Math.max(1, size); i++) {
+            Worker worker = new Worker(i);
+            workers.add(worker);
+            start(worker);
+        }
+    }
+
+    // PYTHON_WORKER_MAX_IN_FLIGHT should match the worker's own PYTHON_WORKER_CONCURRENCY
+    public static synchronized PythonWorkerPool shared() {
+        if (shared == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            String container = dotenv.get("PYTHON_WORKER_CONTAINER", "scrapper");
+            shared = new PythonWorkerPool(
+                    Integer.parseInt(dotenv.get("PYTHON_WORKERS", "2")),
+                    Integer.parseInt(dotenv.get("PYTHON_WORKER_MAX_IN_FLIGHT", "4")),
+                    Integer.parseInt(dotenv.get("PYTHON_WORKER_MAX_QUEUED", "100")),
+                    Long.parseLong(dotenv.get("PYTHON_WORKER_TIMEOUT_MS", "60000")),
+                    Long.parseLong(dotenv.get("PYTHON_WORKER_RESTART_DELAY_MS", "1000")),
+                    // -i keeps stdin attached for the lifetime of the worker
+                    () -> new ProcessBuilder("docker", "exec", "-i", container, "python3", "scrapping_worker.py"));
+            shared.registerMetrics();
+        }
+        return shared;
+    }
+
+    public static synchronized void closeShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    public Future<JsonObject> submit(JsonObject payload) {
+        long id = ids.incrementAndGet();
+        Request request = new Request(id, payload.copy().put("id", id).encode(), Vertx.currentContext());
+        try {
+            // armed before dispatch so a fast reply always finds it to cancel
+            request.timeout = timer.schedule(() -> timedOut(request), timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return Future.failedFuture(new IllegalStateException("python worker pool is closed"));
+        }
+        String rejection = null;
+        synchronized (this) {
+            Worker worker = leastLoaded();
+            if (closed) {
+                rejection = "python worker pool is closed";
+            } else if (worker != null) {
+                dispatch(worker, request);
+            } else if (queue.size() >= maxQueued) {
+                rejection = "python worker queue is full (" + maxQueued + ")";
+            } else {
+                queue.addLast(request);
+            }
+        }
+        if (rejection != null) {
+            Metrics.increment("python.pool.rejected");
+            finish(request, null, new RejectedExecutionException(rejection));
+        }
+        return request.promise.future();
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    public synchronized int getInFlight() {
+        return workers.stream().mapToInt(worker -> worker.pending.size()).sum();
+    }
+
+    public synchronized int getAlive() {
+        return (int) workers.stream().filter(worker -> worker.alive).count();
+    }
+
+    public long getRestarts() {
+        return restarts.get();
+    }
+
+    public void close() {
+        List<Request> abandoned = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            abandoned.addAll(queue);
+            queue.clear();
+            for (Worker worker : workers) {
+                abandoned.addAll(worker.pending.values());
+                worker.pending.clear();
+                worker.alive = false;
+                if (worker.process != null) {
+                    worker.process.destroy();
+                }
+            }
+        }
+        abandoned.forEach(request -> finish(request, null, new IllegalStateException("python worker pool closed")));
+        timer.shutdownNow();
+        io.shutdown();
+    }
+
+    private void start(Worker worker) {
+        Process process;
+        try {
+            process = launcher.get().redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        } catch (IOException e) {
+            log.error("failed to start python worker {}: {}", worker.index, e.getMessage());
+            scheduleRestart(worker);
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                process.destroy();
+                return;
+            }
+            worker.process = process;
+            worker.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            worker.alive = true;
+            drain(worker);
+        }
+        io.execute(() -> read(worker, process));
+        log.info("python worker {} started (pid {})", worker.index, process.pid());
+    }
+
+    private void read(Worker worker, Process process) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                handleReply(worker, line);
+            }
+        } catch (IOException e) {
+            log.warn("python worker {} stdout closed: {}", worker.index, e.getMessage());
+        }
+        process.destroy();
+        handleExit(worker, process);
+    }
+
+    private void handleReply(Worker worker, String line) {
+        JsonObject reply;
+        try {
+            reply = new JsonObject(line);
+        } catch (DecodeException e) {
+            // stray library output on stdout; the protocol only ever writes JSON objects
+            log.debug("python worker {}: {}", worker.index, line);
+            return;
+        }
+        Long id = reply.getLong("id");
+        Request request;
+        synchronized (this) {
+            request = id == null ? null : worker.pending.remove(id);
+            drain(worker);
+        }
+        if (request == null) {
+            return;
+        }
+        if (reply.containsKey("error")) {
+            finish(request, null, new RuntimeException(reply.getString("error")));
+        } else {
+            finish(request, reply.getJsonObject("result", new JsonObject()), null);
+        }
+    }
+
+    private void handleExit(Worker worker, Process process) {
+        List<Request> failed;
+        synchronized (this) {
+            if (worker.process != process) {
+                return;
+            }
+            worker.alive = false;
+            failed = new ArrayList<>(worker.pending.values());
+            worker.pending.clear();
+            // queued requests can still be served by the other workers
+            workers.forEach(this::drain);
+        }
+        String exitCode = process.isAlive() ? "unknown" : String.valueOf(process.exitValue());
+        log.warn("python worker {} exited with code {}, failing {} in-flight requests",
+                worker.index, exitCode, failed.size());
+        failed.forEach(request -> finish(request, null, new IOException("python worker exited")));
+        scheduleRestart(worker);
+    }
+
+    private void scheduleRestart(Worker worker) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        restarts.incrementAndGet();
+        Metrics.increment("python.pool.restarts");
+        try {
+            timer.schedule(() -> start(worker), restartDelayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // pool closed in the meantime
+        }
+    }
+
+    // a timed-out request keeps its slot until the worker answers; a worker whose every slot has timed
+    // out is treated as wedged and killed, which restarts it
+    private void timedOut(Request request) {
+        if (!request.done.compareAndSet(false, true)) {
+            return;
+        }
+        Process wedged = null;
+        synchronized (this) {
+            queue.remove(request);
+            Worker worker = request.worker;
+            if (worker != null && worker.pending.get(request.id) == request
+                    && worker.pending.values().stream().allMatch(pending -> pending.done.get())) {
+                wedged = worker.process;
+            }
+        }
+        Metrics.increment("python.pool.timeouts");
+        deliver(request, null, new TimeoutException("python worker did not answer within " + timeoutMs + " ms"));
+        if (wedged != null) {
+            log.warn("python worker {} stopped answering, restarting it", request.worker.index);
+            wedged.destroyForcibly();
+        }
+    }
+
+    // caller holds the pool lock
+    private Worker leastLoaded() {
+        Worker best = null;
+        for (Worker worker : workers) {
+            if (worker.alive && worker.pending.size() < maxInFlight
+                    && (best == null || worker.pending.size() < best.pending.size())) {
+                best = worker;
+            }
+        }
+        return best;
+    }
+
+    // caller holds the pool lock
+    private void drain(Worker worker) {
+        while (worker.alive && worker.pending.size() < maxInFlight && !queue.isEmpty()) {
+            dispatch(worker, queue.pollFirst());
+        }
+    }
+
+    // caller holds the pool lock; the write itself happens off-lock since a full pipe blocks
+    private void dispatch(Worker worker, Request request) {
+        request.worker = worker;
+        worker.pending.put(request.id, request);
+        BufferedWriter stdin = worker.stdin;
+        io.execute(() -> {
+            try {
+                synchronized (stdin) {
+                    stdin.write(request.line);
+                    stdin.newLine();
+                    stdin.flush();
+                }
+            } catch (IOException e) {
+                // the reader sees the same broken pipe as EOF and fails the request
+                log.warn("write to python worker {} failed: {}", worker.index, e.getMessage());
+            }
+        });
+    }
+
+    private void finish(Request request, JsonObject result, Throwable error) {
+        if (request.done.compareAndSet(false, true)) {
+            deliver(request, result, error);
+        }
+    }
+
+    private void deliver(Request request, JsonObject result, Throwable error) {
+        if (request.timeout != null) {
+            request.timeout.cancel(false);
+        }
+        Runnable completion = () -> {
+            if (error == null) {
+                request.promise.tryComplete(result);
+            } else {
+                request.promise.tryFail(error);
+            }
+        };
+        if (request.context == null) {
+            completion.run();
+        } else {
+            request.context.runOnContext(v -> completion.run());
+        }
+    }
+
+    private void registerMetrics() {
+        Metrics.gauge("python.pool.queued", this::getQueued);
+        Metrics.gauge("python.pool.inFlight", this::getInFlight);
+        Metrics.gauge("python.pool.alive", this::getAlive);
+    }
+}
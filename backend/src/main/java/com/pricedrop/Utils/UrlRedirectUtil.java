@@ -12,37 +12,48 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.time.Duration;
 
 public class UrlRedirectUtil {
     private static final Logger log = LoggerFactory.getLogger(UrlRedirectUtil.class);
 
+    // shared so its connection pool is reused across resolutions
+    private static final OkHttpClient client = new OkHttpClient.Builder()
+            .followRedirects(true)
+            .callTimeout(Duration.ofSeconds(20))
+            .build();
+
     public static Future<String> finalUrl(Vertx vertx, String inputUrl) {
         Promise<String> promise = Promise.promise();
-        vertx.executeBlocking(() -> resolveUrl(inputUrl))
-                .onSuccess(res -> promise.complete(res.result()))
-                .onFailure(fail -> promise.fail(fail.getMessage()));
+        BlockingExecutor.execute(BlockingExecutor.Category.REDIRECT, () -> followRedirects(inputUrl))
+                .onSuccess(promise::complete)
+                .onFailure(fail -> {
+                    log.error("error in getting final url {}", fail.getMessage());
+                    promise.fail(fail.getMessage());
+                });
         return promise.future();
     }
 
     public static Future<String> resolveUrl(String url) {
         Promise<String> promise = Promise.promise();
-        OkHttpClient client = new OkHttpClient.Builder()
-                .followRedirects(true)
-                .build();
+        try {
+            promise.complete(followRedirects(url));
+        } catch (Exception e) {
+           log.error("error in getting final url {}", e.getMessage());
+           promise.fail(e.getMessage());
+        }
+        return promise.future();
+    }
 
+    private static String followRedirects(String url) throws IOException {
         Request request = new Request.Builder()
                 .url(url)
                 .header("User-Agent", "Mozilla/5.0")
                 .build();
 
         try (Response response = client.newCall(request).execute()) {
-            String actualUrl = response.request().url().toString();
-            promise.complete(actualUrl);
-        } catch (Exception e) {
-           log.error("error in getting final url {}", e.getMessage());
-           promise.fail(e.getMessage());
+            return response.request().url().toString();
         }
-        return promise.future();
     }
 
     public static String resolveFinalUrl(String inputUrl) throws IOException {
@@ -62,24 +62,17 @@ public class Utility {
         return matcher.find() ? matcher.group(1) : null;
     }
 
-    public static int extractPrice(String priceStr) {
-        // Remove all non-digit characters except the decimal point
-        String cleaned = priceStr.replaceAll("[^\\d.]", "");
+    // NumberFormat is not thread-safe and costly to build, so each thread keeps its own
+    private static final ThreadLocal<NumberFormat> INR_FORMAT =
+            ThreadLocal.withInitial(() -> NumberFormat.getCurrencyInstance(new Locale("en", "IN")));
 
-        // Extract the integer part before the decimal point
-        String[] parts = cleaned.split("\\.");
-        return Integer.parseInt(parts[0]);
+    public static String formatToINR(double amount) {
+        return INR_FORMAT.get().format(amount);
     }
+
     public static String formatToINR(String numberStr) {
         try {
-            // Parse the input string to a number
-            double number = Double.parseDouble(numberStr);
-
-            // Create a NumberFormat instance for Indian locale
-            NumberFormat formatter = NumberFormat.getCurrencyInstance(new Locale("en", "IN"));
-
-            // Format the number to INR currency format
-            return formatter.format(number);
+            return formatToINR(Double.parseDouble(numberStr));
         } catch (NumberFormatException e) {
             // Handle invalid input
             return "Rs." + numberStr;
@@ -0,0 +1,38 @@
+package com.pricedrop.Utils;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+
+// One client, and so one connection pool, per outbound dependency: a hanging dependency can only
+// exhaust its own pool. Settings are read as <NAME>_HTTP_MAX_POOL_SIZE, <NAME>_HTTP_MAX_WAIT_QUEUE,
+// <NAME>_HTTP_CONNECT_TIMEOUT_MS and <NAME>_HTTP_TIMEOUT_MS.
+public class WebClientFactory {
+
+    public static WebClient create(Vertx vertx, String name, int defaultPoolSize) {
+        return WebClient.create(vertx, options(name, defaultPoolSize));
+    }
+
+    // for callers that need the request object itself, e.g. to reset it
+    public static HttpClient createHttpClient(Vertx vertx, String name, int defaultPoolSize) {
+        return vertx.createHttpClient(options(name, defaultPoolSize));
+    }
+
+    public static long timeoutMs(String name, long defaultTimeoutMs) {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        return Long.parseLong(dotenv.get(name + "_HTTP_TIMEOUT_MS", String.valueOf(defaultTimeoutMs)));
+    }
+
+    public static WebClientOptions options(String name, int defaultPoolSize) {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        String prefix = name + "_HTTP_";
+        return new WebClientOptions()
+                .setMaxPoolSize(Integer.parseInt(dotenv.get(prefix + "MAX_POOL_SIZE", String.valueOf(defaultPoolSize))))
+                // a bounded wait queue fails fast instead of parking requests behind a stuck pool
+                .setMaxWaitQueueSize(Integer.parseInt(dotenv.get(prefix + "MAX_WAIT_QUEUE", "100")))
+                .setConnectTimeout(Integer.parseInt(dotenv.get(prefix + "CONNECT_TIMEOUT_MS", "5000")))
+                .setKeepAlive(true);
+    }
+}
@@ -0,0 +1,245 @@
+package com.pricedrop.Utils;
+
+import com.pricedrop.services.metrics.Metrics;
+import com.pricedrop.services.scrape.LatencyTracker;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Warm headless browser sessions shared by all browser scrapes. Starting Chrome costs seconds and
+// hundreds of MB, so a session serves up to maxPagesPerSession pages before it is replaced. A session is
+// also replaced when it fails a health check, a scrape on it errors, or its JS heap grows past the cap.
+// Callers block (on a virtual thread) while every session is busy.
+public class WebDriverPool {
+    private static final Logger log = LoggerFactory.getLogger(WebDriverPool.class);
+    private static WebDriverPool shared;
+    private final int size;
+    private final int maxPagesPerSession;
+    private final long maxHeapBytes;
+    private final Supplier<WebDriver> driverFactory;
+    private final Semaphore available;
+    private final ArrayDeque<Session> idle = new ArrayDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final LatencyTracker waitTimes = new LatencyTracker(500);
+    private volatile boolean closed = false;
+
+    public static class Session {
+        private final WebDriver driver;
+        private int pages = 0;
+
+        Session(WebDriver driver) {
+            this.driver = driver;
+        }
+
+        public WebDriver getDriver() {
+            return driver;
+        }
+
+        public int getPages() {
+            return pages;
+        }
+    }
+
+    public WebDriverPool(int size, int maxPagesPerSession, long maxHeapBytes, Supplier<WebDriver> driverFactory) {
+        this.size = Math.max(1, size);
+        this.maxPagesPerSession = Math.max(1, maxPagesPerSession);
+        this.maxHeapBytes = maxHeapBytes;
+        this.driverFactory = driverFactory;
+        this.available = new Semaphore(this.size, true);
+    }
+
+    // sized by BROWSER_POOL_SIZE, but never more sessions than BROWSER_MEMORY_BUDGET_MB can hold
+    public static synchronized WebDriverPool shared() {
+        if (shared == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            int size = configuredSize();
+            shared = new WebDriverPool(size,
+                    Integer.parseInt(dotenv.get("BROWSER_MAX_PAGES_PER_SESSION", "50")),
+                    Long.parseLong(dotenv.get("BROWSER_MAX_HEAP_MB", "512")) * 1024 * 1024,
+                    WebDriverPool::createChromeDriver);
+            shared.registerMetrics();
+            log.info("browser pool sized to {} sessions", size);
+        }
+        return shared;
+    }
+
+    // the size shared() gives the pool, without starting anything
+    public static int configuredSize() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        int configured = Integer.parseInt(dotenv.get("BROWSER_POOL_SIZE", "2"));
+        long budgetMb = Long.parseLong(dotenv.get("BROWSER_MEMORY_BUDGET_MB", "2048"));
+        long perSessionMb = Long.parseLong(dotenv.get("BROWSER_SESSION_ESTIMATE_MB", "400"));
+        return (int) Math.max(1, Math.min(configured, budgetMb / Math.max(1, perSessionMb)));
+    }
+
+    public static synchronized void closeShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    // blocks until a session is free; only call from a virtual or worker thread
+    public Session borrow(long timeoutMs) throws InterruptedException, TimeoutException {
+        long startedAt = System.currentTimeMillis();
+        if (!available.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            Metrics.increment("browser.pool.timeouts");
+            throw new TimeoutException("no browser session free within " + timeoutMs + " ms");
+        }
+        waitTimes.record(System.currentTimeMillis() - startedAt);
+        try {
+            Session session = takeHealthyIdle();
+            return session != null ? session : create();
+        } catch (RuntimeException e) {
+            available.release();
+            throw e;
+        }
+    }
+
+    // broken sessions (the scrape on them threw) are never handed out again
+    public void release(Session session, boolean broken) {
+        try {
+            session.pages++;
+            if (closed || broken || session.pages >= maxPagesPerSession || heapTooLarge(session)) {
+                retire(session, broken ? "error" : "recycle");
+                return;
+            }
+            try {
+                session.driver.manage().deleteAllCookies();
+                session.driver.get("about:blank");
+            } catch (RuntimeException e) {
+                retire(session, "reset failed");
+                return;
+            }
+            synchronized (idle) {
+                idle.push(session);
+            }
+        } finally {
+            available.release();
+        }
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (idle) {
+            idle.forEach(session -> retire(session, "shutdown"));
+            idle.clear();
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getOpenSessions() {
+        return open.get();
+    }
+
+    public int getIdleSessions() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    private Session takeHealthyIdle() {
+        while (true) {
+            Session session;
+            synchronized (idle) {
+                session = idle.poll();
+            }
+            if (session == null) {
+                return null;
+            }
+            if (isHealthy(session)) {
+                return session;
+            }
+            retire(session, "health check");
+        }
+    }
+
+    private boolean isHealthy(Session session) {
+        try {
+            session.driver.getWindowHandle();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    // Chrome only exposes the page's JS heap; it is the part that grows on long-lived sessions
+    private boolean heapTooLarge(Session session) {
+        if (maxHeapBytes <= 0 || !(session.driver instanceof JavascriptExecutor js)) {
+            return false;
+        }
+        try {
+            Object used = js.executeScript("return performance.memory ? performance.memory.usedJSHeapSize : 0");
+            return used instanceof Number bytes && bytes.longValue() > maxHeapBytes;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private Session create() {
+        WebDriver driver = driverFactory.get();
+        open.incrementAndGet();
+        Metrics.increment("browser.pool.created");
+        return new Session(driver);
+    }
+
+    private void retire(Session session, String reason) {
+        log.debug("retiring browser session after {} pages: {}", session.pages, reason);
+        Metrics.increment("browser.pool.retired");
+        open.decrementAndGet();
+        try {
+            session.driver.quit();
+        } catch (RuntimeException e) {
+            log.warn("browser session did not quit cleanly: {}", e.getMessage());
+        }
+    }
+
+    private void registerMetrics() {
+        Metrics.gauge("browser.pool.size", this::getSize);
+        Metrics.gauge("browser.pool.open", this::getOpenSessions);
+        Metrics.gauge("browser.pool.idle", this::getIdleSessions);
+        Metrics.gauge("browser.pool.waiting", available::getQueueLength);
+        Metrics.gauge("browser.pool.waitP50Ms", () -> waitTimes.percentile(0.5));
+        Metrics.gauge("browser.pool.waitP99Ms", () -> waitTimes.percentile(0.99));
+    }
+
+    private static WebDriver createChromeDriver() {
+        System.setProperty("webdriver.chrome.driver", "/usr/bin/chromedriver");
+        ChromeOptions options = new ChromeOptions();
+        options.setBinary("/usr/bin/chromium");
+        options.addArguments("--headless=new");
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--disable-blink-features=AutomationControlled");
+        options.addArguments("user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64)");
+        Map<String, Object> prefs = new HashMap<>();
+        options.setExperimentalOption("prefs", prefs);
+        prefs.put("profile.managed_default_content_settings.images", 2);
+        prefs.put("profile.default_content_setting_values.notifications", 2);
+        prefs.put("profile.default_content_setting_values.stylesheets", 2);
+        prefs.put("profile.managed_default_content_settings.plugins", 2);
+        options.setExperimentalOption("excludeSwitches", new String[]{"enable-automation"});
+        options.setExperimentalOption("useAutomationExtension", false);
+        ChromeDriver driver = new ChromeDriver(options);
+        // registered once per session, it applies to every page the session loads from now on
+        driver.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", Map.of("source",
+                "Object.defineProperty(navigator, 'webdriver', {get: () => undefined})"));
+        return driver;
+    }
+}
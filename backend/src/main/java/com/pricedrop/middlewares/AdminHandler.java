@@ -0,0 +1,37 @@
+package com.pricedrop.middlewares;
+
+import com.pricedrop.Utils.Utility;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Lets through only the users listed in ADMIN_USER_IDS (comma separated); runs after AuthHandler. With the
+// list empty, which is the default, nobody passes and the guarded routes are configuration-only.
+public class AdminHandler implements Handler<RoutingContext> {
+    private final Set<String> adminUserIds;
+
+    public AdminHandler() {
+        this(Arrays.stream(Dotenv.configure().ignoreIfMissing().load().get("ADMIN_USER_IDS", "").split(","))
+                .map(String::trim)
+                .filter(userId -> !userId.isEmpty())
+                .collect(Collectors.toSet()));
+    }
+
+    public AdminHandler(Set<String> adminUserIds) {
+        this.adminUserIds = adminUserIds;
+    }
+
+    @Override
+    public void handle(RoutingContext context) {
+        String userId = context.get("userId");
+        if (userId == null || !adminUserIds.contains(userId)) {
+            Utility.buildResponse(context, 403, Utility.createErrorResponse("admin only"));
+            return;
+        }
+        context.next();
+    }
+}
@@ -0,0 +1,13 @@
+package com.pricedrop.models;
+
+// What makes a watch alert. Watches saved before rules existed have none and are TARGET watches.
+public enum AlertRule {
+    // the price is at or below the target plus the alert margin
+    TARGET,
+    // the price is at least dropPercent below the product's 30-day average
+    DROP_FROM_AVERAGE,
+    // the price is below every price seen for the product
+    ALL_TIME_LOW,
+    // the price is below every price seen since the watch was added
+    LOW_SINCE_ADDED
+}
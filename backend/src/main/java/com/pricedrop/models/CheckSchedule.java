@@ -0,0 +1,64 @@
+package com.pricedrop.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CheckSchedule {
+    private long nextCheckAt;
+    private long intervalMs;
+    private Double lastPrice;
+    private double volatility;
+    private int observations;
+    private int consecutiveFailures;
+
+    public CheckSchedule() {
+    }
+
+    public long getNextCheckAt() {
+        return nextCheckAt;
+    }
+
+    public void setNextCheckAt(long nextCheckAt) {
+        this.nextCheckAt = nextCheckAt;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public Double getLastPrice() {
+        return lastPrice;
+    }
+
+    public void setLastPrice(Double lastPrice) {
+        this.lastPrice = lastPrice;
+    }
+
+    public double getVolatility() {
+        return volatility;
+    }
+
+    public void setVolatility(double volatility) {
+        this.volatility = volatility;
+    }
+
+    public int getObservations() {
+        return observations;
+    }
+
+    public void setObservations(int observations) {
+        this.observations = observations;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+}
@@ -0,0 +1,73 @@
+package com.pricedrop.models;
+
+import io.vertx.core.json.JsonObject;
+
+// A price in minor units (paise). Scraped and user-entered prices are parsed once, where they enter the
+// system, and stored as numbers next to their text; comparisons never go back to the string.
+// toString() is the canonical text form: "1299" or "1299.50".
+public record Price(long minorUnits) implements Comparable<Price> {
+    public static final String MINOR_FIELD = "priceMinor";
+
+    // accepts scraper and user formats such as "₹1,299.00", "Rs. 1299" or "1299.5"; anything after a
+    // second decimal point is ignored, as are digits past the second decimal place
+    public static Price parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("price is missing");
+        }
+        long major = 0;
+        long minor = 0;
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean inFraction = false;
+        try {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    seenDigit = true;
+                    if (!inFraction) {
+                        major = Math.addExact(Math.multiplyExact(major, 10), c - '0');
+                    } else if (fractionDigits < 2) {
+                        minor = minor * 10 + (c - '0');
+                        fractionDigits++;
+                    }
+                } else if (c == '.' && seenDigit) {
+                    if (inFraction) {
+                        break;
+                    }
+                    inFraction = true;
+                }
+            }
+            if (!seenDigit) {
+                throw new IllegalArgumentException("no digits in price: " + text);
+            }
+            if (fractionDigits == 1) {
+                minor *= 10;
+            }
+            return new Price(Math.addExact(Math.multiplyExact(major, 100), minor));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("price out of range: " + text);
+        }
+    }
+
+    // scraped product info carries priceMinor once it passed ingestion; older sources only have the text
+    public static Price fromProductInfo(JsonObject productInfo) {
+        Long minorUnits = productInfo.getLong(MINOR_FIELD);
+        return minorUnits != null ? new Price(minorUnits) : parse(productInfo.getString("price"));
+    }
+
+    public double toMajor() {
+        return minorUnits / 100.0;
+    }
+
+    @Override
+    public int compareTo(Price other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        long fraction = minorUnits % 100;
+        return fraction == 0 ? String.valueOf(minorUnits / 100)
+                : (minorUnits / 100) + "." + (fraction < 10 ? "0" : "") + fraction;
+    }
+}
@@ -10,14 +10,17 @@ public class PriceHistory {
     private String productName;
     private String productUrl;
     private String productPrice;
+    // productPrice in minor units, so range queries and aggregations can run in mongo
+    private Long priceMinor;
     private Instant captureTime;
 
     public PriceHistory(String productId, String productName, String productUrl,
-                        String productPrice, Instant captureTime) {
+                        String productPrice, Long priceMinor, Instant captureTime) {
         this.productId = productId;
         this.productName = productName;
         this.productUrl = productUrl;
         this.productPrice = productPrice;
+        this.priceMinor = priceMinor;
         this.captureTime = captureTime;
     }
 
@@ -53,6 +56,14 @@ public class PriceHistory {
         this.productPrice = productPrice;
     }
 
+    public Long getPriceMinor() {
+        return priceMinor;
+    }
+
+    public void setPriceMinor(Long priceMinor) {
+        this.priceMinor = priceMinor;
+    }
+
     public Instant getCaptureTime() {
         return captureTime;
     }
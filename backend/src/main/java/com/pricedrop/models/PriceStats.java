@@ -0,0 +1,99 @@
+package com.pricedrop.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// Running price statistics of a product, updated by RuleEngine on every observation so alert rules never
+// need the price history. The 30-day window is kept as one sum and count per day in a ring indexed by
+// epoch day, so it stays the same size however often the product is checked.
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PriceStats {
+    private long observations;
+    private Long lastPriceMinor;
+    private Long allTimeLowMinor;
+    // epoch day of the newest bucket
+    private long windowDay;
+    private long[] daySums;
+    private int[] dayCounts;
+    private long windowSum;
+    private int windowCount;
+
+    public PriceStats() {
+    }
+
+    public PriceStats copy() {
+        PriceStats copy = new PriceStats();
+        copy.observations = observations;
+        copy.lastPriceMinor = lastPriceMinor;
+        copy.allTimeLowMinor = allTimeLowMinor;
+        copy.windowDay = windowDay;
+        copy.daySums = daySums == null ? null : daySums.clone();
+        copy.dayCounts = dayCounts == null ? null : dayCounts.clone();
+        copy.windowSum = windowSum;
+        copy.windowCount = windowCount;
+        return copy;
+    }
+
+    public long getObservations() {
+        return observations;
+    }
+
+    public void setObservations(long observations) {
+        this.observations = observations;
+    }
+
+    public Long getLastPriceMinor() {
+        return lastPriceMinor;
+    }
+
+    public void setLastPriceMinor(Long lastPriceMinor) {
+        this.lastPriceMinor = lastPriceMinor;
+    }
+
+    public Long getAllTimeLowMinor() {
+        return allTimeLowMinor;
+    }
+
+    public void setAllTimeLowMinor(Long allTimeLowMinor) {
+        this.allTimeLowMinor = allTimeLowMinor;
+    }
+
+    public long getWindowDay() {
+        return windowDay;
+    }
+
+    public void setWindowDay(long windowDay) {
+        this.windowDay = windowDay;
+    }
+
+    public long[] getDaySums() {
+        return daySums;
+    }
+
+    public void setDaySums(long[] daySums) {
+        this.daySums = daySums;
+    }
+
+    public int[] getDayCounts() {
+        return dayCounts;
+    }
+
+    public void setDayCounts(int[] dayCounts) {
+        this.dayCounts = dayCounts;
+    }
+
+    public long getWindowSum() {
+        return windowSum;
+    }
+
+    public void setWindowSum(long windowSum) {
+        this.windowSum = windowSum;
+    }
+
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+    public void setWindowCount(int windowCount) {
+        this.windowCount = windowCount;
+    }
+}
@@ -1,6 +1,7 @@
 package com.pricedrop.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.util.List;
 
@@ -8,7 +9,18 @@ import java.util.List;
 public class Product {
     private String productId;
     private String productUrl;
+    // watchers used to be embedded here; they now live in the watches collection and this is only read
+    // by WatchesMigration
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<UserTargetPrices> userTargetPrices;
+    // highest target any watcher set, kept by WatchStore so scheduling needn't load the watches
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long maxTargetMinor;
+    private CheckSchedule checkSchedule;
+    // kept by the alert stage, see RuleEngine
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private PriceStats priceStats;
+    private Integer shard;
 
     public String getProductId() {
         return productId;
@@ -33,4 +45,36 @@ public class Product {
     public void setUserTargetPrices(List<UserTargetPrices> userTargetPrices) {
         this.userTargetPrices = userTargetPrices;
     }
+
+    public Long getMaxTargetMinor() {
+        return maxTargetMinor;
+    }
+
+    public void setMaxTargetMinor(Long maxTargetMinor) {
+        this.maxTargetMinor = maxTargetMinor;
+    }
+
+    public CheckSchedule getCheckSchedule() {
+        return checkSchedule;
+    }
+
+    public void setCheckSchedule(CheckSchedule checkSchedule) {
+        this.checkSchedule = checkSchedule;
+    }
+
+    public PriceStats getPriceStats() {
+        return priceStats;
+    }
+
+    public void setPriceStats(PriceStats priceStats) {
+        this.priceStats = priceStats;
+    }
+
+    public Integer getShard() {
+        return shard;
+    }
+
+    public void setShard(Integer shard) {
+        this.shard = shard;
+    }
 }
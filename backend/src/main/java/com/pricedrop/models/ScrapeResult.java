@@ -0,0 +1,29 @@
+package com.pricedrop.models;
+
+import io.vertx.core.json.JsonObject;
+
+// A scraped product as it travels between check stages; sent by reference over the event bus, never re-encoded.
+public class ScrapeResult {
+    private final Product product;
+    private final JsonObject productInfo;
+
+    public ScrapeResult(Product product, JsonObject productInfo) {
+        this.product = product;
+        this.productInfo = productInfo;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public JsonObject getProductInfo() {
+        return productInfo;
+    }
+
+    // the { productInfo, product } shape the scrapper client and older callers use
+    public JsonObject toJson() {
+        return new JsonObject()
+                .put("productInfo", productInfo)
+                .put("product", JsonObject.mapFrom(product));
+    }
+}
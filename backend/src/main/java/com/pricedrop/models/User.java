@@ -13,6 +13,10 @@ public class User {
     private Instant createdAt;
     private Instant updatedAt;
     private String profilePicture;
+    // alerts that come in between these local hours wait for the first digest after them
+    private Integer quietHoursStart;
+    private Integer quietHoursEnd;
+    private String timeZone;
 
     public User() {
         // Default constructor for deserialization
@@ -84,4 +88,28 @@ public class User {
     public void setProfilePicture(String profilePicture) {
         this.profilePicture = profilePicture;
     }
+
+    public Integer getQuietHoursStart() {
+        return quietHoursStart;
+    }
+
+    public void setQuietHoursStart(Integer quietHoursStart) {
+        this.quietHoursStart = quietHoursStart;
+    }
+
+    public Integer getQuietHoursEnd() {
+        return quietHoursEnd;
+    }
+
+    public void setQuietHoursEnd(Integer quietHoursEnd) {
+        this.quietHoursEnd = quietHoursEnd;
+    }
+
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public void setTimeZone(String timeZone) {
+        this.timeZone = timeZone;
+    }
 }
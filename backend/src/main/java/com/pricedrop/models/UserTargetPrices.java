@@ -1,10 +1,13 @@
 package com.pricedrop.models;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class UserTargetPrices {
     String userId;
     List<String> targetPrices;
+    // the numbers behind targetPrices, parsed at ingestion; unparsable legacy targets have no entry
+    List<Long> targetPricesMinor;
 
     public String getUserId() {
         return userId;
@@ -21,4 +24,34 @@ public class UserTargetPrices {
     public void setTargetPrices(List<String> targetPrices) {
         this.targetPrices = targetPrices;
     }
+
+    public List<Long> getTargetPricesMinor() {
+        return targetPricesMinor;
+    }
+
+    public void setTargetPricesMinor(List<Long> targetPricesMinor) {
+        this.targetPricesMinor = targetPricesMinor;
+    }
+
+    // the text is parsed as well, since an unmigrated entry that got a target added has targetPricesMinor
+    // holding only the new one
+    public List<Long> targetPricesInMinorUnits() {
+        List<Long> parsed = new ArrayList<>();
+        if (targetPrices != null) {
+            for (String targetPrice : targetPrices) {
+                try {
+                    long minorUnits = Price.parse(targetPrice).minorUnits();
+                    if (!parsed.contains(minorUnits)) {
+                        parsed.add(minorUnits);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // unparsable targets never match
+                }
+            }
+        }
+        if (targetPricesMinor != null) {
+            targetPricesMinor.stream().filter(minorUnits -> !parsed.contains(minorUnits)).forEach(parsed::add);
+        }
+        return parsed;
+    }
 }
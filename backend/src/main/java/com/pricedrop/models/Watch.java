@@ -0,0 +1,152 @@
+package com.pricedrop.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One user watching one product for one target price or one AlertRule; a document in the watches collection.
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Watch {
+    private String userId;
+    private String productId;
+    // absent on TARGET watches, which is all of them saved before rules existed
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private AlertRule rule;
+    // DROP_FROM_AVERAGE only
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double dropPercent;
+    // canonical text, as shown to the user; TARGET only
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String targetPrice;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long targetMinor;
+    // the highest observed price that alerts: the target plus the alert margin, or just under the lowest
+    // price seen for LOW_SINCE_ADDED; absent on rules that don't fire on a fixed price and on legacy targets
+    // that never parsed, which are kept as text so the user can still see and delete them
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long threshold;
+    // LOW_SINCE_ADDED only, absent until the first price after the watch was added
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long lowSinceAddedMinor;
+    private long createdAt;
+    // set while the watch is in the alerted state, see AlertStates; absent means it alerts on the next match
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long alertedPriceMinor;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long alertedAt;
+
+    public Watch() {
+    }
+
+    public Watch(String userId, String productId, Price target, long threshold, long createdAt) {
+        this.userId = userId;
+        this.productId = productId;
+        this.targetPrice = target.toString();
+        this.targetMinor = target.minorUnits();
+        this.threshold = threshold;
+        this.createdAt = createdAt;
+    }
+
+    public Watch(String userId, String productId, String unparsableTarget, long createdAt) {
+        this.userId = userId;
+        this.productId = productId;
+        this.targetPrice = unparsableTarget;
+        this.createdAt = createdAt;
+    }
+
+    public Watch(String userId, String productId, AlertRule rule, Double dropPercent, long threshold, long createdAt) {
+        this.userId = userId;
+        this.productId = productId;
+        this.rule = rule;
+        this.dropPercent = dropPercent;
+        this.threshold = threshold;
+        this.createdAt = createdAt;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public AlertRule getRule() {
+        return rule;
+    }
+
+    public void setRule(AlertRule rule) {
+        this.rule = rule;
+    }
+
+    public Double getDropPercent() {
+        return dropPercent;
+    }
+
+    public void setDropPercent(Double dropPercent) {
+        this.dropPercent = dropPercent;
+    }
+
+    public String getTargetPrice() {
+        return targetPrice;
+    }
+
+    public void setTargetPrice(String targetPrice) {
+        this.targetPrice = targetPrice;
+    }
+
+    public long getTargetMinor() {
+        return targetMinor;
+    }
+
+    public void setTargetMinor(long targetMinor) {
+        this.targetMinor = targetMinor;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(long threshold) {
+        this.threshold = threshold;
+    }
+
+    public Long getLowSinceAddedMinor() {
+        return lowSinceAddedMinor;
+    }
+
+    public void setLowSinceAddedMinor(Long lowSinceAddedMinor) {
+        this.lowSinceAddedMinor = lowSinceAddedMinor;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getAlertedPriceMinor() {
+        return alertedPriceMinor;
+    }
+
+    public void setAlertedPriceMinor(Long alertedPriceMinor) {
+        this.alertedPriceMinor = alertedPriceMinor;
+    }
+
+    public Long getAlertedAt() {
+        return alertedAt;
+    }
+
+    public void setAlertedAt(Long alertedAt) {
+        this.alertedAt = alertedAt;
+    }
+}
@@ -0,0 +1,50 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.Price;
+import com.pricedrop.models.Product;
+import io.vertx.core.json.JsonObject;
+
+import java.util.List;
+
+// Alert mail HTML. A product's block is rendered once per check and shared by all its watchers; a digest
+// wraps one user's blocks into a single mail.
+public class AlertMailRenderer {
+    private static final String HEADER = """
+            <html>
+              <body style="font-family: Arial, sans-serif; line-height: 1.6; color: #333;">
+                <h2>📉 Price Drop Alert!</h2>
+            """;
+    private static final String FOOTER = """
+              </body>
+            </html>
+            """;
+
+    public static String productBlock(Product product, JsonObject productInfo) {
+        String productName = productInfo.getString("title");
+        String formattedPrice = Utility.formatToINR(Price.fromProductInfo(productInfo).toMajor());
+        return """
+                    <p><strong>%s</strong></p>
+                    <p>has dropped to: <strong style="color: green;">%s</strong>.</p>
+                    <p>🔗 <a href="%s" target="_blank">Click here to view the product</a></p>
+                """.formatted(productName, formattedPrice, product.getProductUrl());
+    }
+
+    public static String subject(int products) {
+        return products == 1 ? "Hurry!!, The price of your added product has dropped"
+                : "Hurry!!, The prices of " + products + " of your added products have dropped";
+    }
+
+    public static String digest(List<String> blocks) {
+        StringBuilder body = new StringBuilder(HEADER.length() + FOOTER.length() + blocks.size() * 512);
+        body.append(HEADER).append(blocks.size() == 1 ? "    <p>The price of your added product:</p>\n"
+                : "    <p>The prices of your added products:</p>\n");
+        for (int i = 0; i < blocks.size(); i++) {
+            if (i > 0) {
+                body.append("    <hr>\n");
+            }
+            body.append(blocks.get(i));
+        }
+        return body.append(FOOTER).toString();
+    }
+}
@@ -0,0 +1,169 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.services.metrics.Metrics;
+import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.watches.WatchStore;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Alert state per watch, so a price that stays under a target is mailed once rather than on every check.
+// A watch that alerted stays quiet until either the price drops a further redropPercent below the
+// alerted price (and cooldownMs has passed), or the price recovers rearmPercent above the threshold,
+// which re-arms it. The state is persisted on the watch document and comes back with the range query
+// that finds the triggered watches; re-arming needs watches that query doesn't return, so which watches
+// are alerted is also kept in memory and the database is only written when one of them recovers.
+// Watches with an AlertRule have no price to recover above and only wait out the cooldown.
+public class AlertStates {
+    private static final Logger log = LoggerFactory.getLogger(AlertStates.class);
+    private final MongoDBClient mongoDBClient;
+    private final long cooldownMs;
+    private final int redropPercent;
+    private final int rearmPercent;
+    // productId -> alerted watch _id -> its threshold
+    private final Map<String, Map<Object, Long>> alerted = new ConcurrentHashMap<>();
+
+    public AlertStates(MongoDBClient mongoDBClient) {
+        this(mongoDBClient, Dotenv.configure().ignoreIfMissing().load());
+    }
+
+    private AlertStates(MongoDBClient mongoDBClient, Dotenv dotenv) {
+        this(mongoDBClient,
+                Long.parseLong(dotenv.get("ALERT_COOLDOWN_MINUTES", "1440")) * 60_000,
+                Integer.parseInt(dotenv.get("ALERT_REDROP_PERCENT", "5")),
+                Integer.parseInt(dotenv.get("ALERT_REARM_PERCENT", "2")));
+    }
+
+    public AlertStates(MongoDBClient mongoDBClient, long cooldownMs, int redropPercent, int rearmPercent) {
+        this.mongoDBClient = mongoDBClient;
+        this.cooldownMs = cooldownMs;
+        this.redropPercent = redropPercent;
+        this.rearmPercent = rearmPercent;
+        Metrics.gauge("alerts.state.alerted", () -> alerted.values().stream().mapToInt(Map::size).sum());
+    }
+
+    // fills the in-memory view from the watches alerted before this process started
+    public Future<Void> load() {
+        return mongoDBClient.queryRecords(alertedQuery(), alertedFields(), WatchStore.COLLECTION)
+                .onSuccess(watches -> {
+                    watches.forEach(watch -> remember(watch.getString("productId"), watch));
+                    log.info("loaded alert state of {} watches", watches.size());
+                })
+                .onFailure(fail -> log.error("could not load alert state: {}", fail.getMessage()))
+                .mapEmpty();
+    }
+
+    // shards taken over from another instance bring watches that instance alerted, so their products'
+    // state is read again; without it they could never re-arm here
+    public Future<Void> loadShards(Set<Integer> shards) {
+        JsonObject query = new JsonObject().put("shard", new JsonObject().put("$in", new JsonArray(new ArrayList<>(shards))));
+        FindOptions options = new FindOptions().setFields(new JsonObject().put("productId", 1));
+        return mongoDBClient.queryRecords(query, options, "products").compose(products -> {
+            List<String> productIds = products.stream().map(product -> product.getString("productId")).toList();
+            if (productIds.isEmpty()) {
+                return Future.succeededFuture();
+            }
+            JsonObject watchQuery = alertedQuery().put("productId", new JsonObject().put("$in", new JsonArray(productIds)));
+            return mongoDBClient.queryRecords(watchQuery, alertedFields(), WatchStore.COLLECTION).onSuccess(watches -> {
+                Map<String, List<JsonObject>> byProduct = watches.stream()
+                        .collect(Collectors.groupingBy(watch -> watch.getString("productId")));
+                // replaced per product, so a state cleared elsewhere meanwhile is forgotten here too
+                productIds.forEach(productId -> {
+                    Map<Object, Long> loaded = new ConcurrentHashMap<>();
+                    byProduct.getOrDefault(productId, List.of())
+                            .forEach(watch -> loaded.put(watch.getValue("_id"), watch.getLong("threshold")));
+                    if (loaded.isEmpty()) {
+                        alerted.remove(productId);
+                    } else {
+                        alerted.put(productId, loaded);
+                    }
+                });
+                log.info("loaded alert state of {} watches for shards {}", watches.size(), shards);
+            }).<Void>mapEmpty();
+        }).onFailure(fail -> log.error("could not load alert state of shards {}: {}", shards, fail.getMessage()));
+    }
+
+    // clears the alerted state of watches the price has recovered from; a failure only delays re-arming
+    public Future<Void> rearm(String productId, long priceMinor) {
+        Map<Object, Long> watches = alerted.get(productId);
+        if (watches == null) {
+            return Future.succeededFuture();
+        }
+        List<Object> recovered = watches.entrySet().stream()
+                .filter(watch -> priceMinor * 100 > watch.getValue() * (100 + rearmPercent))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (recovered.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        JsonObject update = new JsonObject().put("$unset", new JsonObject()
+                .put("alertedPriceMinor", "").put("alertedAt", ""));
+        return mongoDBClient.updateRecords(byIds(recovered), update, WatchStore.COLLECTION, false)
+                .onSuccess(rearmed -> {
+                    recovered.forEach(watches::remove);
+                    Metrics.counter("alerts.rearmed").add(recovered.size());
+                })
+                .onFailure(fail -> log.error("could not re-arm watches of {}: {}", productId, fail.getMessage()))
+                .<Void>mapEmpty()
+                .otherwiseEmpty();
+    }
+
+    public boolean isDue(JsonObject watch, long priceMinor, long now) {
+        Long alertedPriceMinor = watch.getLong("alertedPriceMinor");
+        if (alertedPriceMinor == null) {
+            return true;
+        }
+        if (now - watch.getLong("alertedAt", 0L) < cooldownMs) {
+            return false;
+        }
+        if (!isTarget(watch)) {
+            return true;
+        }
+        return priceMinor * 100 <= alertedPriceMinor * (100 - redropPercent);
+    }
+
+    public Future<Void> markAlerted(String productId, List<JsonObject> watches, long priceMinor, long now) {
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("alertedPriceMinor", priceMinor).put("alertedAt", now));
+        List<Object> ids = watches.stream().map(watch -> watch.getValue("_id")).toList();
+        return mongoDBClient.updateRecords(byIds(ids), update, WatchStore.COLLECTION, false)
+                .onSuccess(marked -> watches.stream()
+                        .filter(AlertStates::isTarget)
+                        .forEach(watch -> remember(productId, watch)))
+                .mapEmpty();
+    }
+
+    private void remember(String productId, JsonObject watch) {
+        alerted.computeIfAbsent(productId, id -> new ConcurrentHashMap<>())
+                .put(watch.getValue("_id"), watch.getLong("threshold"));
+    }
+
+    private static boolean isTarget(JsonObject watch) {
+        return watch.getString("rule") == null;
+    }
+
+    private static JsonObject alertedQuery() {
+        return new JsonObject()
+                .put("alertedPriceMinor", new JsonObject().put("$exists", true))
+                .put("rule", new JsonObject().put("$exists", false));
+    }
+
+    private static FindOptions alertedFields() {
+        return new FindOptions().setFields(new JsonObject().put("productId", 1).put("threshold", 1));
+    }
+
+    private static JsonObject byIds(List<Object> ids) {
+        return new JsonObject().put("_id", new JsonObject().put("$in", new JsonArray(ids)));
+    }
+}
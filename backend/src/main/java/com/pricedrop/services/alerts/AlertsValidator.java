@@ -1,62 +1,167 @@
 package com.pricedrop.services.alerts;
 
 import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.AlertRule;
+import com.pricedrop.models.Price;
+import com.pricedrop.models.PriceStats;
 import com.pricedrop.models.Product;
-import com.pricedrop.models.User;
-import com.pricedrop.models.UserTargetPrices;
+import com.pricedrop.services.metrics.Metrics;
 import com.pricedrop.services.mongo.MongoDBClient;
-import com.pricedrop.services.user.UserManagement;
+import com.pricedrop.services.rules.RuleEngine;
+import com.pricedrop.services.user.UserLookup;
+import com.pricedrop.services.user.UserProfileCache;
+import com.pricedrop.services.watches.WatchStore;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.mongo.FindOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
 public class AlertsValidator {
-    private final int MARGIN = 5;
     private static final Logger log = LoggerFactory.getLogger(AlertsValidator.class);
+    private static final int STATS_WRITE_ATTEMPTS = 3;
+    private final WatchStore watchStore;
     MongoDBClient mongoDBClient;
     Vertx vertx;
-    WebClient client;
-    UserManagement userManagement;
-    public AlertsValidator(MongoDBClient mongoDBClient, Vertx vertx, WebClient client) {
+    UserLookup userLookup;
+    AlertStates alertStates;
+    PendingNotifications notifications;
+    RuleEngine ruleEngine;
+    public AlertsValidator(MongoDBClient mongoDBClient, Vertx vertx) {
+        this(mongoDBClient, vertx, new UserLookup(vertx, mongoDBClient, UserProfileCache.shared()),
+                new AlertStates(mongoDBClient));
+    }
+
+    public AlertsValidator(MongoDBClient mongoDBClient, Vertx vertx, UserLookup userLookup, AlertStates alertStates) {
+        this(mongoDBClient, vertx, userLookup, alertStates, new WatchStore(mongoDBClient));
+    }
+
+    public AlertsValidator(MongoDBClient mongoDBClient, Vertx vertx, UserLookup userLookup, AlertStates alertStates,
+                           WatchStore watchStore) {
         this.mongoDBClient = mongoDBClient;
         this.vertx = vertx;
-        this.client = client;
-        this.userManagement = new UserManagement(mongoDBClient);
+        this.userLookup = userLookup;
+        this.alertStates = alertStates;
+        this.notifications = new PendingNotifications(mongoDBClient);
+        this.watchStore = watchStore;
+        this.ruleEngine = new RuleEngine();
     }
 
     public void checkForAlertsAndSend(JsonObject futureResult) {
         Product product = Utility.castToClass(futureResult.getJsonObject("product"), Product.class);
-        JsonObject productInfo = futureResult.getJsonObject("productInfo");
-        int productPrice = Utility.extractPrice(productInfo.getString("price"));
-        List<UserTargetPrices> userTargetPrices = product.getUserTargetPrices();
-        Set<String> toBeAlertedUsers = new HashSet<>();
-        userTargetPrices.forEach(userTargetPrice -> {
-            String userId = userTargetPrice.getUserId();
-            userTargetPrice.getTargetPrices().forEach(targetPriceStr -> {
-                int targetPrice = Utility.extractPrice(targetPriceStr);
-                if (productPrice <= targetPrice + ((MARGIN) * targetPrice / 100)) {
-                   toBeAlertedUsers.add(userId);
-                }
-            });
-        });
-        if (toBeAlertedUsers.isEmpty()) {
+        checkForAlerts(product, futureResult.getJsonObject("productInfo"));
+    }
+
+    // completes once the alerts wait for their users' digests. Rules see the product's stats from before
+    // this price, and the stats with it are saved for the next check.
+    public Future<Void> checkForAlerts(Product product, JsonObject productInfo) {
+        long productPrice = Price.fromProductInfo(productInfo).minorUnits();
+        long now = System.currentTimeMillis();
+        String productId = product.getProductId();
+        return observe(productId, product.getPriceStats(), productPrice, now, STATS_WRITE_ATTEMPTS)
+                .compose(stats -> alertStates.rearm(productId, productPrice).map(stats))
+                .compose(stats -> watchStore.triggered(productId, productPrice, ruleEngine.ruleClauses(productPrice, stats))
+                        .compose(triggered -> alert(product, productInfo, productPrice, now, stats, triggered)));
+    }
+
+    private Future<Void> alert(Product product, JsonObject productInfo, long productPrice, long now, PriceStats stats,
+                               List<JsonObject> triggered) {
+        String productId = product.getProductId();
+        List<Object> lows = triggered.stream()
+                .filter(watch -> AlertRule.LOW_SINCE_ADDED.name().equals(watch.getString("rule")))
+                .map(watch -> watch.getValue("_id"))
+                .toList();
+        List<JsonObject> fired = triggered.stream()
+                .filter(watch -> ruleEngine.fires(watch, productPrice, stats))
+                .toList();
+        List<JsonObject> due = fired.stream()
+                .filter(watch -> alertStates.isDue(watch, productPrice, now))
+                .toList();
+        Metrics.counter("alerts.suppressed").add(fired.size() - due.size());
+        if (due.isEmpty()) {
             log.info("no one to alert for this product");
-            return;
+            return watchStore.recordLow(productId, lows, productPrice);
         }
-        log.info("{}, users will be alerted for priceDrop of: {}", toBeAlertedUsers, product.getProductId());
-        userManagement.fetchUsersFromUserIds(new ArrayList<>(toBeAlertedUsers)).onFailure(fail -> {
-            log.error("error in fetching users");
-        }).onSuccess(usersObj -> {
-            usersObj.forEach(userObj -> {
-                User user = Utility.castToClass(userObj, User.class);
-                AlertClient alertClient = new AlertClient(user, productInfo, product, vertx, client);
-                alertClient.sendAlerts();
-            });
+        List<String> toBeAlertedUsers = due.stream().map(watch -> watch.getString("userId")).distinct().toList();
+        log.info("{}, users will be alerted for priceDrop of: {}", toBeAlertedUsers, productId);
+        // marked first, so a failed write can't turn into the same mail on every check
+        return watchStore.recordLow(productId, lows, productPrice)
+                .compose(v -> alertStates.markAlerted(productId, due, productPrice, now))
+                .compose(v -> userLookup.users(toBeAlertedUsers))
+                .onFailure(fail -> {
+                    log.error("error in fetching users");
+                }).compose(users -> {
+                    // the same block goes to every watcher
+                    String block = AlertMailRenderer.productBlock(product, productInfo);
+                    return Future.all(users.stream()
+                            .map(user -> notifications.enqueue(user, productId, block, now))
+                            .toList());
+                })
+                .mapEmpty();
+    }
+
+    // saves the stats with this price and completes with the stats from before it, which the rules are checked
+    // against. The write only lands while the stored stats are the ones observed, so two checks of the same
+    // product can't drop each other's price; on a conflict the stored stats are read again. The stats only feed
+    // rules, so failing to save them never holds back this check's alerts.
+    private Future<PriceStats> observe(String productId, PriceStats stored, long priceMinor, long now, int attemptsLeft) {
+        return seeded(productId, stored).compose(previous -> {
+            JsonObject query = new JsonObject().put("productId", productId);
+            if (stored == null) {
+                query.putNull("priceStats");
+            } else {
+                query.put("priceStats.observations", stored.getObservations());
+            }
+            JsonObject update = new JsonObject().put("$set", new JsonObject()
+                    .put("priceStats", JsonObject.mapFrom(ruleEngine.observe(previous, priceMinor, now))));
+            return mongoDBClient.updateRecords(query, update, "products", false).compose(modified -> {
+                if (modified > 0 || attemptsLeft <= 1) {
+                    return Future.succeededFuture(previous);
+                }
+                Metrics.increment("alerts.stats.conflict");
+                return reread(productId, previous, priceMinor, now, attemptsLeft - 1);
+            }).onFailure(fail -> log.error("could not save price stats of {}: {}", productId, fail.getMessage()))
+                    .otherwise(previous);
         });
     }
 
+    private Future<PriceStats> reread(String productId, PriceStats previous, long priceMinor, long now, int attemptsLeft) {
+        FindOptions options = new FindOptions().setFields(new JsonObject().put("priceStats", 1));
+        return mongoDBClient.queryRecords(new JsonObject().put("productId", productId), options, "products")
+                .compose(records -> {
+                    if (records.isEmpty()) {
+                        // the product is gone, there is nothing to save the stats on
+                        return Future.succeededFuture(previous);
+                    }
+                    JsonObject stats = records.get(0).getJsonObject("priceStats");
+                    return observe(productId, stats == null ? null : Utility.castToClass(stats, PriceStats.class),
+                            priceMinor, now, attemptsLeft);
+                });
+    }
+
+    // a product tracked from before PriceStats has no stats yet; its lowest recorded price seeds the all-time
+    // low once, so its first cheaper price after the upgrade isn't taken for a new low
+    private Future<PriceStats> seeded(String productId, PriceStats stored) {
+        if (stored != null) {
+            return Future.succeededFuture(stored);
+        }
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put(Price.MINOR_FIELD, 1))
+                .setSort(new JsonObject().put(Price.MINOR_FIELD, 1))
+                .setLimit(1);
+        JsonObject query = new JsonObject().put("productId", productId)
+                .put(Price.MINOR_FIELD, new JsonObject().put("$ne", null));
+        return mongoDBClient.queryRecords(query, options, "pricehistory").map(records -> {
+            if (records.isEmpty()) {
+                return (PriceStats) null;
+            }
+            PriceStats seeded = new PriceStats();
+            seeded.setAllTimeLowMinor(records.get(0).getLong(Price.MINOR_FIELD));
+            return seeded;
+        }).otherwise((PriceStats) null);
+    }
+
 }
@@ -2,10 +2,25 @@ package com.pricedrop.services.alerts;
 
 import io.github.cdimascio.dotenv.Dotenv;
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+import java.util.List;
 
 public interface EmailAlertService {
     Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
     String senderEmail = dotenv.get("SENDER_EMAIL", "");
 
     Future<Void> sendEmail(String subject, String to, String body);
+
+    // messages are outbox documents: to, subject and htmlContent. Providers without a batch API send them
+    // one by one; when some of them fail, the batch fails with a PartialBatchException saying which
+    default Future<Void> sendBatch(List<JsonObject> messages) {
+        List<Future<Void>> sends = messages.stream()
+                .map(message -> sendEmail(message.getString("subject"), message.getString("to"),
+                        message.getString("htmlContent")))
+                .toList();
+        return Future.join(sends)
+                .<Void>mapEmpty()
+                .recover(fail -> Future.failedFuture(new PartialBatchException(messages, sends)));
+    }
 }
@@ -0,0 +1,135 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.services.metrics.Metrics;
+import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.retry.RetryPolicy;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Mails waiting to be sent, one document each. The alert path only appends; OutboxSender claims due
+// messages in batches under a lease, so a sender that dies mid-batch hands them back once the lease runs
+// out. Delivery is at least once: a batch that was sent but not yet marked is sent again.
+public class EmailOutbox {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutbox.class);
+    public static final String COLLECTION = "email-outbox";
+    public static final String PENDING = "PENDING";
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+    private final MongoDBClient mongoDBClient;
+    private final long leaseMs;
+
+    public EmailOutbox(MongoDBClient mongoDBClient) {
+        this(mongoDBClient, Long.parseLong(Dotenv.configure().ignoreIfMissing().load()
+                .get("MAIL_OUTBOX_LEASE_MS", "120000")));
+    }
+
+    public EmailOutbox(MongoDBClient mongoDBClient, long leaseMs) {
+        this.mongoDBClient = mongoDBClient;
+        this.leaseMs = leaseMs;
+    }
+
+    public Future<Void> ensureIndexes() {
+        return Future.all(
+                mongoDBClient.createIndex(COLLECTION, new JsonObject().put("status", 1).put("nextAttemptAt", 1)),
+                mongoDBClient.createIndex(COLLECTION, new JsonObject().put("claim", 1))
+        ).mapEmpty();
+    }
+
+    public Future<Void> append(String to, String subject, String htmlContent) {
+        long now = System.currentTimeMillis();
+        JsonObject message = new JsonObject()
+                .put("to", to)
+                .put("subject", subject)
+                .put("htmlContent", htmlContent)
+                .put("status", PENDING)
+                .put("attempts", 0)
+                .put("nextAttemptAt", now)
+                .put("createdAt", now);
+        return mongoDBClient.insertRecord(message, COLLECTION)
+                .onSuccess(res -> Metrics.increment("mail.outbox.appended"));
+    }
+
+    // marks up to limit due messages as ours and returns them; messages another sender claimed in the
+    // meantime are simply not in the result
+    public Future<List<JsonObject>> claim(int limit) {
+        long now = System.currentTimeMillis();
+        JsonObject due = new JsonObject().put("$or", new JsonArray()
+                .add(new JsonObject()
+                        .put("status", PENDING)
+                        .put("nextAttemptAt", new JsonObject().put("$lte", now)))
+                .add(new JsonObject()
+                        .put("status", SENDING)
+                        .put("lockedUntil", new JsonObject().put("$lt", now))));
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("_id", 1))
+                .setSort(new JsonObject().put("nextAttemptAt", 1))
+                .setLimit(limit);
+        String claim = UUID.randomUUID().toString();
+        return mongoDBClient.queryRecords(due, options, COLLECTION).compose(candidates -> {
+            if (candidates.isEmpty()) {
+                return Future.succeededFuture(List.of());
+            }
+            JsonArray ids = new JsonArray(candidates.stream().map(candidate -> candidate.getValue("_id")).toList());
+            JsonObject update = new JsonObject().put("$set", new JsonObject()
+                    .put("status", SENDING)
+                    .put("claim", claim)
+                    .put("lockedUntil", now + leaseMs));
+            return mongoDBClient.updateRecords(due.copy().put("_id", new JsonObject().put("$in", ids)), update,
+                            COLLECTION, false)
+                    .compose(claimed -> claimed == 0 ? Future.succeededFuture(List.of())
+                            : mongoDBClient.queryRecords(new JsonObject().put("claim", claim), COLLECTION));
+        });
+    }
+
+    public Future<Void> markSent(List<JsonObject> batch) {
+        JsonObject update = new JsonObject()
+                .put("$set", new JsonObject().put("status", SENT).put("sentAt", System.currentTimeMillis()))
+                .put("$inc", new JsonObject().put("attempts", 1))
+                .put("$unset", new JsonObject().put("claim", "").put("lockedUntil", ""));
+        return mongoDBClient.updateRecords(byIds(batch), update, COLLECTION, false)
+                .onSuccess(sent -> Metrics.counter("mail.outbox.sent").add(sent))
+                .mapEmpty();
+    }
+
+    // messages go back to PENDING with a backoff, or to FAILED once retrying can't help
+    public Future<Void> markFailed(List<JsonObject> batch, Throwable failure, RetryPolicy retryPolicy) {
+        long now = System.currentTimeMillis();
+        boolean retryable = retryPolicy.isRetryable(failure);
+        List<Future<Long>> updates = new ArrayList<>();
+        for (JsonObject message : batch) {
+            int attempts = message.getInteger("attempts", 0) + 1;
+            JsonObject set = new JsonObject()
+                    .put("attempts", attempts)
+                    .put("lastError", String.valueOf(failure.getMessage()));
+            if (retryable && attempts < retryPolicy.getMaxAttempts()) {
+                set.put("status", PENDING).put("nextAttemptAt", now + retryPolicy.delayFor(attempts - 1));
+                Metrics.increment("mail.outbox.retried");
+            } else {
+                set.put("status", FAILED);
+                Metrics.increment("mail.outbox.failed");
+                log.error("giving up on mail to {} after {} attempts: {}", message.getString("to"), attempts,
+                        failure.getMessage());
+            }
+            updates.add(mongoDBClient.updateRecords(new JsonObject().put("_id", message.getValue("_id")),
+                    new JsonObject().put("$set", set).put("$unset", new JsonObject()
+                            .put("claim", "").put("lockedUntil", "")),
+                    COLLECTION, false));
+        }
+        return Future.all(updates).mapEmpty();
+    }
+
+    private static JsonObject byIds(List<JsonObject> batch) {
+        return new JsonObject().put("_id", new JsonObject().put("$in",
+                new JsonArray(batch.stream().map(message -> message.getValue("_id")).toList())));
+    }
+}
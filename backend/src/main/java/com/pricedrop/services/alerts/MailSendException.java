@@ -0,0 +1,24 @@
+package com.pricedrop.services.alerts;
+
+// A send the mail provider did not accept. status is 0 when no response came back at all.
+public class MailSendException extends RuntimeException {
+    private final int status;
+
+    public MailSendException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    // throttling, provider errors and network failures go away on their own; other rejections won't
+    public boolean isRetryable() {
+        return status == 0 || status == 429 || status >= 500;
+    }
+
+    public static boolean isRetryable(Throwable failure) {
+        return !(failure instanceof MailSendException mailFailure) || mailFailure.isRetryable();
+    }
+}
@@ -1,5 +1,6 @@
 package com.pricedrop.services.alerts;
 
+import com.pricedrop.Utils.WebClientFactory;
 import io.github.cdimascio.dotenv.Dotenv;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
@@ -9,14 +10,18 @@ import io.vertx.ext.web.client.WebClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 public class MailService implements EmailAlertService {
     private static Logger log = LoggerFactory.getLogger(MailService.class);
     WebClient client;
     String API_KEY;
-    MailService(WebClient client) {
+    long timeoutMs;
+    public MailService(WebClient client) {
         this.client = client;
         Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
         API_KEY = dotenv.get("MAIL_API_KEY", "");
+        timeoutMs = WebClientFactory.timeoutMs("MAIL", 10000);
     }
     @Override
     public Future<Void> sendEmail(String subject, String to, String body) {
@@ -30,6 +35,7 @@ public class MailService implements EmailAlertService {
                 .putHeader("accept", "application/json")
                 .putHeader("Content-Type", "application/json")
                 .putHeader("api-key", API_KEY)
+                .timeout(timeoutMs)
                 .sendJsonObject(payload)
                 .onSuccess(res -> {
                     log.info("mail sent successfully to: {}, {}", to, res.bodyAsString());
@@ -40,4 +46,35 @@ public class MailService implements EmailAlertService {
                 });
         return promise.future();
     }
+
+    // one request for the whole batch: each message is a version of the first one with its own
+    // recipient, subject and content
+    @Override
+    public Future<Void> sendBatch(List<JsonObject> messages) {
+        JsonArray versions = new JsonArray();
+        messages.forEach(message -> versions.add(new JsonObject()
+                .put("to", new JsonArray().add(new JsonObject().put("email", message.getString("to"))))
+                .put("subject", message.getString("subject"))
+                .put("htmlContent", message.getString("htmlContent"))));
+        JsonObject first = messages.get(0);
+        JsonObject payload = new JsonObject()
+                .put("sender", new JsonObject().put("email", senderEmail))
+                .put("subject", first.getString("subject"))
+                .put("htmlContent", first.getString("htmlContent"))
+                .put("messageVersions", versions);
+        return client.postAbs("https://api.brevo.com/v3/smtp/email")
+                .putHeader("accept", "application/json")
+                .putHeader("Content-Type", "application/json")
+                .putHeader("api-key", API_KEY)
+                .timeout(timeoutMs)
+                .sendJsonObject(payload)
+                .recover(fail -> Future.failedFuture(new MailSendException(0, fail.getMessage())))
+                .compose(res -> {
+                    if (res.statusCode() / 100 != 2) {
+                        return Future.failedFuture(new MailSendException(res.statusCode(), res.bodyAsString()));
+                    }
+                    log.info("batch of {} mails accepted", messages.size());
+                    return Future.succeededFuture();
+                });
+    }
 }
@@ -0,0 +1,112 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.services.metrics.Metrics;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Turns pending product alerts into one digest mail per user per window. Every window it claims the
+// notifications that are due, groups them by user and appends one mail per user to the outbox; users whose
+// mail could not be queued keep their notifications, which are picked up again once the claim lapses.
+public class NotificationAggregator {
+    private static final Logger log = LoggerFactory.getLogger(NotificationAggregator.class);
+    private final Vertx vertx;
+    private final PendingNotifications pending;
+    private final EmailOutbox outbox;
+    private final long windowMs;
+    private final int maxEntries;
+    private long timerId = -1;
+    private boolean flushing = false;
+
+    public NotificationAggregator(Vertx vertx, PendingNotifications pending, EmailOutbox outbox) {
+        this(vertx, pending, outbox, Dotenv.configure().ignoreIfMissing().load());
+    }
+
+    private NotificationAggregator(Vertx vertx, PendingNotifications pending, EmailOutbox outbox, Dotenv dotenv) {
+        this(vertx, pending, outbox,
+                Long.parseLong(dotenv.get("DIGEST_WINDOW_MINUTES", "15")) * 60_000,
+                Integer.parseInt(dotenv.get("DIGEST_MAX_ENTRIES", "1000")));
+    }
+
+    public NotificationAggregator(Vertx vertx, PendingNotifications pending, EmailOutbox outbox, long windowMs,
+                                  int maxEntries) {
+        this.vertx = vertx;
+        this.pending = pending;
+        this.outbox = outbox;
+        this.windowMs = windowMs;
+        this.maxEntries = maxEntries;
+    }
+
+    public void start() {
+        pending.ensureIndexes().onFailure(fail -> log.error("could not create notification indexes: {}",
+                fail.getMessage()));
+        timerId = vertx.setPeriodic(windowMs, id -> flush());
+        log.info("sending alert digests every {} ms", windowMs);
+    }
+
+    public void stop() {
+        vertx.cancelTimer(timerId);
+    }
+
+    void flush() {
+        if (flushing) {
+            return;
+        }
+        flushing = true;
+        flushOnce(System.currentTimeMillis()).onComplete(res -> {
+            flushing = false;
+            if (res.failed()) {
+                log.error("digest flush failed: {}", res.cause().getMessage());
+            } else if (res.result() >= maxEntries) {
+                flush();
+            }
+        });
+    }
+
+    // completes with the number of notifications claimed
+    Future<Integer> flushOnce(long now) {
+        return pending.claim(maxEntries, now).compose(claimed -> {
+            if (claimed.isEmpty()) {
+                return Future.succeededFuture(0);
+            }
+            String claim = claimed.get(0).getString("claim");
+            Map<String, List<JsonObject>> byUser = new LinkedHashMap<>();
+            claimed.forEach(notification -> byUser
+                    .computeIfAbsent(notification.getString("userId"), id -> new ArrayList<>())
+                    .add(notification));
+            List<String> userIds = new ArrayList<>(byUser.keySet());
+            List<Future<Void>> digests = userIds.stream().map(userId -> send(byUser.get(userId))).toList();
+            return Future.join(digests).otherwiseEmpty().compose(done -> {
+                List<String> queued = new ArrayList<>();
+                for (int i = 0; i < userIds.size(); i++) {
+                    if (digests.get(i).succeeded()) {
+                        queued.add(userIds.get(i));
+                    }
+                }
+                Metrics.counter("alerts.digests").add(queued.size());
+                return queued.isEmpty() ? Future.succeededFuture(0L) : pending.remove(claim, queued);
+            }).map(claimed.size());
+        });
+    }
+
+    private Future<Void> send(List<JsonObject> notifications) {
+        // two enqueues racing on a product with no unclaimed notification can both insert one; the digest
+        // keeps only the newer block
+        Map<String, JsonObject> byProduct = new LinkedHashMap<>();
+        notifications.forEach(notification -> byProduct.merge(notification.getString("productId"), notification,
+                (kept, other) -> other.getLong("updatedAt", 0L) >= kept.getLong("updatedAt", 0L) ? other : kept));
+        List<String> blocks = byProduct.values().stream().map(notification -> notification.getString("block"))
+                .toList();
+        String email = notifications.get(notifications.size() - 1).getString("email");
+        return outbox.append(email, AlertMailRenderer.subject(blocks.size()), AlertMailRenderer.digest(blocks))
+                .onFailure(fail -> log.error("could not queue digest for {}: {}", email, fail.getMessage()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.services.metrics.Metrics;
+import com.pricedrop.services.retry.RetryPolicy;
+import com.pricedrop.services.scrape.TokenBucket;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Drains the email outbox: claims due messages, sends each claim as one provider batch request within the
+// provider's request rate, then marks them sent or schedules a retry with backoff. One drain runs at a time;
+// a full batch means more are probably waiting, so it goes again without waiting for the next poll.
+// A batch the provider rejects outright is halved until the rejected messages are on their own, so one
+// bad address doesn't fail the mails it happened to share a request with.
+public class OutboxSender {
+    private static final Logger log = LoggerFactory.getLogger(OutboxSender.class);
+    private final Vertx vertx;
+    private final EmailOutbox outbox;
+    private final EmailAlertService mailService;
+    private final TokenBucket requestRate;
+    private final RetryPolicy retryPolicy;
+    private final int batchSize;
+    private final long pollMs;
+    private long timerId = -1;
+    private boolean draining = false;
+
+    public OutboxSender(Vertx vertx, EmailOutbox outbox, EmailAlertService mailService) {
+        this(vertx, outbox, mailService, Dotenv.configure().ignoreIfMissing().load());
+    }
+
+    private OutboxSender(Vertx vertx, EmailOutbox outbox, EmailAlertService mailService, Dotenv dotenv) {
+        this(vertx, outbox, mailService,
+                new TokenBucket(Double.parseDouble(dotenv.get("MAIL_REQUESTS_PER_SECOND", "5")),
+                        Integer.parseInt(dotenv.get("MAIL_REQUEST_BURST", "5"))),
+                RetryPolicy.fromEnv(dotenv, "MAIL", MailSendException::isRetryable),
+                // Brevo accepts up to 1000 message versions per request
+                Math.min(1000, Integer.parseInt(dotenv.get("MAIL_BATCH_SIZE", "100"))),
+                Long.parseLong(dotenv.get("MAIL_OUTBOX_POLL_MS", "2000")));
+    }
+
+    public OutboxSender(Vertx vertx, EmailOutbox outbox, EmailAlertService mailService, TokenBucket requestRate,
+                        RetryPolicy retryPolicy, int batchSize, long pollMs) {
+        this.vertx = vertx;
+        this.outbox = outbox;
+        this.mailService = mailService;
+        this.requestRate = requestRate;
+        this.retryPolicy = retryPolicy;
+        this.batchSize = batchSize;
+        this.pollMs = pollMs;
+    }
+
+    public void start() {
+        outbox.ensureIndexes().onFailure(fail -> log.error("could not create outbox indexes: {}", fail.getMessage()));
+        timerId = vertx.setPeriodic(pollMs, id -> drain());
+        log.info("outbox sender polling every {} ms in batches of {}", pollMs, batchSize);
+    }
+
+    public void stop() {
+        vertx.cancelTimer(timerId);
+    }
+
+    void drain() {
+        if (draining) {
+            return;
+        }
+        draining = true;
+        outbox.claim(batchSize)
+                .compose(batch -> send(batch).map(batch.size()))
+                .onComplete(res -> {
+                    draining = false;
+                    if (res.failed()) {
+                        log.error("outbox drain failed: {}", res.cause().getMessage());
+                    } else if (res.result() >= batchSize) {
+                        drain();
+                    }
+                });
+    }
+
+    private Future<Void> send(List<JsonObject> batch) {
+        if (batch.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        Promise<Void> permit = Promise.promise();
+        awaitPermit(permit);
+        return permit.future()
+                .compose(v -> mailService.sendBatch(batch))
+                .compose(v -> outbox.markSent(batch), fail -> {
+                    if (fail instanceof PartialBatchException partial) {
+                        return settle(partial);
+                    }
+                    if (batch.size() > 1 && isRejection(fail)) {
+                        log.warn("batch of {} mails rejected, splitting it: {}", batch.size(), fail.getMessage());
+                        Metrics.increment("mail.outbox.split");
+                        int half = batch.size() / 2;
+                        return Future.join(send(batch.subList(0, half)), send(batch.subList(half, batch.size())))
+                                .mapEmpty();
+                    }
+                    log.warn("batch of {} mails not sent: {}", batch.size(), fail.getMessage());
+                    return outbox.markFailed(batch, fail, retryPolicy);
+                });
+    }
+
+    // the delivered mails are done; each failed one is retried or given up on by its own failure
+    private Future<Void> settle(PartialBatchException partial) {
+        log.warn("{}", partial.getMessage());
+        List<Future<Void>> updates = new ArrayList<>();
+        if (!partial.getDelivered().isEmpty()) {
+            updates.add(outbox.markSent(partial.getDelivered()));
+        }
+        for (int i = 0; i < partial.getFailed().size(); i++) {
+            updates.add(outbox.markFailed(List.of(partial.getFailed().get(i)), partial.getFailure(i), retryPolicy));
+        }
+        return Future.join(updates).mapEmpty();
+    }
+
+    // a 4xx about the request's content; throttling is retried as a whole and auth failures hit every message
+    private static boolean isRejection(Throwable failure) {
+        return failure instanceof MailSendException mailFailure && !mailFailure.isRetryable()
+                && mailFailure.getStatus() != 401 && mailFailure.getStatus() != 403;
+    }
+
+    private void awaitPermit(Promise<Void> permit) {
+        if (requestRate.tryAcquire()) {
+            permit.complete();
+            return;
+        }
+        long waitMs = Math.max(1, requestRate.nanosUntilAvailable() / 1_000_000);
+        vertx.setTimer(waitMs, id -> awaitPermit(permit));
+    }
+}
@@ -0,0 +1,47 @@
+package com.pricedrop.services.alerts;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A batch sent message by message where only some of the sends failed. The delivered messages must not be
+// sent again, so each failed one is reported with its own failure.
+public class PartialBatchException extends RuntimeException {
+    private final List<JsonObject> delivered = new ArrayList<>();
+    private final List<JsonObject> failed = new ArrayList<>();
+    private final List<Throwable> failures = new ArrayList<>();
+
+    // sends holds the completed send of each message, in the same order
+    public PartialBatchException(List<JsonObject> messages, List<Future<Void>> sends) {
+        super("mails not sent");
+        for (int i = 0; i < messages.size(); i++) {
+            if (sends.get(i).succeeded()) {
+                delivered.add(messages.get(i));
+            } else {
+                failed.add(messages.get(i));
+                failures.add(sends.get(i).cause());
+            }
+        }
+    }
+
+    @Override
+    public String getMessage() {
+        return failed.size() + " of " + (failed.size() + delivered.size()) + " mails not sent: "
+                + (failures.isEmpty() ? "" : failures.get(0).getMessage());
+    }
+
+    public List<JsonObject> getDelivered() {
+        return delivered;
+    }
+
+    public List<JsonObject> getFailed() {
+        return failed;
+    }
+
+    // the failure of getFailed().get(index)
+    public Throwable getFailure(int index) {
+        return failures.get(index);
+    }
+}
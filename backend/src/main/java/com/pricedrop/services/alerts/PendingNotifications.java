@@ -0,0 +1,136 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.models.User;
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+// Product alerts waiting for their user's next digest, one document per (user, product). Each carries the
+// time it may go out, which is pushed to the end of the user's quiet hours when it arrives during them.
+// NotificationAggregator claims due documents under a lease, the same way OutboxSender claims mails.
+public class PendingNotifications {
+    private static final Logger log = LoggerFactory.getLogger(PendingNotifications.class);
+    public static final String COLLECTION = "pending-notifications";
+    private final MongoDBClient mongoDBClient;
+    private final ZoneId defaultZone;
+    private final long leaseMs;
+
+    public PendingNotifications(MongoDBClient mongoDBClient) {
+        this(mongoDBClient, Dotenv.configure().ignoreIfMissing().load());
+    }
+
+    private PendingNotifications(MongoDBClient mongoDBClient, Dotenv dotenv) {
+        this(mongoDBClient, ZoneId.of(dotenv.get("DEFAULT_TIME_ZONE", "Asia/Kolkata")),
+                Long.parseLong(dotenv.get("DIGEST_LEASE_MS", "120000")));
+    }
+
+    public PendingNotifications(MongoDBClient mongoDBClient, ZoneId defaultZone, long leaseMs) {
+        this.mongoDBClient = mongoDBClient;
+        this.defaultZone = defaultZone;
+        this.leaseMs = leaseMs;
+    }
+
+    public Future<Void> ensureIndexes() {
+        return Future.all(
+                mongoDBClient.createIndex(COLLECTION, new JsonObject().put("deliverAfter", 1)),
+                mongoDBClient.createIndex(COLLECTION, new JsonObject().put("claim", 1)),
+                mongoDBClient.createIndex(COLLECTION, new JsonObject().put("userId", 1).put("productId", 1))
+        ).mapEmpty();
+    }
+
+    // a product that drops again before the digest goes out keeps only its latest block; one already being
+    // sent is left alone and the new block goes into the next digest
+    public Future<Void> enqueue(User user, String productId, String block, long now) {
+        JsonObject query = new JsonObject()
+                .put("userId", user.getUserId())
+                .put("productId", productId)
+                .put("claim", new JsonObject().put("$exists", false));
+        JsonObject update = new JsonObject()
+                .put("$set", new JsonObject()
+                        .put("email", user.getEmail())
+                        .put("block", block)
+                        .put("deliverAfter", deliverAfter(user, now))
+                        .put("updatedAt", now))
+                .put("$setOnInsert", new JsonObject().put("createdAt", now));
+        return mongoDBClient.updateRecords(query, update, COLLECTION, true).mapEmpty();
+    }
+
+    // the end of the user's quiet hours when now falls inside them, otherwise now
+    public long deliverAfter(User user, long now) {
+        Integer start = user.getQuietHoursStart();
+        Integer end = user.getQuietHoursEnd();
+        if (start == null || end == null || start.equals(end)) {
+            return now;
+        }
+        ZonedDateTime local = Instant.ofEpochMilli(now).atZone(zoneOf(user));
+        int hour = local.getHour();
+        boolean quiet = start < end ? hour >= start && hour < end : hour >= start || hour < end;
+        if (!quiet) {
+            return now;
+        }
+        ZonedDateTime quietEnds = local.truncatedTo(ChronoUnit.HOURS).withHour(end);
+        if (!quietEnds.isAfter(local)) {
+            quietEnds = quietEnds.plusDays(1);
+        }
+        return quietEnds.toInstant().toEpochMilli();
+    }
+
+    // claims every due notification of up to limit entries' users, so a user's digest isn't split
+    public Future<List<JsonObject>> claim(int limit, long now) {
+        JsonObject due = new JsonObject()
+                .put("deliverAfter", new JsonObject().put("$lte", now))
+                .put("$or", new JsonArray()
+                        .add(new JsonObject().put("claim", new JsonObject().put("$exists", false)))
+                        .add(new JsonObject().put("lockedUntil", new JsonObject().put("$lt", now))));
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("_id", 0).put("userId", 1))
+                .setSort(new JsonObject().put("deliverAfter", 1))
+                .setLimit(limit);
+        String claim = UUID.randomUUID().toString();
+        return mongoDBClient.queryRecords(due, options, COLLECTION).compose(candidates -> {
+            if (candidates.isEmpty()) {
+                return Future.succeededFuture(List.of());
+            }
+            JsonArray userIds = new JsonArray(candidates.stream()
+                    .map(candidate -> candidate.getString("userId")).distinct().toList());
+            JsonObject update = new JsonObject().put("$set", new JsonObject()
+                    .put("claim", claim)
+                    .put("lockedUntil", now + leaseMs));
+            return mongoDBClient.updateRecords(due.copy().put("userId", new JsonObject().put("$in", userIds)),
+                            update, COLLECTION, false)
+                    .compose(claimed -> claimed == 0 ? Future.succeededFuture(List.of())
+                            : mongoDBClient.queryRecords(new JsonObject().put("claim", claim), COLLECTION));
+        });
+    }
+
+    public Future<Long> remove(String claim, List<String> userIds) {
+        return mongoDBClient.deleteRecords(new JsonObject()
+                .put("claim", claim)
+                .put("userId", new JsonObject().put("$in", new JsonArray(userIds))), COLLECTION);
+    }
+
+    private ZoneId zoneOf(User user) {
+        if (user.getTimeZone() == null) {
+            return defaultZone;
+        }
+        try {
+            return ZoneId.of(user.getTimeZone());
+        } catch (DateTimeException e) {
+            log.warn("unknown time zone {} of {}, using {}", user.getTimeZone(), user.getUserId(), defaultZone);
+            return defaultZone;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.pricedrop.services.alerts;
 
+import com.pricedrop.Utils.BlockingExecutor;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
 import com.sendgrid.Response;
@@ -37,12 +38,17 @@ public class SendgridService implements EmailAlertService {
             request.setMethod(Method.POST);
             request.setEndpoint("mail/send");
             request.setBody(mail.build());
-            vertx.executeBlocking(() -> sendGrid.api(request)).onSuccess(res -> {
+            BlockingExecutor.execute(BlockingExecutor.Category.MAIL, () -> sendGrid.api(request)).onSuccess(res -> {
+                if (res.getStatusCode() / 100 != 2) {
+                    // a 4xx is about this mail and won't succeed on a retry
+                    promise.fail(new MailSendException(res.getStatusCode(), res.getBody()));
+                    return;
+                }
                 log.info("sent email: {}", res.toString());
                 promise.complete();
-            }).onFailure(fail -> promise.fail(fail.getMessage()));
+            }).onFailure(fail -> promise.fail(new MailSendException(0, fail.getMessage())));
         } catch (Exception e) {
-            promise.fail(e.getMessage());
+            promise.fail(new MailSendException(0, e.getMessage()));
         }
        return promise.future();
     }
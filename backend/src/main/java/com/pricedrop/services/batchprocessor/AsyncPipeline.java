@@ -0,0 +1,223 @@
+package com.pricedrop.services.batchprocessor;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Keeps up to `concurrency` items in flight and starts the next one as soon as any item finishes,
+// instead of waiting for the slowest item of a fixed-size batch.
+public class AsyncPipeline<T, R> {
+    private static final Logger log = LoggerFactory.getLogger(AsyncPipeline.class);
+    private final Vertx vertx;
+    private final String name;
+    private final Function<T, Future<R>> worker;
+    private int concurrency = BatchProcessor.LIMIT;
+    private long itemTimeoutMs = 0;
+    private BiConsumer<T, R> itemSuccessHandler = (item, result) -> {};
+    private BiConsumer<T, Throwable> itemFailureHandler = (item, failure) -> {};
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final Promise<PipelineStats> completion = Promise.promise();
+    private volatile boolean cancelled = false;
+    private volatile boolean sourceExhausted = false;
+    private boolean started = false;
+    private long startTime;
+    private Runnable demand = () -> {};
+
+    public AsyncPipeline(Vertx vertx, String name, Function<T, Future<R>> worker) {
+        this.vertx = vertx;
+        this.name = name;
+        this.worker = worker;
+    }
+
+    public AsyncPipeline<T, R> setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+        return this;
+    }
+
+    // 0 disables the per-item deadline
+    public AsyncPipeline<T, R> setItemTimeout(long itemTimeoutMs) {
+        this.itemTimeoutMs = itemTimeoutMs;
+        return this;
+    }
+
+    public AsyncPipeline<T, R> onItemSuccess(BiConsumer<T, R> handler) {
+        this.itemSuccessHandler = handler;
+        return this;
+    }
+
+    public AsyncPipeline<T, R> onItemFailure(BiConsumer<T, Throwable> handler) {
+        this.itemFailureHandler = handler;
+        return this;
+    }
+
+    public Future<PipelineStats> run(List<T> items) {
+        return run(items.iterator());
+    }
+
+    public Future<PipelineStats> run(Iterator<T> items) {
+        markStarted();
+        Context context = vertx.getOrCreateContext();
+        Runnable pull = () -> {
+            T next = null;
+            synchronized (items) {
+                if (items.hasNext()) {
+                    next = items.next();
+                } else {
+                    sourceExhausted = true;
+                }
+            }
+            if (next != null) {
+                launch(next);
+            } else {
+                completeIfDone();
+            }
+        };
+        // hop through the context so items that complete synchronously don't recurse
+        demand = () -> context.runOnContext(v -> pull.run());
+        for (int i = 0; i < concurrency && !sourceExhausted && !cancelled; i++) {
+            pull.run();
+        }
+        completeIfDone();
+        return completion.future();
+    }
+
+    public Future<PipelineStats> run(ReadStream<T> stream) {
+        return run(stream, Function.identity());
+    }
+
+    public <S> Future<PipelineStats> run(ReadStream<S> stream, Function<S, T> mapper) {
+        markStarted();
+        stream.pause();
+        stream.handler(element -> {
+            T item;
+            try {
+                item = mapper.apply(element);
+            } catch (Exception e) {
+                log.error("[{}] dropping unreadable element: {}", name, e.getMessage());
+                failed.incrementAndGet();
+                stream.fetch(1);
+                return;
+            }
+            launch(item);
+        });
+        stream.endHandler(v -> {
+            sourceExhausted = true;
+            completeIfDone();
+        });
+        stream.exceptionHandler(err -> {
+            log.error("[{}] source failed: {}", name, err.getMessage());
+            sourceExhausted = true;
+            completion.tryFail(err);
+        });
+        demand = () -> stream.fetch(1);
+        stream.fetch(concurrency);
+        return completion.future();
+    }
+
+    // stops pulling new items; in-flight items finish and are still reported
+    public void cancel() {
+        if (!cancelled) {
+            log.info("[{}] cancelling with {} items in flight", name, inFlight.get());
+            cancelled = true;
+            completeIfDone();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    private void markStarted() {
+        if (started) {
+            throw new IllegalStateException("pipeline " + name + " can only be run once");
+        }
+        started = true;
+        startTime = System.currentTimeMillis();
+    }
+
+    private void launch(T item) {
+        inFlight.incrementAndGet();
+        withTimeout(item).onComplete(res -> {
+            if (res.succeeded()) {
+                succeeded.incrementAndGet();
+                notifySafely(() -> itemSuccessHandler.accept(item, res.result()));
+            } else {
+                failed.incrementAndGet();
+                notifySafely(() -> itemFailureHandler.accept(item, res.cause()));
+            }
+            inFlight.decrementAndGet();
+            if (!cancelled && !sourceExhausted) {
+                demand.run();
+            }
+            completeIfDone();
+        });
+    }
+
+    private Future<R> withTimeout(T item) {
+        Future<R> future;
+        try {
+            future = worker.apply(item);
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        if (itemTimeoutMs <= 0) {
+            return future;
+        }
+        Promise<R> promise = Promise.promise();
+        long timerId = vertx.setTimer(itemTimeoutMs, id ->
+                promise.tryFail(new TimeoutException("item timed out after " + itemTimeoutMs + " ms")));
+        future.onComplete(res -> {
+            vertx.cancelTimer(timerId);
+            if (res.succeeded()) {
+                promise.tryComplete(res.result());
+            } else {
+                promise.tryFail(res.cause());
+            }
+        });
+        return promise.future();
+    }
+
+    private void notifySafely(Runnable callback) {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            log.error("[{}] item callback failed: {}", name, e.getMessage());
+        }
+    }
+
+    private void completeIfDone() {
+        if (inFlight.get() == 0 && (sourceExhausted || cancelled)) {
+            PipelineStats stats = new PipelineStats(succeeded.get(), failed.get(), cancelled,
+                    System.currentTimeMillis() - startTime);
+            if (completion.tryComplete(stats)) {
+                log.info("[{}] finished: {}", name, stats);
+            }
+        }
+    }
+}
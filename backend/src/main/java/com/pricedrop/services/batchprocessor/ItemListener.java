@@ -0,0 +1,18 @@
+package com.pricedrop.services.batchprocessor;
+
+// Observes items as a pipeline takes them from its source and as they finish.
+public interface ItemListener<T> {
+    ItemListener<?> NONE = new ItemListener<>() {
+    };
+
+    @SuppressWarnings("unchecked")
+    static <T> ItemListener<T> none() {
+        return (ItemListener<T>) NONE;
+    }
+
+    default void onStart(T item) {
+    }
+
+    default void onDone(T item, boolean succeeded) {
+    }
+}
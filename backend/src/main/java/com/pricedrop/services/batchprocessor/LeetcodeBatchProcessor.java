@@ -4,13 +4,12 @@ import com.pricedrop.models.LeetCodeQuestion;
 import com.pricedrop.services.leetcode.AddQuestion;
 import com.pricedrop.services.leetcode.FetchLeetCodeMetaData;
 import com.pricedrop.services.mongo.MongoDBClient;
-import io.vertx.core.Future;
-import io.vertx.core.json.JsonObject;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Vertx;
 import io.vertx.ext.web.client.WebClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class LeetcodeBatchProcessor implements BatchProcessor<LeetCodeQuestion> {
@@ -18,31 +17,33 @@ public class LeetcodeBatchProcessor implements BatchProcessor<LeetCodeQuestion>
     private static final Logger log = LoggerFactory.getLogger(LeetcodeBatchProcessor.class);
     private final MongoDBClient mongoDBClient;
     private final WebClient webClient;
-    public static void process(MongoDBClient mongoDBClient, WebClient webClient, List<LeetCodeQuestion> questions) {
-         new LeetcodeBatchProcessor(mongoDBClient, webClient).handleBatch(0,  questions);
+    private final Vertx vertx;
+    private final int concurrency;
+    private final long itemTimeoutMs;
+    public static void process(Vertx vertx, MongoDBClient mongoDBClient, WebClient webClient,
+                               List<LeetCodeQuestion> questions) {
+         new LeetcodeBatchProcessor(vertx, mongoDBClient, webClient).handleBatch(0,  questions);
     }
-    public LeetcodeBatchProcessor(MongoDBClient mongoDBClient, WebClient webClient) {
+    public LeetcodeBatchProcessor(Vertx vertx, MongoDBClient mongoDBClient, WebClient webClient) {
+        this.vertx = vertx;
         this.mongoDBClient = mongoDBClient;
         this.webClient = webClient;
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.concurrency = Integer.parseInt(dotenv.get("LEETCODE_MAX_IN_FLIGHT", String.valueOf(LIMIT)));
+        this.itemTimeoutMs = Long.parseLong(dotenv.get("LEETCODE_ITEM_TIMEOUT_MS", "30000"));
     }
     @Override
     public void handleBatch(int start, List<LeetCodeQuestion> questions) {
         if (start >= questions.size()) return;
         log.info("calling in batches with start: {}", start);
-        List<LeetCodeQuestion> subListQuestions = questions.subList(start,
-                Math.min(start + LIMIT, questions.size()));
-        List<Future<LeetCodeQuestion>> productQueryFutures = new ArrayList<>();
-        subListQuestions.forEach(question -> {
-            productQueryFutures.add(FetchLeetCodeMetaData.fetchTags(webClient, question));
-        });
-        Future.join(productQueryFutures).onComplete(res -> {
-            log.info("extracted question meta data");
-            productQueryFutures.forEach(future -> {
-                if (future.succeeded()) {
-                    AddQuestion.add(mongoDBClient, future.result());
-                }
-            });
-            handleBatch(start + LIMIT, questions);
-        });
+        new AsyncPipeline<LeetCodeQuestion, LeetCodeQuestion>(vertx, "leetcode-metadata",
+                question -> FetchLeetCodeMetaData.fetchTags(webClient, question))
+                .setConcurrency(concurrency)
+                .setItemTimeout(itemTimeoutMs)
+                .onItemSuccess((question, enriched) -> AddQuestion.add(mongoDBClient, enriched))
+                .onItemFailure((question, failure) -> log.error("failed to fetch metadata for {}: {}",
+                        question.getUrl(), failure.getMessage()))
+                .run(questions.subList(start, questions.size()))
+                .onSuccess(stats -> log.info("extracted question meta data: {}", stats));
     }
 }
@@ -0,0 +1,41 @@
+package com.pricedrop.services.batchprocessor;
+
+public class PipelineStats {
+    private final int succeeded;
+    private final int failed;
+    private final boolean cancelled;
+    private final long elapsedMs;
+
+    public PipelineStats(int succeeded, int failed, boolean cancelled, long elapsedMs) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.cancelled = cancelled;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public double getThroughputPerSecond() {
+        return elapsedMs == 0 ? 0 : (succeeded + failed) * 1000.0 / elapsedMs;
+    }
+
+    @Override
+    public String toString() {
+        return "succeeded=" + succeeded + ", failed=" + failed + ", cancelled=" + cancelled
+                + ", elapsedMs=" + elapsedMs;
+    }
+}
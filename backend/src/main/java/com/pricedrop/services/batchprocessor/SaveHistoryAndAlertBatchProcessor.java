@@ -1,56 +1,110 @@
 package com.pricedrop.services.batchprocessor;
 
+import com.pricedrop.Utils.Utility;
 import com.pricedrop.models.Product;
-import com.pricedrop.services.alerts.AlertsValidator;
+import com.pricedrop.models.ScrapeResult;
 import com.pricedrop.services.mongo.MongoDBClient;
-import com.pricedrop.services.products.SavePriceHistory;
-import com.pricedrop.services.scrape.ScrapperClient;
+import com.pricedrop.services.pipeline.CheckPipeline;
+import com.pricedrop.services.pipeline.StageClient;
+import com.pricedrop.services.schedule.AdaptiveIntervalPolicy;
+import com.pricedrop.services.schedule.ProductScheduleUpdater;
+import com.pricedrop.services.scrape.DeadLetterStore;
+import io.github.cdimascio.dotenv.Dotenv;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.WebClient;
+import io.vertx.core.streams.ReadStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Feeds products into the scrape stage of the check pipeline; scraping, persisting and alerting run in
+// their own verticles (see CheckPipeline).
 public class SaveHistoryAndAlertBatchProcessor implements BatchProcessor<Product> {
     private static final Logger log = LoggerFactory.getLogger(SaveHistoryAndAlertBatchProcessor.class);
     MongoDBClient mongoDBClient;
-    SavePriceHistory savePriceHistory;
-    AlertsValidator alertsValidator;
-    ScrapperClient scrapperClient;
-    WebClient client;
-    public SaveHistoryAndAlertBatchProcessor(MongoDBClient mongoDBClient, Vertx vertx,
-                                             ScrapperClient scrapperClient, WebClient client) {
+    ProductScheduleUpdater scheduleUpdater;
+    DeadLetterStore deadLetterStore;
+    StageClient stageClient;
+    Vertx vertx;
+    private final int maxInFlight;
+    private final long itemTimeoutMs;
+    private final Set<AsyncPipeline<Product, ScrapeResult>> activePipelines = ConcurrentHashMap.newKeySet();
+    public SaveHistoryAndAlertBatchProcessor(MongoDBClient mongoDBClient, Vertx vertx) {
         this.mongoDBClient = mongoDBClient;
-        this.savePriceHistory = new SavePriceHistory(mongoDBClient);
-        this.scrapperClient = scrapperClient;
-        this.client = client;
-        this.alertsValidator = new AlertsValidator(mongoDBClient, vertx, client);
+        this.vertx = vertx;
+        this.scheduleUpdater = new ProductScheduleUpdater(mongoDBClient, new AdaptiveIntervalPolicy());
+        this.deadLetterStore = new DeadLetterStore(mongoDBClient);
+        this.stageClient = new StageClient(vertx);
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.maxInFlight = Integer.parseInt(dotenv.get("PRICE_CHECK_MAX_IN_FLIGHT", String.valueOf(LIMIT)));
+        // a ceiling over all retry attempts of one product, backoff included
+        this.itemTimeoutMs = Long.parseLong(dotenv.get("PRICE_CHECK_ITEM_TIMEOUT_MS", "300000"));
     }
     @Override
     public void handleBatch(int start, List<Product> products) {
-       if (start >= products.size()) return;
-       log.info("calling in batches with start: {}", start);
-       List<Product> subListProducts = products.subList(start,
-               Math.min(start + LIMIT, products.size()));
-       List<Future<JsonObject>> productQueryFutures = new ArrayList<>();
-       subListProducts.forEach(product -> {
-           productQueryFutures.add(scrapperClient.getScrappedProductDetails(product));
-       });
-       Future.join(productQueryFutures).onComplete(res -> {
-           log.info("extracted all prices");
-           productQueryFutures.forEach(future -> {
-               if (future.succeeded()) {
-                   JsonObject futureResult = future.result();
-                   savePriceHistory.savePrice(futureResult);
-                   alertsValidator.checkForAlertsAndSend(futureResult);
-               }
-           });
-           handleBatch(start + LIMIT, products);
-       });
+        if (start >= products.size()) return;
+        log.info("calling in batches with start: {}", start);
+        handleProducts(products.subList(start, products.size()));
+    }
+
+    public Future<PipelineStats> handleProducts(List<Product> products) {
+        return handleProducts(products, ItemListener.none());
+    }
+
+    public Future<PipelineStats> handleProducts(List<Product> products, ItemListener<Product> listener) {
+        AsyncPipeline<Product, ScrapeResult> pipeline = createPipeline(maxInFlight, listener);
+        return pipeline.run(products)
+                .onComplete(res -> activePipelines.remove(pipeline));
+    }
+
+    public ProductScheduleUpdater getScheduleUpdater() {
+        return scheduleUpdater;
+    }
+
+    public DeadLetterStore getDeadLetterStore() {
+        return deadLetterStore;
+    }
+
+    // pulls from the cursor only as scrapes complete, so at most maxInFlight products are held in memory
+    public Future<PipelineStats> handleStream(ReadStream<JsonObject> productStream) {
+        return handleStream(productStream, maxInFlight);
+    }
+
+    public Future<PipelineStats> handleStream(ReadStream<JsonObject> productStream, int concurrency) {
+        return handleStream(productStream, concurrency, ItemListener.none());
+    }
+
+    public Future<PipelineStats> handleStream(ReadStream<JsonObject> productStream, int concurrency,
+                                              ItemListener<Product> listener) {
+        AsyncPipeline<Product, ScrapeResult> pipeline = createPipeline(concurrency, listener);
+        return pipeline.run(productStream, productJson -> {
+                    Product product = Utility.castToClass(productJson, Product.class);
+                    listener.onStart(product);
+                    return product;
+                })
+                .onComplete(res -> activePipelines.remove(pipeline));
+    }
+
+    public void cancel() {
+        activePipelines.forEach(AsyncPipeline::cancel);
+    }
 
+    private AsyncPipeline<Product, ScrapeResult> createPipeline(int concurrency, ItemListener<Product> listener) {
+        // the scrape stage records dead letters and failed schedules itself, only the outcome comes back here
+        AsyncPipeline<Product, ScrapeResult> pipeline = new AsyncPipeline<Product, ScrapeResult>(vertx, "price-check",
+                product -> stageClient.request(CheckPipeline.SCRAPE_ADDRESS, product, itemTimeoutMs))
+                .setConcurrency(concurrency)
+                .setItemTimeout(itemTimeoutMs)
+                .onItemSuccess((product, result) -> listener.onDone(product, true))
+                .onItemFailure((product, failure) -> {
+                    log.warn("price check of {} did not complete: {}", product.getProductId(), failure.getMessage());
+                    listener.onDone(product, false);
+                });
+        activePipelines.add(pipeline);
+        return pipeline;
     }
 }
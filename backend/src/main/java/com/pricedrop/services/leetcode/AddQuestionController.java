@@ -4,6 +4,7 @@ import com.pricedrop.Utils.Utility;
 import com.pricedrop.models.LeetCodeQuestion;
 import com.pricedrop.services.batchprocessor.LeetcodeBatchProcessor;
 import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
@@ -21,7 +22,9 @@ public class AddQuestionController {
     private static final Logger log = LoggerFactory.getLogger(AddQuestionController.class);
     private final MongoDBClient mongodbClient;
     private final WebClient webClient;
-    public AddQuestionController(MongoDBClient mongoDBClient, WebClient webClient) {
+    private final Vertx vertx;
+    public AddQuestionController(Vertx vertx, MongoDBClient mongoDBClient, WebClient webClient) {
+        this.vertx = vertx;
         this.mongodbClient = mongoDBClient;
         this.webClient = webClient;
     }
@@ -40,7 +43,7 @@ public class AddQuestionController {
             urls.forEach(url -> questions.add(new LeetCodeQuestion(UUID.randomUUID().toString(),
                     url.toString(), "", userId,
                     false, Instant.now(), Instant.now(), "")));
-            LeetcodeBatchProcessor.process(mongodbClient, webClient, questions);
+            LeetcodeBatchProcessor.process(vertx, mongodbClient, webClient, questions);
             Utility.buildResponse(context, 200, new JsonObject().put("message", "questions will be inserted"));
         } catch (Exception e) {
             log.error("Exception in AddQuestion", e);
@@ -1,5 +1,6 @@
 package com.pricedrop.services.leetcode;
 
+import com.pricedrop.Utils.WebClientFactory;
 import com.pricedrop.models.LeetCodeQuestion;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
@@ -17,6 +18,7 @@ import java.util.List;
 public class FetchLeetCodeMetaData {
 
     private static final Logger log = LoggerFactory.getLogger(FetchLeetCodeMetaData.class);
+    private static final long TIMEOUT_MS = WebClientFactory.timeoutMs("LEETCODE", 10000);
     private final WebClient webClient;
     private final LeetCodeQuestion question;
     public static Future<LeetCodeQuestion> fetchTags(WebClient webClient, LeetCodeQuestion question) {
@@ -46,6 +48,7 @@ public class FetchLeetCodeMetaData {
         webClient.post(443, host, uri)
                 .putHeader("Content-Type", "application/json")
                 .ssl(true)
+                .timeout(TIMEOUT_MS)
                 .sendJsonObject(payload, ar -> {
                     if (ar.succeeded()) {
                         HttpResponse<Buffer> response = ar.result();
@@ -0,0 +1,11 @@
+package com.pricedrop.services.metrics;
+
+import com.pricedrop.Utils.Utility;
+import io.vertx.ext.web.RoutingContext;
+
+public class MetricsController {
+
+    public void getMetrics(RoutingContext context) {
+        Utility.buildResponse(context, 200, Metrics.snapshot());
+    }
+}
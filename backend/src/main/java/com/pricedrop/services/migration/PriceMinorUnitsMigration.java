@@ -0,0 +1,135 @@
+package com.pricedrop.services.migration;
+
+import com.pricedrop.models.Price;
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Backfills numeric prices on documents written while prices were only stored as text:
+// pricehistory.priceMinor, and userTargetPrices.targetPricesMinor on products (rewriting the target text
+// to its canonical form). Works in batches of documents still missing the field, so it is idempotent and
+// can be interrupted and rerun; instances running it at the same time only repeat each other's writes.
+public class PriceMinorUnitsMigration {
+    private static final Logger log = LoggerFactory.getLogger(PriceMinorUnitsMigration.class);
+    private final MongoDBClient mongoDBClient;
+    private final int batchSize;
+
+    public PriceMinorUnitsMigration(MongoDBClient mongoDBClient) {
+        this.mongoDBClient = mongoDBClient;
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.batchSize = Integer.parseInt(dotenv.get("PRICE_MIGRATION_BATCH_SIZE", "500"));
+    }
+
+    public Future<Void> run() {
+        return mongoDBClient.createIndex("pricehistory",
+                        new JsonObject().put("productId", 1).put(Price.MINOR_FIELD, 1))
+                .compose(v -> migratePriceHistory(0))
+                .compose(migrated -> {
+                    log.info("price history migrated to minor units: {} documents", migrated);
+                    return migrateTargetPrices(0);
+                })
+                .onSuccess(migrated -> log.info("target prices migrated to minor units: {} products", migrated))
+                .onFailure(fail -> log.error("price migration stopped, rerun to resume: {}", fail.getMessage()))
+                .mapEmpty();
+    }
+
+    private Future<Long> migratePriceHistory(long migratedSoFar) {
+        JsonObject query = new JsonObject().put(Price.MINOR_FIELD, new JsonObject().put("$exists", false));
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("productPrice", 1))
+                .setLimit(batchSize);
+        return mongoDBClient.queryRecords(query, options, "pricehistory").compose(batch -> {
+            if (batch.isEmpty()) {
+                return Future.succeededFuture(migratedSoFar);
+            }
+            List<Future<Long>> updates = new ArrayList<>();
+            for (JsonObject record : batch) {
+                // null marks an unparsable price as migrated, so it is not picked up again
+                Long priceMinor = parseOrNull(record.getString("productPrice"));
+                updates.add(mongoDBClient.updateRecords(new JsonObject().put("_id", record.getValue("_id")),
+                        new JsonObject().put("$set", new JsonObject().put(Price.MINOR_FIELD, priceMinor)),
+                        "pricehistory", false));
+            }
+            return modified(updates).compose(modified -> modified == 0 ? stalled("pricehistory", migratedSoFar)
+                    : migratePriceHistory(migratedSoFar + modified));
+        });
+    }
+
+    private Future<Long> migrateTargetPrices(long migratedSoFar) {
+        JsonObject query = new JsonObject().put("userTargetPrices", new JsonObject()
+                .put("$elemMatch", new JsonObject()
+                        .put("targetPricesMinor", new JsonObject().put("$exists", false))));
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("userTargetPrices", 1))
+                .setLimit(batchSize);
+        return mongoDBClient.queryRecords(query, options, "products").compose(batch -> {
+            if (batch.isEmpty()) {
+                return Future.succeededFuture(migratedSoFar);
+            }
+            List<Future<Long>> updates = new ArrayList<>();
+            for (JsonObject product : batch) {
+                JsonArray original = product.getJsonArray("userTargetPrices");
+                // matching on the original array skips products a user edited meanwhile; the next batch
+                // picks them up again
+                updates.add(mongoDBClient.updateRecords(new JsonObject()
+                                .put("_id", product.getValue("_id"))
+                                .put("userTargetPrices", original),
+                        new JsonObject().put("$set", new JsonObject().put("userTargetPrices", migrate(original))),
+                        "products", false));
+            }
+            return modified(updates).compose(modified -> modified == 0 ? stalled("products", migratedSoFar)
+                    : migrateTargetPrices(migratedSoFar + modified));
+        });
+    }
+
+    static JsonArray migrate(JsonArray userTargetPrices) {
+        JsonArray migrated = new JsonArray();
+        for (int i = 0; i < userTargetPrices.size(); i++) {
+            JsonObject entry = userTargetPrices.getJsonObject(i).copy();
+            JsonArray targetPrices = new JsonArray();
+            JsonArray targetPricesMinor = new JsonArray();
+            JsonArray existing = entry.getJsonArray("targetPrices", new JsonArray());
+            for (int j = 0; j < existing.size(); j++) {
+                String targetPrice = existing.getString(j);
+                try {
+                    Price price = Price.parse(targetPrice);
+                    if (!targetPricesMinor.contains(price.minorUnits())) {
+                        targetPrices.add(price.toString());
+                        targetPricesMinor.add(price.minorUnits());
+                    }
+                } catch (IllegalArgumentException e) {
+                    // kept as text so the user can still see and delete it
+                    targetPrices.add(targetPrice);
+                }
+            }
+            migrated.add(entry.put("targetPrices", targetPrices).put("targetPricesMinor", targetPricesMinor));
+        }
+        return migrated;
+    }
+
+    private static Future<Long> modified(List<Future<Long>> updates) {
+        return Future.all(updates).map(done -> updates.stream().mapToLong(Future::result).sum());
+    }
+
+    // a batch where nothing could be written would be fetched again forever
+    private static Future<Long> stalled(String collection, long migratedSoFar) {
+        log.warn("price migration of {} made no progress, stopping; rerun to retry", collection);
+        return Future.succeededFuture(migratedSoFar);
+    }
+
+    private static Long parseOrNull(String text) {
+        try {
+            return Price.parse(text).minorUnits();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.pricedrop.services.migration;
+
+import com.pricedrop.models.Price;
+import com.pricedrop.models.Watch;
+import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.watches.WatchStore;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Moves the userTargetPrices array embedded in each product into the watches collection, one document per
+// user and target, then drops the array. Targets that never parsed move as text-only watches, which don't
+// alert but stay visible and deletable, as PriceMinorUnitsMigration left them. Watches are upserted on
+// their unique key and the array is only removed once they are written, so the migration is idempotent
+// and can be interrupted and rerun.
+public class WatchesMigration {
+    private static final Logger log = LoggerFactory.getLogger(WatchesMigration.class);
+    private final MongoDBClient mongoDBClient;
+    private final WatchStore watchStore;
+    private final int batchSize;
+
+    public WatchesMigration(MongoDBClient mongoDBClient, WatchStore watchStore) {
+        this.mongoDBClient = mongoDBClient;
+        this.watchStore = watchStore;
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.batchSize = Integer.parseInt(dotenv.get("WATCHES_MIGRATION_BATCH_SIZE", "200"));
+    }
+
+    public Future<Void> run() {
+        return migrateProducts(0)
+                .onSuccess(migrated -> log.info("watchers moved to the watches collection: {} products", migrated))
+                .onFailure(fail -> log.error("watches migration stopped, rerun to resume: {}", fail.getMessage()))
+                .mapEmpty();
+    }
+
+    private Future<Long> migrateProducts(long migratedSoFar) {
+        JsonObject query = new JsonObject().put("userTargetPrices", new JsonObject().put("$exists", true));
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("productId", 1).put("userTargetPrices", 1))
+                .setLimit(batchSize);
+        return mongoDBClient.queryRecords(query, options, "products").compose(batch -> {
+            if (batch.isEmpty()) {
+                return Future.succeededFuture(migratedSoFar);
+            }
+            List<Future<Long>> products = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            for (JsonObject product : batch) {
+                products.add(migrateProduct(product, now));
+            }
+            return Future.all(products)
+                    .map(done -> products.stream().mapToLong(Future::result).sum())
+                    .compose(modified -> {
+                        if (modified == 0) {
+                            // a batch where nothing could be written would be fetched again forever
+                            log.warn("watches migration made no progress, stopping; rerun to retry");
+                            return Future.succeededFuture(migratedSoFar);
+                        }
+                        return migrateProducts(migratedSoFar + modified);
+                    });
+        });
+    }
+
+    private Future<Long> migrateProduct(JsonObject product, long now) {
+        JsonArray original = product.getJsonArray("userTargetPrices", new JsonArray());
+        List<Watch> watches = watches(product.getString("productId"), original, watchStore, now);
+        List<Future<Boolean>> inserts = new ArrayList<>();
+        watches.forEach(watch -> inserts.add(watchStore.insertIfAbsent(watch)));
+        JsonObject update = new JsonObject().put("$unset", new JsonObject().put("userTargetPrices", ""));
+        watches.stream().filter(watch -> watch.getThreshold() > 0).mapToLong(Watch::getTargetMinor).max().ifPresent(max ->
+                update.put("$max", new JsonObject().put("maxTargetMinor", max)));
+        // matching on the original array skips products a user edited meanwhile; the next batch picks them up
+        return Future.all(inserts).compose(done -> mongoDBClient.updateRecords(new JsonObject()
+                        .put("_id", product.getValue("_id"))
+                        .put("userTargetPrices", original),
+                update, "products", false));
+    }
+
+    static List<Watch> watches(String productId, JsonArray userTargetPrices, WatchStore watchStore, long createdAt) {
+        List<Watch> watches = new ArrayList<>();
+        for (int i = 0; i < userTargetPrices.size(); i++) {
+            JsonObject entry = userTargetPrices.getJsonObject(i);
+            String userId = entry.getString("userId");
+            JsonArray targetPrices = entry.getJsonArray("targetPrices", new JsonArray());
+            for (int j = 0; j < targetPrices.size(); j++) {
+                String text = targetPrices.getString(j);
+                if (text == null) {
+                    continue;
+                }
+                Watch watch;
+                try {
+                    Price target = Price.parse(text);
+                    watch = new Watch(userId, productId, target, watchStore.threshold(target.minorUnits()), createdAt);
+                } catch (IllegalArgumentException e) {
+                    log.warn("keeping unparsable target {} of {} on {} as text", text, userId, productId);
+                    watch = new Watch(userId, productId, text, createdAt);
+                }
+                String targetPrice = watch.getTargetPrice();
+                boolean duplicate = watches.stream().anyMatch(existing -> existing.getUserId().equals(userId)
+                        && existing.getTargetPrice().equals(targetPrice));
+                if (userId != null && !duplicate) {
+                    watches.add(watch);
+                }
+            }
+        }
+        return watches;
+    }
+}
@@ -4,7 +4,11 @@ import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.IndexOptions;
 import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,6 +16,7 @@ import java.util.List;
 
 public class MongoDBClient {
     private static final Logger log = LoggerFactory.getLogger(MongoDBClient.class);
+    private static final int STREAM_BATCH_SIZE = 100;
     private final MongoClient mongoClient;
 
     public MongoDBClient(Vertx vertx, JsonObject config) {
@@ -69,6 +74,47 @@ public class MongoDBClient {
         return promise.future();
     }
 
+    public Future<List<JsonObject>> queryRecords(JsonObject query, FindOptions options, String collection) {
+        Promise<List<JsonObject>> promise = Promise.promise();
+        mongoClient.findWithOptions(collection, query, options).onComplete(res -> {
+            if (res.succeeded()) {
+                log.info("queried from db");
+                promise.complete(res.result());
+            } else {
+                Throwable fail = res.cause();
+                log.error("error in querying from the db: {}", fail.getMessage());
+                handleMongoFailure(fail);
+                promise.fail(fail.getMessage());
+            }
+        });
+        return promise.future();
+    }
+
+    public Future<Void> createIndex(String collection, JsonObject keys) {
+        return mongoClient.createIndex(collection, keys)
+                .onSuccess(res -> log.info("ensured index {} on {}", keys.encode(), collection));
+    }
+
+    public Future<Void> createIndex(String collection, JsonObject keys, IndexOptions options) {
+        return mongoClient.createIndexWithOptions(collection, keys, options)
+                .onSuccess(res -> log.info("ensured index {} on {}", keys.encode(), collection));
+    }
+
+    public Future<Void> dropIndex(String collection, String indexName) {
+        return mongoClient.dropIndex(collection, indexName)
+                .onSuccess(res -> log.info("dropped index {} on {}", indexName, collection));
+    }
+
+    public ReadStream<JsonObject> streamRecords(JsonObject query, JsonObject fields, String collection) {
+        return streamRecords(query, new FindOptions().setFields(fields), collection);
+    }
+
+    public ReadStream<JsonObject> streamRecords(JsonObject query, FindOptions options, String collection) {
+        options.setBatchSize(STREAM_BATCH_SIZE);
+        log.info("streaming from collection: {}", collection);
+        return mongoClient.findBatchWithOptions(collection, query, options);
+    }
+
     public Future<Void> deleteRecord(JsonObject query, String collection) {
         Promise<Void> promise = Promise.promise();
         mongoClient.findOneAndDelete(collection, query).onSuccess(res -> {
@@ -87,6 +133,15 @@ public class MongoDBClient {
         return promise.future();
     }
 
+    public Future<Long> deleteRecords(JsonObject query, String collection) {
+        return mongoClient.removeDocuments(collection, query)
+                .map(res -> res == null ? 0L : res.getRemovedCount())
+                .onFailure(fail -> {
+                    log.error("Failed to delete documents from {}: {}", collection, fail.getMessage());
+                    handleMongoFailure(fail);
+                });
+    }
+
     public void deleteRecordAsync(JsonObject query, String collection) {
         mongoClient.findOneAndDelete(collection, query)
                 .onFailure(this::handleMongoFailure)
@@ -113,6 +168,38 @@ public class MongoDBClient {
         return promise.future();
     }
 
+    // unlike updateRecord, a non-matching query is not an error: the future completes with null
+    public Future<JsonObject> findAndUpdate(JsonObject query, JsonObject update, String collection, boolean upsert) {
+        UpdateOptions options = new UpdateOptions()
+                .setUpsert(upsert)
+                .setReturningNewDocument(true);
+        return mongoClient.findOneAndUpdateWithOptions(collection, query, update, new FindOptions(), options)
+                .onFailure(fail -> {
+                    log.error("Failed to find and update in {}: {}", collection, fail.getMessage());
+                    handleMongoFailure(fail);
+                });
+    }
+
+    public Future<Long> updateRecords(JsonObject query, JsonObject update, String collection, boolean upsert) {
+        UpdateOptions options = new UpdateOptions()
+                .setUpsert(upsert)
+                .setMulti(true);
+        return mongoClient.updateCollectionWithOptions(collection, query, update, options)
+                .map(res -> res == null ? 0L : res.getDocModified() + (res.getDocUpsertedId() == null ? 0 : 1))
+                .onFailure(fail -> {
+                    log.error("Failed to update documents in {}: {}", collection, fail.getMessage());
+                    handleMongoFailure(fail);
+                });
+    }
+
+    public Future<Long> countRecords(JsonObject query, String collection) {
+        return mongoClient.count(collection, query)
+                .onFailure(fail -> {
+                    log.error("Failed to count documents in {}: {}", collection, fail.getMessage());
+                    handleMongoFailure(fail);
+                });
+    }
+
     public void updateRecordAsync(JsonObject query, JsonObject updatedRecord, String collection) {
         JsonObject update = new JsonObject().put("$set", updatedRecord);
         mongoClient.findOneAndUpdate(collection, query, update).onFailure(this::handleMongoFailure).onComplete(res -> {});
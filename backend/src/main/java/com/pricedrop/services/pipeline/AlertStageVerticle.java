@@ -0,0 +1,20 @@
+package com.pricedrop.services.pipeline;
+
+import com.pricedrop.models.ScrapeResult;
+import com.pricedrop.services.alerts.AlertsValidator;
+import io.vertx.core.Future;
+
+// Matches the scraped price against every watcher's targets and sends the alerts.
+public class AlertStageVerticle extends StageVerticle<ScrapeResult, Void> {
+    private final AlertsValidator alertsValidator;
+
+    public AlertStageVerticle(AlertsValidator alertsValidator, int maxPending) {
+        super(CheckPipeline.ALERT_ADDRESS, "alert", maxPending);
+        this.alertsValidator = alertsValidator;
+    }
+
+    @Override
+    protected Future<Void> process(ScrapeResult result) {
+        return alertsValidator.checkForAlerts(result.getProduct(), result.getProductInfo());
+    }
+}
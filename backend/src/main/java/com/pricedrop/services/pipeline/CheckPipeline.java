@@ -0,0 +1,82 @@
+package com.pricedrop.services.pipeline;
+
+import com.pricedrop.models.Product;
+import com.pricedrop.models.ScrapeResult;
+import com.pricedrop.services.alerts.AlertStates;
+import com.pricedrop.services.alerts.AlertsValidator;
+import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.products.SavePriceHistory;
+import com.pricedrop.services.schedule.AdaptiveIntervalPolicy;
+import com.pricedrop.services.schedule.ProductScheduleUpdater;
+import com.pricedrop.services.scrape.DeadLetterStore;
+import com.pricedrop.services.scrape.ScrapperClient;
+import com.pricedrop.services.shard.ShardLeaseManager;
+import com.pricedrop.services.user.UserLookup;
+import com.pricedrop.services.user.UserProfileCache;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Verticle;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+// Price checks flow scrape -> persist -> alert over the event bus. Every stage is deployed with its own
+// instance count, so the CPU-bound persist and alert stages can use every event loop.
+public class CheckPipeline {
+    private static final Logger log = LoggerFactory.getLogger(CheckPipeline.class);
+    public static final String SCRAPE_ADDRESS = "pricedrop.check.scrape";
+    public static final String PERSIST_ADDRESS = "pricedrop.check.persist";
+    public static final String ALERT_ADDRESS = "pricedrop.check.alert";
+
+    public static void registerCodecs(Vertx vertx) {
+        vertx.eventBus().registerDefaultCodec(Product.class, new LocalCodec<>(Product.class));
+        vertx.eventBus().registerDefaultCodec(ScrapeResult.class, new LocalCodec<>(ScrapeResult.class));
+    }
+
+    // the scrapper client is shared by all scrape instances so the platform throttle and breaker stay process-wide
+    public static Future<Void> deploy(Vertx vertx, MongoDBClient mongoDBClient, ScrapperClient scrapperClient,
+                                      ShardLeaseManager shardLeaseManager) {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        int cores = Runtime.getRuntime().availableProcessors();
+        long stageTimeoutMs = Long.parseLong(dotenv.get("PIPELINE_STAGE_TIMEOUT_MS", "60000"));
+        registerCodecs(vertx);
+
+        int scrapePending = Integer.parseInt(dotenv.get("PIPELINE_SCRAPE_MAX_PENDING", "32"));
+        int persistPending = Integer.parseInt(dotenv.get("PIPELINE_PERSIST_MAX_PENDING", "64"));
+        int alertPending = Integer.parseInt(dotenv.get("PIPELINE_ALERT_MAX_PENDING", "64"));
+        // one lookup for every alert instance, so users of all products in a window are fetched together
+        UserLookup userLookup = new UserLookup(vertx, mongoDBClient, UserProfileCache.shared());
+        // likewise shared, so any instance can re-arm a watch another instance alerted
+        AlertStates alertStates = new AlertStates(mongoDBClient);
+        shardLeaseManager.onAcquired(alertStates::loadShards);
+        // alerts checked before the state is loaded could not re-arm; a failed load is logged and only
+        // delays re-arming, so the stages come up either way
+        return alertStates.load().otherwiseEmpty().compose(loaded -> Future.all(
+                        deploy(vertx, "ALERT", cores, () -> new AlertStageVerticle(
+                                new AlertsValidator(mongoDBClient, vertx, userLookup, alertStates), alertPending)),
+                        deploy(vertx, "PERSIST", cores, () -> new PersistStageVerticle(
+                                new SavePriceHistory(mongoDBClient), scheduleUpdater(mongoDBClient),
+                                persistPending, stageTimeoutMs)),
+                        deploy(vertx, "SCRAPE", 2, () -> new ScrapeStageVerticle(scrapperClient,
+                                new DeadLetterStore(mongoDBClient), scheduleUpdater(mongoDBClient),
+                                scrapePending, stageTimeoutMs))))
+                .mapEmpty();
+    }
+
+    private static ProductScheduleUpdater scheduleUpdater(MongoDBClient mongoDBClient) {
+        return new ProductScheduleUpdater(mongoDBClient, new AdaptiveIntervalPolicy());
+    }
+
+    // e.g. PIPELINE_PERSIST_INSTANCES
+    private static Future<String> deploy(Vertx vertx, String stage, int defaultInstances,
+                                         Supplier<Verticle> factory) {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        int instances = Integer.parseInt(dotenv.get("PIPELINE_" + stage + "_INSTANCES", String.valueOf(defaultInstances)));
+        return vertx.deployVerticle(factory, new DeploymentOptions().setInstances(instances))
+                .onSuccess(id -> log.info("deployed {} {} stage instances", instances, stage.toLowerCase()))
+                .onFailure(fail -> log.error("failed to deploy {} stage: {}", stage.toLowerCase(), fail.getMessage()));
+    }
+}
@@ -0,0 +1,38 @@
+package com.pricedrop.services.pipeline;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+
+// Hands the same object to local consumers; the check pipeline never crosses a cluster boundary.
+public class LocalCodec<T> implements MessageCodec<T, T> {
+    private final Class<T> type;
+
+    public LocalCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public void encodeToWire(Buffer buffer, T t) {
+        throw new UnsupportedOperationException(type.getSimpleName() + " can only be sent locally");
+    }
+
+    @Override
+    public T decodeFromWire(int pos, Buffer buffer) {
+        throw new UnsupportedOperationException(type.getSimpleName() + " can only be sent locally");
+    }
+
+    @Override
+    public T transform(T t) {
+        return t;
+    }
+
+    @Override
+    public String name() {
+        return "local-" + type.getSimpleName();
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
@@ -0,0 +1,45 @@
+package com.pricedrop.services.pipeline;
+
+import com.pricedrop.models.ScrapeResult;
+import com.pricedrop.services.products.SavePriceHistory;
+import com.pricedrop.services.schedule.ProductScheduleUpdater;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Writes the price history entry and the next check time, then hands the result to the alert stage.
+public class PersistStageVerticle extends StageVerticle<ScrapeResult, Void> {
+    private static final Logger log = LoggerFactory.getLogger(PersistStageVerticle.class);
+    private final SavePriceHistory savePriceHistory;
+    private final ProductScheduleUpdater scheduleUpdater;
+    private final long stageTimeoutMs;
+    private StageClient stageClient;
+
+    public PersistStageVerticle(SavePriceHistory savePriceHistory, ProductScheduleUpdater scheduleUpdater,
+                                int maxPending, long stageTimeoutMs) {
+        super(CheckPipeline.PERSIST_ADDRESS, "persist", maxPending);
+        this.savePriceHistory = savePriceHistory;
+        this.scheduleUpdater = scheduleUpdater;
+        this.stageTimeoutMs = stageTimeoutMs;
+    }
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        this.stageClient = new StageClient(vertx);
+        super.start(startPromise);
+    }
+
+    @Override
+    protected Future<Void> process(ScrapeResult result) {
+        String productId = result.getProduct().getProductId();
+        return savePriceHistory.savePrice(result.getProduct(), result.getProductInfo())
+                .onSuccess(saved -> scheduleUpdater.recordObservation(result.getProduct(), result.getProductInfo()))
+                .compose(saved -> stageClient.<Void>request(CheckPipeline.ALERT_ADDRESS, result, stageTimeoutMs)
+                        // the price is already stored, a lost alert evaluation must not fail the check
+                        .recover(fail -> {
+                            log.error("alert evaluation for {} failed: {}", productId, fail.getMessage());
+                            return Future.succeededFuture();
+                        }));
+    }
+}
@@ -0,0 +1,64 @@
+package com.pricedrop.services.pipeline;
+
+import com.pricedrop.models.Product;
+import com.pricedrop.models.ScrapeResult;
+import com.pricedrop.services.retry.RetryPolicy;
+import com.pricedrop.services.schedule.ProductScheduleUpdater;
+import com.pricedrop.services.scrape.DeadLetterStore;
+import com.pricedrop.services.scrape.ScrapeException;
+import com.pricedrop.services.scrape.ScrapperClient;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Scrapes a product (with retries) and hands the result to the persist stage. Replies once persist accepted it.
+public class ScrapeStageVerticle extends StageVerticle<Product, ScrapeResult> {
+    private static final Logger log = LoggerFactory.getLogger(ScrapeStageVerticle.class);
+    private final ScrapperClient scrapperClient;
+    private final DeadLetterStore deadLetterStore;
+    private final ProductScheduleUpdater scheduleUpdater;
+    private final long stageTimeoutMs;
+    private RetryPolicy retryPolicy;
+    private StageClient stageClient;
+
+    public ScrapeStageVerticle(ScrapperClient scrapperClient, DeadLetterStore deadLetterStore,
+                               ProductScheduleUpdater scheduleUpdater, int maxPending, long stageTimeoutMs) {
+        super(CheckPipeline.SCRAPE_ADDRESS, "scrape", maxPending);
+        this.scrapperClient = scrapperClient;
+        this.deadLetterStore = deadLetterStore;
+        this.scheduleUpdater = scheduleUpdater;
+        this.stageTimeoutMs = stageTimeoutMs;
+    }
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.retryPolicy = RetryPolicy.fromEnv(dotenv, "SCRAPE", ScrapeException::isRetryable);
+        this.stageClient = new StageClient(vertx);
+        super.start(startPromise);
+    }
+
+    @Override
+    protected Future<ScrapeResult> process(Product product) {
+        return process(product, Long.MAX_VALUE);
+    }
+
+    // retries re-acquire a throttle permit each time, so backing off never bypasses the platform limits; once
+    // the item timeout has failed the product upstream they stop, dead-lettering it here
+    @Override
+    protected Future<ScrapeResult> process(Product product, long deadlineMs) {
+        return retryPolicy.execute(vertx, () -> scrapperClient.getScrappedProductDetails(product),
+                        () -> System.currentTimeMillis() >= deadlineMs)
+                .recover(failure -> {
+                    log.error("price check failed for {}: {}", product.getProductId(), failure.getMessage());
+                    deadLetterStore.record(product, failure);
+                    scheduleUpdater.recordFailure(product);
+                    return Future.failedFuture(failure);
+                })
+                .map(scraped -> new ScrapeResult(product, scraped.getJsonObject("productInfo")))
+                .compose(result -> stageClient.<Void>request(CheckPipeline.PERSIST_ADDRESS, result, stageTimeoutMs)
+                        .map(result));
+    }
+}
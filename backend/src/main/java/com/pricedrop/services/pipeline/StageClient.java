@@ -0,0 +1,42 @@
+package com.pricedrop.services.pipeline;
+
+import com.pricedrop.services.retry.RetryPolicy;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+
+// Sends to a stage and backs off while every instance of it is busy. The retries keep the sender's own slot
+// occupied, which is what carries the pushback further upstream.
+public class StageClient {
+    private final Vertx vertx;
+    private final RetryPolicy backpressurePolicy;
+
+    public StageClient(Vertx vertx) {
+        this.vertx = vertx;
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.backpressurePolicy = new RetryPolicy(
+                Integer.parseInt(dotenv.get("PIPELINE_BACKPRESSURE_MAX_ATTEMPTS", "20")),
+                Long.parseLong(dotenv.get("PIPELINE_BACKPRESSURE_BASE_DELAY_MS", "50")),
+                Long.parseLong(dotenv.get("PIPELINE_BACKPRESSURE_MAX_DELAY_MS", "2000")),
+                StageClient::isBackpressure);
+    }
+
+    // a rejected message was never processed, so resending it is always safe
+    public static boolean isBackpressure(Throwable failure) {
+        return failure instanceof ReplyException reply
+                && (reply.failureType() == ReplyFailure.NO_HANDLERS
+                || (reply.failureType() == ReplyFailure.RECIPIENT_FAILURE && reply.failureCode() == StageVerticle.BUSY));
+    }
+
+    public <T> Future<T> request(String address, Object body, long timeoutMs) {
+        DeliveryOptions options = new DeliveryOptions()
+                .setSendTimeout(timeoutMs)
+                .addHeader(StageVerticle.DEADLINE_HEADER, String.valueOf(System.currentTimeMillis() + timeoutMs));
+        return backpressurePolicy.execute(vertx, () -> vertx.eventBus().<T>request(address, body, options))
+                .map(Message::body);
+    }
+}
@@ -0,0 +1,87 @@
+package com.pricedrop.services.pipeline;
+
+import com.pricedrop.services.metrics.Metrics;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One instance of a check stage. Each instance works on at most maxPending messages and rejects the rest
+// with BUSY, so a slow stage pushes back on the one feeding it instead of buffering without bound.
+public abstract class StageVerticle<I, O> extends AbstractVerticle {
+    private static final Logger log = LoggerFactory.getLogger(StageVerticle.class);
+    public static final int BUSY = 429;
+    // epoch ms after which the sender no longer waits for the reply, see StageClient
+    public static final String DEADLINE_HEADER = "deadline";
+    private static final Map<String, AtomicInteger> pendingByStage = new ConcurrentHashMap<>();
+    private final String address;
+    private final String stage;
+    private final int maxPending;
+    private final AtomicInteger stagePending;
+    private int pending = 0;
+    private MessageConsumer<I> consumer;
+
+    protected StageVerticle(String address, String stage, int maxPending) {
+        this.address = address;
+        this.stage = stage;
+        this.maxPending = Math.max(1, maxPending);
+        this.stagePending = pendingByStage.computeIfAbsent(stage, key -> {
+            AtomicInteger counter = new AtomicInteger();
+            Metrics.gauge("pipeline." + key + ".pending", counter::get);
+            return counter;
+        });
+    }
+
+    protected abstract Future<O> process(I input);
+
+    // stages whose work can outlive the sender's wait override this to stop at the deadline
+    protected Future<O> process(I input, long deadlineMs) {
+        return process(input);
+    }
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        consumer = vertx.eventBus().consumer(address, this::handle);
+        consumer.completion().onComplete(startPromise);
+    }
+
+    @Override
+    public void stop(Promise<Void> stopPromise) {
+        consumer.unregister().onComplete(stopPromise);
+    }
+
+    private void handle(Message<I> message) {
+        if (pending >= maxPending) {
+            Metrics.increment("pipeline." + stage + ".rejected");
+            message.fail(BUSY, stage + " stage is busy");
+            return;
+        }
+        pending++;
+        stagePending.incrementAndGet();
+        Metrics.increment("pipeline." + stage + ".accepted");
+        String deadline = message.headers().get(DEADLINE_HEADER);
+        Future<O> result;
+        try {
+            result = process(message.body(), deadline == null ? Long.MAX_VALUE : Long.parseLong(deadline));
+        } catch (Exception e) {
+            result = Future.failedFuture(e);
+        }
+        result.onComplete(res -> {
+            pending--;
+            stagePending.decrementAndGet();
+            if (res.succeeded()) {
+                message.reply(res.result());
+            } else {
+                log.debug("[{}] message failed: {}", stage, res.cause().getMessage());
+                message.fail(500, String.valueOf(res.cause().getMessage()));
+            }
+        });
+    }
+}
@@ -1,16 +1,21 @@
 package com.pricedrop.services.products;
 
 import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.AlertRule;
 import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.watches.WatchStore;
+import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.web.RoutingContext;
-import io.vertx.core.Handler;
 
 public class DeleteProduct {
     MongoDBClient mongoDBClient;
+    WatchStore watchStore;
 
     public DeleteProduct(MongoDBClient mongoDBClient, RoutingContext context) {
         this.mongoDBClient = mongoDBClient;
+        this.watchStore = new WatchStore(mongoDBClient);
         this.deleteProduct(context);
     }
 
@@ -19,60 +24,50 @@ public class DeleteProduct {
         String productId = body.getString("productId");
         String userId = context.get("userId");
         String targetPrice = body.getString("targetPrice");
+        AlertRule rule;
+        try {
+            rule = AlertRule.valueOf(body.getString("rule", AlertRule.TARGET.name()));
+        } catch (IllegalArgumentException e) {
+            Utility.buildResponse(context, 400, Utility.createErrorResponse("invalid rule"));
+            return;
+        }
 
-        removeTargetPrice(productId, userId, targetPrice, context);
+        // removing a watch that is already gone still succeeds, as before
+        Future<Boolean> removal = rule == AlertRule.TARGET
+                ? watchStore.remove(userId, productId, targetPrice)
+                : watchStore.removeRule(userId, productId, rule,
+                        rule == AlertRule.DROP_FROM_AVERAGE ? SaveProduct.dropPercent(body) : null);
+        removal.compose(removed -> deleteProductIfUnwatched(productId))
+                .onSuccess(res -> Utility.buildResponse(context, 200,
+                        Utility.createSuccessResponse(rule == AlertRule.TARGET ? "Target price removed" : "Rule removed")))
+                .onFailure(err -> respondWithError(context, err));
     }
 
-    private void removeTargetPrice(String productId, String userId, String targetPrice, RoutingContext context) {
-        JsonObject query = new JsonObject()
-                .put("productId", productId)
-                .put("userTargetPrices.userId", userId);
-
-        JsonObject update = new JsonObject()
-                .put("$pull", new JsonObject()
-                        .put("userTargetPrices.$.targetPrices", targetPrice));
-
-        mongoDBClient.updateRecord(query, update, "products")
-                .onSuccess(res -> removeUserIfNoPrices(productId, userId, context))
-                .onFailure(handleFailureOrProceed(() -> removeUserIfNoPrices(productId, userId, context), context));
-    }
-
-    private void removeUserIfNoPrices(String productId, String userId, RoutingContext context) {
-        JsonObject query = new JsonObject()
-                .put("productId", productId)
-                .put("userTargetPrices", new JsonObject()
-                        .put("$elemMatch", new JsonObject()
-                                .put("userId", userId)
-                                .put("targetPrices", new JsonObject().put("$size", 0))));
-
-        JsonObject update = new JsonObject()
-                .put("$pull", new JsonObject()
-                        .put("userTargetPrices", new JsonObject().put("userId", userId)));
-
-        mongoDBClient.updateRecord(query, update, "products")
-                .onSuccess(res -> deleteProductIfNoUsers(productId, context))
-                .onFailure(handleFailureOrProceed(() -> deleteProductIfNoUsers(productId, context), context));
-    }
-
-    private void deleteProductIfNoUsers(String productId, RoutingContext context) {
-        JsonObject query = new JsonObject()
-                .put("productId", productId)
-                .put("userTargetPrices", new JsonObject().put("$size", 0));
-
-        mongoDBClient.deleteRecord(query, "products")
-                .onSuccess(res -> Utility.buildResponse(context, 200, Utility.createSuccessResponse("Target price removed")))
-                .onFailure(handleFailureOrProceed(() ->
-                        Utility.buildResponse(context, 200, Utility.createSuccessResponse("Target price removed")), context));
+    // a watch saved meanwhile can still slip in between the count and the delete. SaveProduct ensures the
+    // product again after adding its watch, and this recounts after deleting and puts the product back, so
+    // whichever side writes second sees the other and no watch is left without its product
+    private Future<Void> deleteProductIfUnwatched(String productId) {
+        JsonObject query = new JsonObject().put("productId", productId);
+        return watchStore.countForProduct(productId).compose(watchers -> {
+            if (watchers > 0) {
+                return Future.succeededFuture();
+            }
+            return mongoDBClient.queryRecords(query, new FindOptions().setLimit(1), "products").compose(products -> {
+                if (products.isEmpty()) {
+                    return Future.succeededFuture();
+                }
+                return mongoDBClient.deleteRecord(query, "products")
+                        .recover(err -> err.getMessage() != null && err.getMessage().contains("No matching document")
+                                ? Future.succeededFuture() : Future.failedFuture(err))
+                        .compose(v -> watchStore.countForProduct(productId))
+                        .compose(raced -> raced > 0 ? restore(products.get(0)) : Future.succeededFuture());
+            });
+        });
     }
 
-    private Handler<Throwable> handleFailureOrProceed(Runnable onNoMatchFallback, RoutingContext context) {
-        return err -> {
-            if (err.getMessage() != null && err.getMessage().contains("No matching document")) {
-                onNoMatchFallback.run();
-            } else {
-                respondWithError(context, err);
-            }
-        };
+    private Future<Void> restore(JsonObject product) {
+        return mongoDBClient.updateRecords(new JsonObject().put("productId", product.getString("productId")),
+                new JsonObject().put("$setOnInsert", product), "products", true).mapEmpty();
     }
 
     private void respondWithError(RoutingContext context, Throwable err) {
@@ -1,9 +1,12 @@
 package com.pricedrop.services.products;
 
 import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.AlertRule;
 import com.pricedrop.models.Product;
 import com.pricedrop.models.ProductInfo;
+import com.pricedrop.models.Watch;
 import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.watches.WatchStore;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
@@ -17,30 +20,42 @@ public class GetProducts {
     private final MongoDBClient mongoDBClient;
     private final RoutingContext context;
     private final Map<String, Product> productMap;
+    private final List<Watch> watches = new ArrayList<>();
+    private final WatchStore watchStore;
     private final String userId;
     public GetProducts(MongoDBClient mongoDBClient, RoutingContext context) {
         this.mongoDBClient = mongoDBClient;
         this.context = context;
         this.userId = context.get("userId");
         this.productMap = new HashMap<>();
+        this.watchStore = new WatchStore(mongoDBClient);
         this.fetchProducts();
     }
 
     private void fetchProducts() {
-        JsonObject userQuery = new JsonObject().put("userTargetPrices",
-                new JsonObject().put("$elemMatch",
-                        new JsonObject().put("userId", userId)
-                )
-        );
-        mongoDBClient.queryRecords(userQuery, "products")
-                .onSuccess(this::handleProductList)
+        watchStore.forUser(userId)
+                .onSuccess(this::handleWatches)
                 .onFailure(this::handleError);
     }
 
-    private void handleProductList(List<JsonObject> productList) {
-        createProductMap(productList);
-        List<String> productIds = extractProductIds(productList);
-        fetchProductInformation(productIds);
+    private void handleWatches(List<Watch> userWatches) {
+        watches.addAll(userWatches);
+        List<String> productIds = userWatches.stream()
+                .map(Watch::getProductId)
+                .distinct()
+                .toList();
+        if (productIds.isEmpty()) {
+            Utility.buildResponse(context, 200, List.of());
+            return;
+        }
+        JsonObject query = new JsonObject()
+                .put("productId", new JsonObject().put("$in", new JsonArray(productIds)));
+        mongoDBClient.queryRecords(query, "products")
+                .onSuccess(productList -> {
+                    createProductMap(productList);
+                    fetchProductInformation(productIds);
+                })
+                .onFailure(this::handleError);
     }
 
     private void createProductMap(List<JsonObject> productList) {
@@ -50,13 +65,6 @@ public class GetProducts {
         });
     }
 
-    private List<String> extractProductIds(List<JsonObject> productList) {
-        return productList.stream()
-                .map(product -> product.getString("productId"))
-                .distinct()
-                .toList();
-    }
-
     private void fetchProductInformation(List<String> productIds) {
         JsonObject query = new JsonObject()
                 .put("productId", new JsonObject().put("$in", new JsonArray(productIds)));
@@ -78,31 +86,35 @@ public class GetProducts {
 
 
     private List<JsonObject> processFinalResponse(List<JsonObject> response) {
-        List<JsonObject> finalResponse = new ArrayList<>();
+        Map<String, ProductInfo> productInfos = new HashMap<>();
         response.forEach(productInfoObj -> {
-            try {
-                ProductInfo productInfo = Utility.castToClass(productInfoObj, ProductInfo.class);
-                Product product = productMap.get(productInfo.getProductId());
-                product.getUserTargetPrices().forEach(userTargetPrice -> {
-                    if (userTargetPrice.getUserId().equals(userId)) {
-                        userTargetPrice.getTargetPrices().forEach(targetPrice ->
-                                finalResponse.add(createProductEntry(product, targetPrice, productInfo)));
-                    }
-                });
-            } catch (Exception e) {
-                log.error(e.getMessage());
+            ProductInfo productInfo = Utility.castToClass(productInfoObj, ProductInfo.class);
+            productInfos.put(productInfo.getProductId(), productInfo);
+        });
+        List<JsonObject> finalResponse = new ArrayList<>();
+        watches.forEach(watch -> {
+            Product product = productMap.get(watch.getProductId());
+            ProductInfo productInfo = productInfos.get(watch.getProductId());
+            if (product == null || productInfo == null) {
+                log.error("missing product or product information for {}", watch.getProductId());
+                return;
             }
+            finalResponse.add(createProductEntry(product, watch, productInfo));
         });
-
         return finalResponse;
     }
 
-    private JsonObject createProductEntry(Product product, String targetPrice, ProductInfo productInfo) {
-        return new JsonObject()
+    private JsonObject createProductEntry(Product product, Watch watch, ProductInfo productInfo) {
+        JsonObject entry = new JsonObject()
                 .put("productId", product.getProductId())
                 .put("productTitle", productInfo.getProductTitle())
                 .put("productImageUrl", productInfo.getProductImageUrl())
                 .put("productUrl", product.getProductUrl())
-                .put("targetPrice", targetPrice);
+                .put("targetPrice", watch.getTargetPrice())
+                .put("rule", (watch.getRule() == null ? AlertRule.TARGET : watch.getRule()).name());
+        if (watch.getDropPercent() != null) {
+            entry.put("dropPercent", watch.getDropPercent());
+        }
+        return entry;
     }
 }
\ No newline at end of file
@@ -1,44 +1,91 @@
 package com.pricedrop.services.products;
 
-import com.mongodb.MongoSocketReadException;
 import com.pricedrop.models.Product;
-import com.pricedrop.services.alerts.AlertClient;
-import com.pricedrop.services.batchprocessor.BatchProcessor;
+import com.pricedrop.services.batchprocessor.ItemListener;
+import com.pricedrop.services.batchprocessor.PipelineStats;
 import com.pricedrop.services.batchprocessor.SaveHistoryAndAlertBatchProcessor;
 import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.scrape.Platform;
 import com.pricedrop.services.scrape.ScrapperClient;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.WebClient;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.FindOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
-
-import static com.pricedrop.Utils.Utility.*;
+import java.util.function.Function;
 
 public class ProductChecker {
     private static final Logger log = LoggerFactory.getLogger(ProductChecker.class);
+    // only what scraping, history and alerting read; skips _id and any future bulk fields
+    private static final JsonObject CHECK_FIELDS = new JsonObject()
+            .put("_id", 0)
+            .put("productId", 1)
+            .put("productUrl", 1)
+            .put("maxTargetMinor", 1)
+            .put("checkSchedule", 1)
+            .put("priceStats", 1)
+            .put("shard", 1);
     MongoDBClient mongoDBClient;
     ScrapperClient scrapperClient;
     Vertx vertx;
-    WebClient client;
-    public ProductChecker(MongoDBClient mongoDBClient, Vertx vertx,  ScrapperClient scrapperClient, WebClient client) {
+    SaveHistoryAndAlertBatchProcessor batchProcessor;
+    public ProductChecker(MongoDBClient mongoDBClient, Vertx vertx,  ScrapperClient scrapperClient) {
         this.mongoDBClient = mongoDBClient;
         this.scrapperClient = scrapperClient;
         this.vertx = vertx;
-        this.client = client;
+        this.batchProcessor = new SaveHistoryAndAlertBatchProcessor(mongoDBClient, vertx);
+    }
+
+    // one cursor and pipeline per platform, so a throttled retailer only slows down its own lane.
+    // Each lane streams in productId order and starts after its checkpoint, if one is given.
+    public Future<Void> checkProducts(JsonObject scopeFilter, JsonObject checkpoints,
+                                      Function<Platform, ItemListener<Product>> listeners) {
+        List<Future<PipelineStats>> lanes = new ArrayList<>();
+        for (Platform platform : Platform.values()) {
+            JsonArray conditions = new JsonArray().add(platformQuery(platform)).add(scopeFilter);
+            String checkpoint = checkpoints.getString(platform.name());
+            if (checkpoint != null) {
+                conditions.add(new JsonObject().put("productId", new JsonObject().put("$gt", checkpoint)));
+            }
+            FindOptions options = new FindOptions()
+                    .setFields(CHECK_FIELDS)
+                    .setSort(new JsonObject().put("productId", 1));
+            ReadStream<JsonObject> productStream = mongoDBClient.streamRecords(
+                    new JsonObject().put("$and", conditions), options, "products");
+            int laneConcurrency = scrapperClient.getThrottle().getLimits(platform).getMaxInFlight();
+            lanes.add(batchProcessor.handleStream(productStream, laneConcurrency, listeners.apply(platform))
+                    .onSuccess(stats -> log.info("price check completed for {}: {}", platform, stats))
+                    .onFailure(fail -> log.error("Failed to stream {} products from DB: {}",
+                            platform, fail.getMessage())));
+        }
+        // join waits for every lane, so a failed lane never leaves the others running unsupervised
+        return Future.join(lanes).mapEmpty();
     }
-    public void checkAllProducts() {
-        mongoDBClient.queryRecords(new JsonObject(), "products")
-                .onSuccess(productList -> {
-                    List<Product> products = productList.stream().map(productJson
-                            -> castToClass(productJson, Product.class)).toList();
-                    BatchProcessor<Product> batchProcessor = new SaveHistoryAndAlertBatchProcessor(mongoDBClient,
-                            vertx, scrapperClient, client);
-                    batchProcessor.handleBatch(0, products);
-                })
-                .onFailure(fail -> log.error("Failed to fetch products from DB: {}", fail.getMessage()));
+
+    public void cancel() {
+        batchProcessor.cancel();
+    }
+
+    private JsonObject platformQuery(Platform platform) {
+        if (platform == Platform.OTHER) {
+            List<String> knownPrefixes = new ArrayList<>();
+            for (Platform known : Platform.values()) {
+                if (known != Platform.OTHER) {
+                    knownPrefixes.add("^" + known.getProductIdPrefix());
+                }
+            }
+            return new JsonObject().put("productId", new JsonObject()
+                    .put("$not", new JsonObject().put("$regex", String.join("|", knownPrefixes))));
+        }
+        // anchored prefix regex can use the productId index
+        return new JsonObject().put("productId", new JsonObject()
+                .put("$regex", "^" + platform.getProductIdPrefix()));
     }
 
     private Throwable unwrapCause(Throwable throwable) {
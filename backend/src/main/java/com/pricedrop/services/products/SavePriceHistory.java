@@ -1,9 +1,11 @@
 package com.pricedrop.services.products;
 
 import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.Price;
 import com.pricedrop.models.PriceHistory;
 import com.pricedrop.models.Product;
 import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
 
 import java.time.Instant;
@@ -17,12 +19,16 @@ public class SavePriceHistory {
 
     public void savePrice(JsonObject futureResult) {
         Product product = Utility.castToClass(futureResult.getJsonObject("product"), Product.class);
-        JsonObject productInfo = futureResult.getJsonObject("productInfo");
+        savePrice(product, futureResult.getJsonObject("productInfo"));
+    }
+
+    public Future<Void> savePrice(Product product, JsonObject productInfo) {
         String productPrice = productInfo.getString("price");
         String productTitle = productInfo.getString("title");
         PriceHistory priceHistory = new PriceHistory(product.getProductId(),
-                productTitle, product.getProductUrl(), productPrice, Instant.now());
-        mongoDBClient.insertRecord(JsonObject.mapFrom(priceHistory), "pricehistory");
+                productTitle, product.getProductUrl(), productPrice,
+                Price.fromProductInfo(productInfo).minorUnits(), Instant.now());
+        return mongoDBClient.insertRecord(JsonObject.mapFrom(priceHistory), "pricehistory");
 
     }
 }
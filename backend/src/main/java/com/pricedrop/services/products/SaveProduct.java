@@ -2,14 +2,15 @@ package com.pricedrop.services.products;
 
 import com.pricedrop.Utils.UrlRedirectUtil;
 import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.AlertRule;
+import com.pricedrop.models.Price;
 import com.pricedrop.models.Product;
-import com.pricedrop.models.ProductStatus;
-import com.pricedrop.models.UserTargetPrices;
 import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.scrape.ScrapperClient;
+import com.pricedrop.services.shard.ShardLeaseManager;
+import com.pricedrop.services.watches.WatchStore;
 import io.vertx.core.Future;
-import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.client.WebClient;
@@ -17,8 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Function;
 
 import static com.pricedrop.Utils.Utility.*;
 
@@ -27,94 +27,100 @@ public class SaveProduct {
     MongoDBClient mongoDBClient;
     WebClient client;
     UpdateProductInfo updateProductInfo;
+    WatchStore watchStore;
     Vertx vertx;
 
-    public SaveProduct(MongoDBClient mongoDBClient, WebClient client, Vertx vertx) {
+    public SaveProduct(MongoDBClient mongoDBClient, WebClient client, Vertx vertx, ScrapperClient scrapperClient) {
         this.mongoDBClient = mongoDBClient;
         this.client = client;
         this.vertx = vertx;
-        this.updateProductInfo = new UpdateProductInfo(mongoDBClient, client);
+        this.updateProductInfo = new UpdateProductInfo(mongoDBClient, scrapperClient);
+        this.watchStore = new WatchStore(mongoDBClient);
     }
 
     public void saveProduct(RoutingContext context) {
         JsonObject request = context.body().asJsonObject();
         String productUrl = request.getString("productUrl");
+        String userId = context.get("userId");
+        Function<String, Future<Boolean>> addWatch;
+        String duplicate;
+        AlertRule rule;
+        try {
+            rule = AlertRule.valueOf(request.getString("rule", AlertRule.TARGET.name()));
+        } catch (IllegalArgumentException e) {
+            buildResponse(context, 400, createErrorResponse("invalid rule"));
+            return;
+        }
+        if (rule == AlertRule.TARGET) {
+            Price target;
+            try {
+                target = Price.parse(request.getString("targetPrice"));
+            } catch (IllegalArgumentException e) {
+                buildResponse(context, 400, createErrorResponse("invalid target price"));
+                return;
+            }
+            addWatch = productId -> watchStore.add(userId, productId, target);
+            duplicate = "target price already added for this user";
+        } else {
+            Double dropPercent = null;
+            if (rule == AlertRule.DROP_FROM_AVERAGE) {
+                dropPercent = dropPercent(request);
+                if (dropPercent == null) {
+                    buildResponse(context, 400, createErrorResponse("invalid drop percent"));
+                    return;
+                }
+            }
+            Double percent = dropPercent;
+            addWatch = productId -> watchStore.addRule(userId, productId, rule, percent);
+            duplicate = "rule already added for this user";
+        }
         UrlRedirectUtil.finalUrl(vertx, productUrl).onSuccess(url -> {
-            String targetPrice = request.getString("targetPrice");
-            String userId = context.get("userId");
             Product product = new Product();
             String productId = generateProductId(url);
             product.setProductId(productId);
             product.setProductUrl(url);
-            queryForProductId(productId, userId, targetPrice).onSuccess(productStatus -> {
-                if (!productStatus.isProductExists()) {
-                    UserTargetPrices userTargetPrice = new UserTargetPrices();
-                    userTargetPrice.setUserId(userId);
-                    userTargetPrice.setTargetPrices(new ArrayList<>(List.of(targetPrice)));
-                    product.setUserTargetPrices(new ArrayList<>(List.of(userTargetPrice)));
-                    updateProductInfo.updateProductInfo(product);
-                    mongoDBClient.insertRecord(JsonObject.mapFrom(product),
-                            "products").onSuccess(res -> {
+            product.setShard(ShardLeaseManager.shardFor(productId));
+            // ensured again once the watch exists, in case DeleteProduct removed the product in between
+            ensureProduct(product)
+                    .compose(created -> addWatch.apply(productId))
+                    .compose(added -> added ? ensureProduct(product).map(true) : Future.succeededFuture(false))
+                    .onSuccess(added -> {
+                        if (!added) {
+                            buildResponse(context, 400, createErrorResponse(duplicate));
+                            return;
+                        }
                         buildResponse(context, 200, createSuccessResponse("product inserted"));
                     }).onFailure(fail ->
                             buildResponse(context, 500,
                                     createErrorResponse("error adding product, retry!!")));
-                } else {
-                    if (productStatus.isUserExists() && productStatus.isTargetPriceExists()) {
-                        buildResponse(context, 400,
-                                createErrorResponse("target price already added for this user"));
-                        return;
-                    }
-                    JsonObject query = new JsonObject();
-                    JsonObject update = new JsonObject();
-                    if (productStatus.isUserExists() && !productStatus.isTargetPriceExists()) {
-                        query.put("productId", productId)
-                                .put("userTargetPrices.userId", userId);
-                        update.put("$addToSet", new JsonObject()
-                                .put("userTargetPrices.$.targetPrices", targetPrice));
-                    } else if (!productStatus.isUserExists()) {
-                        query.put("productId", productId);
-                        JsonObject newUserEntry = new JsonObject()
-                                .put("userId", userId)
-                                .put("targetPrices", new JsonArray().add(targetPrice));
-                        update.put("$push", new JsonObject()
-                                .put("userTargetPrices", newUserEntry));
-                    }
-                    mongoDBClient.updateRecord(query, update, "products").onSuccess(res -> {
-                        buildResponse(context, 200, createSuccessResponse("product inserted"));
-                    }).onFailure(fail -> buildResponse(context, 500,
-                            createErrorResponse("error adding product, retry!!")));
-                }
-            }).onFailure(fail ->
-                    buildResponse(context, 500,
-                            createErrorResponse("error adding product, retry!!"))
-            );
         }).onFailure(fail -> {
             Utility.buildResponse(context, 500, Utility.createErrorResponse(fail.getMessage()));
         });
     }
 
-    public Future<ProductStatus> queryForProductId(String productId, String userId, String targetPrice) {
-        Promise<ProductStatus> promise = Promise.promise();
-        ProductStatus productStatus = new ProductStatus();
-        JsonObject query = new JsonObject().put("productId", productId);
-        mongoDBClient.queryRecords(query, "products").onSuccess(res -> {
-            if (!res.isEmpty()) {
-                log.info("product already exists");
-                productStatus.setProductExists(true);
-                Product product = Utility.castToClass(res.getFirst(), Product.class);
-                product.getUserTargetPrices().forEach(userTargetPrice -> {
-                    if (userTargetPrice.getUserId().equals(userId)) {
-                        productStatus.setUserExists(true);
-                        if (userTargetPrice.getTargetPrices().contains(targetPrice)) {
-                            productStatus.setTargetPriceExists(true);
-                        }
+    // a percentage strictly between 0 and 100, or null
+    static Double dropPercent(JsonObject request) {
+        Object value = request.getValue("dropPercent");
+        double percent;
+        try {
+            percent = value instanceof Number number ? number.doubleValue() : Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return percent > 0 && percent < 100 ? percent : null;
+    }
+
+    // the product document only carries what checking it needs; its watchers are in the watches collection
+    private Future<Boolean> ensureProduct(Product product) {
+        return mongoDBClient.updateRecords(new JsonObject().put("productId", product.getProductId()),
+                new JsonObject().put("$setOnInsert", JsonObject.mapFrom(product)), "products", true)
+                .map(inserted -> {
+                    if (inserted > 0) {
+                        updateProductInfo.updateProductInfo(product);
+                    } else {
+                        log.info("product already exists");
                     }
+                    return inserted > 0;
                 });
-            }
-            log.info("logging productStatus {}", JsonObject.mapFrom(productStatus));
-            promise.complete(productStatus);
-        }).onFailure(fail -> promise.fail(fail.getMessage()));
-        return promise.future();
     }
 }
@@ -3,10 +3,10 @@ package com.pricedrop.services.products;
 import com.pricedrop.models.Product;
 import com.pricedrop.models.ProductInfo;
 import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.scrape.Freshness;
 import com.pricedrop.services.scrape.ScrapperClient;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.WebClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,13 +15,14 @@ public class UpdateProductInfo {
     private final MongoDBClient mongoDBClient;
     private final ScrapperClient scrapperClient;
 
-    public UpdateProductInfo(MongoDBClient mongoDBClient, WebClient client) {
+    public UpdateProductInfo(MongoDBClient mongoDBClient, ScrapperClient scrapperClient) {
         this.mongoDBClient = mongoDBClient;
-        this.scrapperClient = new ScrapperClient(client);
+        this.scrapperClient = scrapperClient;
     }
 
+    // only the title and image are kept here, so a recent scrape of the same product is good enough
     public void updateProductInfo(Product product) {
-        scrapperClient.getScrappedProductDetails(product)
+        scrapperClient.getScrappedProductDetails(product, Freshness.INTERACTIVE)
                 .compose(response -> {
                     ProductInfo productInfo = createProductInfo(product, response);
                     return checkAndSaveProductInfo(productInfo);
@@ -0,0 +1,21 @@
+package com.pricedrop.services.retry;
+
+public class RetriesExhaustedException extends RuntimeException {
+    private final int attempts;
+    private final boolean retryable;
+
+    public RetriesExhaustedException(int attempts, boolean retryable, Throwable cause) {
+        super("failed after " + attempts + " attempts: " + cause.getMessage(), cause);
+        this.attempts = attempts;
+        this.retryable = retryable;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    // false when the last failure was fatal and retrying was skipped
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,87 @@
+package com.pricedrop.services.retry;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Exponential backoff with full jitter: attempt n waits a random delay in [0, min(maxDelay, baseDelay * 2^n)],
+// so callers that failed together don't retry together.
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final Predicate<Throwable> retryable;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, Predicate<Throwable> retryable) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.retryable = retryable;
+    }
+
+    // e.g. SCRAPE_RETRY_MAX_ATTEMPTS, SCRAPE_RETRY_BASE_DELAY_MS, SCRAPE_RETRY_MAX_DELAY_MS
+    public static RetryPolicy fromEnv(Dotenv dotenv, String prefix, Predicate<Throwable> retryable) {
+        return new RetryPolicy(
+                Integer.parseInt(dotenv.get(prefix + "_RETRY_MAX_ATTEMPTS", "3")),
+                Long.parseLong(dotenv.get(prefix + "_RETRY_BASE_DELAY_MS", "2000")),
+                Long.parseLong(dotenv.get(prefix + "_RETRY_MAX_DELAY_MS", "30000")),
+                retryable);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isRetryable(Throwable failure) {
+        return retryable.test(failure);
+    }
+
+    public long delayFor(int attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    // fails with RetriesExhaustedException once the last attempt failed or a failure was not retryable
+    public <T> Future<T> execute(Vertx vertx, Supplier<Future<T>> action) {
+        return execute(vertx, action, () -> false);
+    }
+
+    // cancelled is checked before every attempt, so retries of work the caller has given up on stop instead of
+    // taking permits for a result no one reads; they then fail with a CancellationException as the cause
+    public <T> Future<T> execute(Vertx vertx, Supplier<Future<T>> action, BooleanSupplier cancelled) {
+        Promise<T> promise = Promise.promise();
+        attempt(vertx, action, cancelled, 1, promise);
+        return promise.future();
+    }
+
+    private <T> void attempt(Vertx vertx, Supplier<Future<T>> action, BooleanSupplier cancelled, int attempt,
+                             Promise<T> promise) {
+        if (cancelled.getAsBoolean()) {
+            promise.fail(new RetriesExhaustedException(attempt - 1, false,
+                    new CancellationException("cancelled before attempt " + attempt)));
+            return;
+        }
+        Future<T> future;
+        try {
+            future = action.get();
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        future.onSuccess(promise::complete).onFailure(fail -> {
+            boolean canRetry = isRetryable(fail);
+            if (!canRetry || attempt >= maxAttempts) {
+                promise.fail(new RetriesExhaustedException(attempt, canRetry, fail));
+                return;
+            }
+            vertx.setTimer(Math.max(1, delayFor(attempt - 1)),
+                    id -> attempt(vertx, action, cancelled, attempt + 1, promise));
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package com.pricedrop.services.rules;
+
+import com.pricedrop.models.AlertRule;
+import com.pricedrop.models.PriceStats;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+// Evaluates alert rules from a product's PriceStats instead of its price history. Observing a price
+// touches at most WINDOW_DAYS buckets and every rule is a comparison against the stats, so a check costs
+// the same whether the product has ten prices or ten thousand. Rules are always evaluated against the
+// stats from before the price being checked, so a new low is a low compared to what came before it.
+public class RuleEngine {
+    public static final int WINDOW_DAYS = 30;
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    // the average isn't trusted until the window holds this many prices
+    private final int minObservations;
+
+    public RuleEngine() {
+        this(Integer.parseInt(Dotenv.configure().ignoreIfMissing().load().get("RULE_MIN_OBSERVATIONS", "5")));
+    }
+
+    public RuleEngine(int minObservations) {
+        this.minObservations = minObservations;
+    }
+
+    // the stats after priceMinor was seen at now; previous is left untouched and may be null
+    public PriceStats observe(PriceStats previous, long priceMinor, long now) {
+        PriceStats next = previous == null ? new PriceStats() : previous.copy();
+        long day = Math.floorDiv(now, DAY_MS);
+        if (next.getDaySums() == null || next.getDaySums().length != WINDOW_DAYS) {
+            next.setDaySums(new long[WINDOW_DAYS]);
+            next.setDayCounts(new int[WINDOW_DAYS]);
+            next.setWindowSum(0);
+            next.setWindowCount(0);
+            next.setWindowDay(day);
+        }
+        long[] sums = next.getDaySums();
+        int[] counts = next.getDayCounts();
+        // empties the buckets of the days that left the window; a clock that went back lands in the newest
+        long newest = next.getWindowDay();
+        for (long d = newest + 1; d <= day && d <= newest + WINDOW_DAYS; d++) {
+            int slot = (int) Math.floorMod(d, WINDOW_DAYS);
+            next.setWindowSum(next.getWindowSum() - sums[slot]);
+            next.setWindowCount(next.getWindowCount() - counts[slot]);
+            sums[slot] = 0;
+            counts[slot] = 0;
+        }
+        next.setWindowDay(Math.max(day, newest));
+        int slot = (int) Math.floorMod(next.getWindowDay(), WINDOW_DAYS);
+        sums[slot] += priceMinor;
+        counts[slot]++;
+        next.setWindowSum(next.getWindowSum() + priceMinor);
+        next.setWindowCount(next.getWindowCount() + 1);
+        next.setObservations(next.getObservations() + 1);
+        next.setLastPriceMinor(priceMinor);
+        if (next.getAllTimeLowMinor() == null || priceMinor < next.getAllTimeLowMinor()) {
+            next.setAllTimeLowMinor(priceMinor);
+        }
+        return next;
+    }
+
+    // how far priceMinor is below the window average, in percent; null while there is no trusted average
+    public Double dropFromAverage(PriceStats stats, long priceMinor) {
+        if (stats == null || stats.getWindowCount() < Math.max(1, minObservations)) {
+            return null;
+        }
+        double average = (double) stats.getWindowSum() / stats.getWindowCount();
+        return (average - priceMinor) * 100 / average;
+    }
+
+    public boolean isAllTimeLow(PriceStats stats, long priceMinor) {
+        return stats != null && stats.getAllTimeLowMinor() != null && priceMinor < stats.getAllTimeLowMinor();
+    }
+
+    // query clauses for the rule watches priceMinor may trigger. TARGET and LOW_SINCE_ADDED watches keep
+    // the highest price that fires them as their threshold and are found through the ThresholdIndex; the
+    // other rules only add a clause when the stats say they can fire at all
+    public JsonArray ruleClauses(long priceMinor, PriceStats stats) {
+        JsonArray any = new JsonArray();
+        if (isAllTimeLow(stats, priceMinor)) {
+            any.add(new JsonObject().put("rule", AlertRule.ALL_TIME_LOW.name()));
+        }
+        Double drop = dropFromAverage(stats, priceMinor);
+        if (drop != null && drop > 0) {
+            any.add(new JsonObject()
+                    .put("rule", AlertRule.DROP_FROM_AVERAGE.name())
+                    .put("dropPercent", new JsonObject().put("$lte", drop)));
+        }
+        return any;
+    }
+
+    // whether a watch found by threshold or rule clause fires; a LOW_SINCE_ADDED watch seen for the first time only
+    // records its baseline
+    public boolean fires(JsonObject watch, long priceMinor, PriceStats stats) {
+        String rule = watch.getString("rule");
+        return switch (rule == null ? AlertRule.TARGET : AlertRule.valueOf(rule)) {
+            case DROP_FROM_AVERAGE -> {
+                Double drop = dropFromAverage(stats, priceMinor);
+                yield drop != null && drop > 0 && drop >= watch.getDouble("dropPercent", Double.MAX_VALUE);
+            }
+            case ALL_TIME_LOW -> isAllTimeLow(stats, priceMinor);
+            case LOW_SINCE_ADDED -> {
+                Long low = watch.getLong("lowSinceAddedMinor");
+                yield low != null && priceMinor < low;
+            }
+            case TARGET -> watch.getLong("threshold", Long.MIN_VALUE) >= priceMinor;
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.pricedrop.services.runs;
+
+import com.pricedrop.Utils.Utility;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class CheckRunController {
+    private static final Logger log = LoggerFactory.getLogger(CheckRunController.class);
+    private final CheckRunCoordinator runCoordinator;
+
+    public CheckRunController(CheckRunCoordinator runCoordinator) {
+        this.runCoordinator = runCoordinator;
+    }
+
+    public void getStatus(RoutingContext context) {
+        runCoordinator.status()
+                .onSuccess(runs -> Utility.buildResponse(context, 200, Utility.createSuccessResponse(runs)))
+                .onFailure(fail -> {
+                    log.error("failed to load check runs: {}", fail.getMessage());
+                    Utility.buildResponse(context, 500, Utility.createErrorResponse("failed to load check runs"));
+                });
+    }
+
+    // body: { "scope": "shard-3" }, or no scope to cancel every active run
+    public void cancel(RoutingContext context) {
+        JsonObject body = context.body().asJsonObject();
+        String scope = body == null ? null : body.getString("scope");
+        runCoordinator.cancel(scope).onSuccess(count -> {
+            if (count == 0) {
+                Utility.buildResponse(context, 404, Utility.createErrorResponse("no active run to cancel"));
+                return;
+            }
+            Utility.buildResponse(context, 200, Utility.createSuccessResponse("cancelled " + count + " runs"));
+        }).onFailure(fail -> Utility.buildResponse(context, 500,
+                Utility.createErrorResponse("failed to cancel run, retry!!")));
+    }
+}
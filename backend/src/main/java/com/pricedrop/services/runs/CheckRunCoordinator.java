@@ -0,0 +1,435 @@
+package com.pricedrop.services.runs;
+
+import com.pricedrop.models.Product;
+import com.pricedrop.services.batchprocessor.ItemListener;
+import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.products.ProductChecker;
+import com.pricedrop.services.scrape.Platform;
+import com.pricedrop.services.scrape.ScrapperClient;
+import com.pricedrop.services.shard.ShardLeaseManager;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Allows at most one active price-check run per scope (a shard, or "all" without sharding). Run state and
+// per-platform checkpoints live in check-runs, so a run interrupted by a restart or a lost shard is resumed
+// from its checkpoint by whichever instance owns the shard next, instead of starting over.
+public class CheckRunCoordinator {
+    private static final Logger log = LoggerFactory.getLogger(CheckRunCoordinator.class);
+    private static final String RUN_COLLECTION = "check-runs";
+    private static final String ALL_SCOPE = "all";
+    private final Vertx vertx;
+    private final MongoDBClient mongoDBClient;
+    private final ScrapperClient scrapperClient;
+    private final ShardLeaseManager shardLeaseManager;
+    private final long flushIntervalMs;
+    private final long staleAfterMs;
+    private final ArrayDeque<JsonObject> queue = new ArrayDeque<>();
+    private volatile ActiveRun activeRun;
+    private boolean busy = false;
+    private final Context context;
+
+    public CheckRunCoordinator(Vertx vertx, MongoDBClient mongoDBClient, ScrapperClient scrapperClient,
+                               ShardLeaseManager shardLeaseManager) {
+        this.vertx = vertx;
+        this.mongoDBClient = mongoDBClient;
+        this.scrapperClient = scrapperClient;
+        this.shardLeaseManager = shardLeaseManager;
+        // captured up front so cancel() and requestRun() can hop onto it even before start()
+        this.context = vertx.getOrCreateContext();
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.flushIntervalMs = Long.parseLong(dotenv.get("RUN_CHECKPOINT_INTERVAL_MS", "5000"));
+        this.staleAfterMs = Long.parseLong(dotenv.get("RUN_STALE_AFTER_MS", "60000"));
+    }
+
+    public void start() {
+        mongoDBClient.createIndex("products", new JsonObject().put("shard", 1).put("productId", 1))
+                .onFailure(fail -> log.error("failed to create run index: {}", fail.getMessage()));
+        vertx.setPeriodic(flushIntervalMs, id -> {
+            flush();
+            resumeInterrupted();
+        });
+    }
+
+    // queues a run for every scope this instance is responsible for; scopes with an active run are skipped
+    public Future<List<String>> requestRun() {
+        long now = System.currentTimeMillis();
+        List<Future<JsonObject>> claims = new ArrayList<>();
+        for (String scope : ownedScopes()) {
+            JsonObject query = new JsonObject()
+                    .put("_id", scope)
+                    .put("status", new JsonObject().put("$nin", activeStatuses()));
+            JsonObject update = new JsonObject().put("$set", new JsonObject()
+                    .put("shard", shardOf(scope))
+                    .put("runId", UUID.randomUUID().toString())
+                    .put("status", RunStatus.PENDING.name())
+                    .put("owner", shardLeaseManager.getInstanceId())
+                    .put("requestedAt", now)
+                    .put("heartbeatAt", now)
+                    .put("startedAt", (Object) null)
+                    .put("finishedAt", (Object) null)
+                    .put("checkpoints", new JsonObject())
+                    .put("processed", 0)
+                    .put("failed", 0)
+                    .put("total", (Object) null)
+                    .put("resumes", 0)
+                    .put("cancelRequested", false));
+            // an active run makes the upsert collide on _id, which is how a second request is turned away
+            claims.add(mongoDBClient.findAndUpdate(query, update, RUN_COLLECTION, true)
+                    .otherwise(fail -> null));
+        }
+        return Future.all(claims).map(res -> {
+            List<String> accepted = new ArrayList<>();
+            claims.forEach(claim -> {
+                if (claim.result() != null) {
+                    accepted.add(claim.result().getString("_id"));
+                    enqueue(claim.result());
+                }
+            });
+            log.info("price check requested, queued scopes {}", accepted);
+            return accepted;
+        });
+    }
+
+    public Future<JsonArray> status() {
+        FindOptions options = new FindOptions().setSort(new JsonObject().put("_id", 1));
+        return mongoDBClient.queryRecords(new JsonObject(), options, RUN_COLLECTION).map(runs -> {
+            ActiveRun current = activeRun;
+            JsonArray result = new JsonArray();
+            long now = System.currentTimeMillis();
+            for (JsonObject run : runs) {
+                if (current != null && current.scope.equals(run.getString("_id"))) {
+                    // fresher than the last flushed checkpoint
+                    run = current.toDocument(run);
+                }
+                result.add(withProgress(run, now));
+            }
+            return result;
+        });
+    }
+
+    // a null scope cancels every active run; other instances pick the flag up on their next flush
+    public Future<Long> cancel(String scope) {
+        JsonObject query = new JsonObject().put("status", new JsonObject().put("$in", activeStatuses()));
+        if (scope != null) {
+            query.put("_id", scope);
+        }
+        JsonObject update = new JsonObject().put("$set", new JsonObject().put("cancelRequested", true));
+        return mongoDBClient.updateRecords(query, update, RUN_COLLECTION, false).onSuccess(count -> {
+            context.runOnContext(v -> {
+                ActiveRun current = activeRun;
+                if (current != null && (scope == null || current.scope.equals(scope))) {
+                    current.cancel();
+                }
+            });
+        });
+    }
+
+    public boolean isRunning(Integer shard) {
+        ActiveRun current = activeRun;
+        if (current == null) {
+            return false;
+        }
+        return ALL_SCOPE.equals(current.scope) || current.scope.equals(scopeOf(shard));
+    }
+
+    private void enqueue(JsonObject run) {
+        context.runOnContext(v -> {
+            if (isQueued(run.getString("runId"))) {
+                return;
+            }
+            queue.add(run);
+            runNext();
+        });
+    }
+
+    private boolean isQueued(String runId) {
+        ActiveRun current = activeRun;
+        if (current != null && current.runId.equals(runId)) {
+            return true;
+        }
+        return queue.stream().anyMatch(queued -> runId.equals(queued.getString("runId")));
+    }
+
+    private void runNext() {
+        if (busy || queue.isEmpty()) {
+            return;
+        }
+        busy = true;
+        JsonObject run = queue.poll();
+        String scope = run.getString("_id");
+        long now = System.currentTimeMillis();
+        JsonObject query = new JsonObject()
+                .put("_id", scope)
+                .put("runId", run.getString("runId"))
+                .put("owner", shardLeaseManager.getInstanceId())
+                .put("status", RunStatus.PENDING.name());
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("status", RunStatus.RUNNING.name())
+                .put("startedAt", run.getLong("startedAt") == null ? now : run.getLong("startedAt"))
+                .put("attemptStartedAt", now)
+                .put("attemptBaseline", run.getLong("processed", 0L) + run.getLong("failed", 0L))
+                .put("heartbeatAt", now));
+        mongoDBClient.findAndUpdate(query, update, RUN_COLLECTION, false)
+                .compose(claimed -> {
+                    if (claimed == null) {
+                        return Future.failedFuture("run " + scope + " was taken over");
+                    }
+                    if (claimed.getBoolean("cancelRequested", false)) {
+                        return finish(claimed, RunStatus.CANCELLED).mapEmpty();
+                    }
+                    return execute(claimed);
+                })
+                .onFailure(fail -> log.warn("skipping run {}: {}", scope, fail.getMessage()))
+                .onComplete(res -> context.runOnContext(v -> {
+                    activeRun = null;
+                    busy = false;
+                    runNext();
+                }));
+    }
+
+    private Future<Void> execute(JsonObject run) {
+        String scope = run.getString("_id");
+        JsonObject scopeFilter = scopeFilter(scope);
+        Future<Long> total = run.getLong("total") != null
+                ? Future.succeededFuture(run.getLong("total"))
+                : mongoDBClient.countRecords(scopeFilter, "products");
+        return total.compose(count -> {
+            ProductChecker productChecker = new ProductChecker(mongoDBClient, vertx, scrapperClient);
+            ActiveRun current = new ActiveRun(run, count, productChecker);
+            activeRun = current;
+            if (run.getInteger("resumes", 0) > 0) {
+                log.info("resuming run {} from checkpoints {}", scope, run.getJsonObject("checkpoints"));
+            }
+            return productChecker.checkProducts(scopeFilter, run.getJsonObject("checkpoints", new JsonObject()),
+                            current::listenerFor)
+                    .transform(res -> {
+                        if (current.handedOff) {
+                            return handOff(current);
+                        }
+                        RunStatus status = current.cancelled ? RunStatus.CANCELLED
+                                : res.succeeded() ? RunStatus.COMPLETED : RunStatus.FAILED;
+                        return finish(current.toDocument(run), status).mapEmpty();
+                    });
+        });
+    }
+
+    private Future<JsonObject> finish(JsonObject run, RunStatus status) {
+        JsonObject query = new JsonObject().put("_id", run.getString("_id")).put("runId", run.getString("runId"));
+        JsonObject set = new JsonObject()
+                .put("status", status.name())
+                .put("finishedAt", System.currentTimeMillis())
+                .put("total", run.getLong("total"))
+                .put("processed", run.getLong("processed", 0L))
+                .put("failed", run.getLong("failed", 0L))
+                .put("checkpoints", run.getJsonObject("checkpoints", new JsonObject()));
+        log.info("run {} finished as {}", run.getString("_id"), status);
+        return mongoDBClient.findAndUpdate(query, new JsonObject().put("$set", set), RUN_COLLECTION, false);
+    }
+
+    // the shard moved to another instance mid-run: leave the run pending so its new owner resumes it at once
+    private Future<Void> handOff(ActiveRun current) {
+        JsonObject doc = current.toDocument(new JsonObject()
+                .put("_id", current.scope)
+                .put("runId", current.runId));
+        JsonObject query = new JsonObject().put("_id", current.scope).put("runId", current.runId);
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("status", RunStatus.PENDING.name())
+                .put("heartbeatAt", 0L)
+                .put("total", doc.getLong("total"))
+                .put("processed", doc.getLong("processed"))
+                .put("failed", doc.getLong("failed"))
+                .put("checkpoints", doc.getJsonObject("checkpoints")));
+        log.info("handing run {} off at checkpoints {}", current.scope, doc.getJsonObject("checkpoints"));
+        return mongoDBClient.findAndUpdate(query, update, RUN_COLLECTION, false).mapEmpty();
+    }
+
+    private void flush() {
+        heartbeatQueued();
+        ActiveRun current = activeRun;
+        if (current == null) {
+            return;
+        }
+        if (!current.cancelled && !ownedScopes().contains(current.scope)) {
+            current.handedOff = true;
+            current.cancel();
+            return;
+        }
+        JsonObject doc = current.toDocument(new JsonObject());
+        JsonObject query = new JsonObject().put("_id", current.scope).put("runId", current.runId);
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("heartbeatAt", System.currentTimeMillis())
+                .put("total", doc.getLong("total"))
+                .put("processed", doc.getLong("processed"))
+                .put("failed", doc.getLong("failed"))
+                .put("checkpoints", doc.getJsonObject("checkpoints")));
+        mongoDBClient.findAndUpdate(query, update, RUN_COLLECTION, false).onSuccess(saved -> {
+            if (saved != null && saved.getBoolean("cancelRequested", false)) {
+                current.cancel();
+            }
+        });
+    }
+
+    // runs waiting behind the active one would otherwise look stale and be taken over while still queued
+    private void heartbeatQueued() {
+        long now = System.currentTimeMillis();
+        for (JsonObject run : queue) {
+            JsonObject query = new JsonObject()
+                    .put("_id", run.getString("_id"))
+                    .put("runId", run.getString("runId"))
+                    .put("owner", shardLeaseManager.getInstanceId())
+                    .put("status", RunStatus.PENDING.name());
+            JsonObject update = new JsonObject().put("$set", new JsonObject().put("heartbeatAt", now));
+            mongoDBClient.updateRecords(query, update, RUN_COLLECTION, false)
+                    .onFailure(fail -> log.warn("failed to heartbeat queued run {}: {}",
+                            run.getString("_id"), fail.getMessage()));
+        }
+    }
+
+    // picks up runs whose owner stopped heartbeating, including ones left pending by a hand-off
+    private void resumeInterrupted() {
+        List<String> scopes = ownedScopes();
+        if (scopes.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        JsonObject query = new JsonObject()
+                .put("_id", new JsonObject().put("$in", new JsonArray(scopes)))
+                .put("status", new JsonObject().put("$in", activeStatuses()))
+                .put("heartbeatAt", new JsonObject().put("$lt", now - staleAfterMs));
+        mongoDBClient.queryRecords(query, RUN_COLLECTION).onSuccess(runs -> runs.forEach(run -> {
+            JsonObject claim = new JsonObject()
+                    .put("_id", run.getString("_id"))
+                    .put("runId", run.getString("runId"))
+                    .put("heartbeatAt", run.getLong("heartbeatAt"));
+            JsonObject update = new JsonObject()
+                    .put("$set", new JsonObject()
+                            .put("owner", shardLeaseManager.getInstanceId())
+                            .put("status", RunStatus.PENDING.name())
+                            .put("heartbeatAt", now))
+                    .put("$inc", new JsonObject().put("resumes", 1));
+            mongoDBClient.findAndUpdate(claim, update, RUN_COLLECTION, false).onSuccess(claimed -> {
+                if (claimed != null) {
+                    log.info("taking over interrupted run {}", claimed.getString("_id"));
+                    enqueue(claimed);
+                }
+            });
+        }));
+    }
+
+    private JsonObject withProgress(JsonObject run, long now) {
+        long done = run.getLong("processed", 0L) + run.getLong("failed", 0L);
+        Long total = run.getLong("total");
+        if (total != null) {
+            run.put("remaining", Math.max(0, total - done));
+        }
+        Long attemptStartedAt = run.getLong("attemptStartedAt");
+        if (RunStatus.RUNNING.name().equals(run.getString("status")) && attemptStartedAt != null) {
+            long elapsedMs = Math.max(1, now - attemptStartedAt);
+            double throughput = (done - run.getLong("attemptBaseline", 0L)) * 1000.0 / elapsedMs;
+            run.put("throughputPerSecond", throughput);
+            if (total != null && throughput > 0) {
+                run.put("etaSeconds", (long) (Math.max(0, total - done) / throughput));
+            }
+        }
+        return run;
+    }
+
+    private List<String> ownedScopes() {
+        if (!shardLeaseManager.isEnabled()) {
+            return List.of(ALL_SCOPE);
+        }
+        return shardLeaseManager.getOwnedShards().stream().sorted().map(this::scopeOf).toList();
+    }
+
+    private String scopeOf(Integer shard) {
+        return shardLeaseManager.isEnabled() ? "shard-" + shard : ALL_SCOPE;
+    }
+
+    private Integer shardOf(String scope) {
+        return ALL_SCOPE.equals(scope) ? null : Integer.parseInt(scope.substring("shard-".length()));
+    }
+
+    private JsonObject scopeFilter(String scope) {
+        Integer shard = shardOf(scope);
+        return shard == null ? new JsonObject() : new JsonObject().put("shard", shard);
+    }
+
+    private JsonArray activeStatuses() {
+        return new JsonArray().add(RunStatus.PENDING.name()).add(RunStatus.RUNNING.name());
+    }
+
+    private static class ActiveRun {
+        private final String scope;
+        private final String runId;
+        private final long total;
+        private final ProductChecker productChecker;
+        private final AtomicLong processed;
+        private final AtomicLong failed;
+        private final Map<Platform, CheckpointTracker> checkpoints = new EnumMap<>(Platform.class);
+        private volatile boolean cancelled = false;
+        private volatile boolean handedOff = false;
+
+        ActiveRun(JsonObject run, long total, ProductChecker productChecker) {
+            this.scope = run.getString("_id");
+            this.runId = run.getString("runId");
+            this.total = total;
+            this.productChecker = productChecker;
+            this.processed = new AtomicLong(run.getLong("processed", 0L));
+            this.failed = new AtomicLong(run.getLong("failed", 0L));
+            JsonObject saved = run.getJsonObject("checkpoints", new JsonObject());
+            for (Platform platform : Platform.values()) {
+                checkpoints.put(platform, new CheckpointTracker(saved.getString(platform.name())));
+            }
+        }
+
+        ItemListener<Product> listenerFor(Platform platform) {
+            CheckpointTracker tracker = checkpoints.get(platform);
+            return new ItemListener<>() {
+                @Override
+                public void onStart(Product product) {
+                    tracker.started(product.getProductId());
+                }
+
+                @Override
+                public void onDone(Product product, boolean succeeded) {
+                    (succeeded ? processed : failed).incrementAndGet();
+                    tracker.finished(product.getProductId());
+                }
+            };
+        }
+
+        void cancel() {
+            cancelled = true;
+            productChecker.cancel();
+        }
+
+        JsonObject toDocument(JsonObject base) {
+            JsonObject saved = new JsonObject();
+            checkpoints.forEach((platform, tracker) -> {
+                if (tracker.getCheckpoint() != null) {
+                    saved.put(platform.name(), tracker.getCheckpoint());
+                }
+            });
+            return base.copy()
+                    .put("total", total)
+                    .put("processed", processed.get())
+                    .put("failed", failed.get())
+                    .put("checkpoints", saved);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pricedrop.services.runs;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+// Items start in key order but finish out of order. The checkpoint is the last key below which
+// everything has finished, so resuming with key > checkpoint never skips an unfinished item.
+public class CheckpointTracker {
+    private final ArrayDeque<String> started = new ArrayDeque<>();
+    private final Set<String> finished = new HashSet<>();
+    private String checkpoint;
+
+    public CheckpointTracker(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public synchronized void started(String key) {
+        started.add(key);
+    }
+
+    public synchronized void finished(String key) {
+        finished.add(key);
+        while (!started.isEmpty() && finished.remove(started.peek())) {
+            checkpoint = started.poll();
+        }
+    }
+
+    public synchronized String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public synchronized int pending() {
+        return started.size();
+    }
+}
@@ -0,0 +1,13 @@
+package com.pricedrop.services.runs;
+
+public enum RunStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED;
+
+    public boolean isActive() {
+        return this == PENDING || this == RUNNING;
+    }
+}
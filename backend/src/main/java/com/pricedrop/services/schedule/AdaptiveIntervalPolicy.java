@@ -0,0 +1,98 @@
+package com.pricedrop.services.schedule;
+
+import com.pricedrop.models.CheckSchedule;
+import com.pricedrop.models.Product;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Picks the next check interval from how much the price has been moving and how close it is to a watcher's target.
+public class AdaptiveIntervalPolicy {
+    private static final double VOLATILITY_SMOOTHING = 0.3;
+    private static final double JITTER = 0.1;
+    private final long baseIntervalMs;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+
+    public AdaptiveIntervalPolicy() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.baseIntervalMs = Long.parseLong(dotenv.get("CHECK_BASE_INTERVAL_MINUTES", "60")) * 60_000;
+        this.minIntervalMs = Long.parseLong(dotenv.get("CHECK_MIN_INTERVAL_MINUTES", "15")) * 60_000;
+        this.maxIntervalMs = Long.parseLong(dotenv.get("CHECK_MAX_INTERVAL_MINUTES", "360")) * 60_000;
+    }
+
+    public AdaptiveIntervalPolicy(long baseIntervalMs, long minIntervalMs, long maxIntervalMs) {
+        this.baseIntervalMs = baseIntervalMs;
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+    }
+
+    // spreads products that have never been scheduled evenly over one base interval
+    public CheckSchedule initial(long now) {
+        CheckSchedule schedule = new CheckSchedule();
+        schedule.setIntervalMs(baseIntervalMs);
+        schedule.setNextCheckAt(now + ThreadLocalRandom.current().nextLong(baseIntervalMs));
+        return schedule;
+    }
+
+    public CheckSchedule afterObservation(Product product, double price, long now) {
+        CheckSchedule previous = product.getCheckSchedule() == null ? new CheckSchedule() : product.getCheckSchedule();
+        CheckSchedule next = new CheckSchedule();
+        double volatility = previous.getVolatility();
+        if (previous.getLastPrice() != null && previous.getLastPrice() > 0) {
+            double change = Math.abs(price - previous.getLastPrice()) / previous.getLastPrice();
+            volatility = VOLATILITY_SMOOTHING * change + (1 - VOLATILITY_SMOOTHING) * volatility;
+        }
+        next.setVolatility(volatility);
+        next.setLastPrice(price);
+        next.setObservations(previous.getObservations() + 1);
+
+        double factor = volatilityFactor(volatility, next.getObservations()) * proximityFactor(product, price);
+        long interval = clamp((long) (baseIntervalMs * factor));
+        next.setIntervalMs(interval);
+        next.setNextCheckAt(now + jitter(interval));
+        return next;
+    }
+
+    // failed checks back off from the last interval instead of hammering a broken page
+    public CheckSchedule afterFailure(Product product, long now) {
+        CheckSchedule previous = product.getCheckSchedule() == null ? initial(now) : product.getCheckSchedule();
+        CheckSchedule next = new CheckSchedule();
+        next.setVolatility(previous.getVolatility());
+        next.setLastPrice(previous.getLastPrice());
+        next.setObservations(previous.getObservations());
+        next.setConsecutiveFailures(previous.getConsecutiveFailures() + 1);
+        long retryIn = clamp(minIntervalMs * (1L << Math.min(next.getConsecutiveFailures() - 1, 5)));
+        next.setIntervalMs(previous.getIntervalMs() == 0 ? baseIntervalMs : previous.getIntervalMs());
+        next.setNextCheckAt(now + jitter(retryIn));
+        return next;
+    }
+
+    private double volatilityFactor(double volatility, int observations) {
+        if (volatility > 0.02) return 0.5;
+        if (volatility > 0.005) return 0.75;
+        if (observations >= 6 && volatility < 0.001) return 2;
+        return 1;
+    }
+
+    // distance to the nearest target, relative to the current price; the highest target is the nearest one
+    private double proximityFactor(Product product, double price) {
+        if (product.getMaxTargetMinor() == null || price <= 0) {
+            return 1;
+        }
+        double nearest = Math.max((price - product.getMaxTargetMinor() / 100.0) / price, 0);
+        if (nearest <= 0.02) return 0.25;
+        if (nearest <= 0.05) return 0.5;
+        if (nearest <= 0.15) return 0.75;
+        return 1;
+    }
+
+    private long clamp(long intervalMs) {
+        return Math.max(minIntervalMs, Math.min(maxIntervalMs, intervalMs));
+    }
+
+    private long jitter(long intervalMs) {
+        long spread = (long) (intervalMs * JITTER);
+        return intervalMs + ThreadLocalRandom.current().nextLong(-spread, spread + 1);
+    }
+}
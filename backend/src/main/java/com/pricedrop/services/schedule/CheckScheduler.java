@@ -0,0 +1,168 @@
+package com.pricedrop.services.schedule;
+
+import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.CheckSchedule;
+import com.pricedrop.models.Product;
+import com.pricedrop.services.batchprocessor.ItemListener;
+import com.pricedrop.services.batchprocessor.SaveHistoryAndAlertBatchProcessor;
+import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.runs.CheckRunCoordinator;
+import com.pricedrop.services.shard.ShardLeaseManager;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Checks each product when its own nextCheckAt comes due instead of sweeping everything at once.
+// Mongo holds the durable schedule; this keeps only the next few minutes of it in a min-heap.
+public class CheckScheduler {
+    private static final Logger log = LoggerFactory.getLogger(CheckScheduler.class);
+    private static final String NEXT_CHECK_AT = "checkSchedule.nextCheckAt";
+    private static final JsonObject SCHEDULE_FIELDS = new JsonObject()
+            .put("_id", 0)
+            .put("productId", 1)
+            .put("productUrl", 1)
+            .put("maxTargetMinor", 1)
+            .put("checkSchedule", 1)
+            .put("priceStats", 1)
+            .put("shard", 1);
+    private final Vertx vertx;
+    private final MongoDBClient mongoDBClient;
+    private final SaveHistoryAndAlertBatchProcessor batchProcessor;
+    private final ShardLeaseManager shardLeaseManager;
+    private final CheckRunCoordinator runCoordinator;
+    private final ProductScheduleUpdater scheduleUpdater;
+    private final AdaptiveIntervalPolicy policy;
+    private final PriorityQueue<DueCheck> dueQueue = new PriorityQueue<>(Comparator.comparingLong(DueCheck::dueAt));
+    private final Set<String> tracked = new HashSet<>();
+    private final long lookaheadMs;
+    private final long refillIntervalMs;
+    private final long dispatchIntervalMs;
+    private final int maxQueued;
+    private boolean refilling = false;
+    private Context context;
+
+    public CheckScheduler(Vertx vertx, MongoDBClient mongoDBClient, SaveHistoryAndAlertBatchProcessor batchProcessor,
+                          ShardLeaseManager shardLeaseManager, CheckRunCoordinator runCoordinator) {
+        this.vertx = vertx;
+        this.mongoDBClient = mongoDBClient;
+        this.batchProcessor = batchProcessor;
+        this.shardLeaseManager = shardLeaseManager;
+        this.runCoordinator = runCoordinator;
+        this.scheduleUpdater = batchProcessor.getScheduleUpdater();
+        this.policy = scheduleUpdater.getPolicy();
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.lookaheadMs = Long.parseLong(dotenv.get("SCHEDULER_LOOKAHEAD_MS", "120000"));
+        this.refillIntervalMs = Long.parseLong(dotenv.get("SCHEDULER_REFILL_INTERVAL_MS", "60000"));
+        this.dispatchIntervalMs = Long.parseLong(dotenv.get("SCHEDULER_DISPATCH_INTERVAL_MS", "5000"));
+        this.maxQueued = Integer.parseInt(dotenv.get("SCHEDULER_MAX_QUEUED", "5000"));
+    }
+
+    public void start() {
+        context = vertx.getOrCreateContext();
+        mongoDBClient.createIndex("products", new JsonObject().put("shard", 1).put(NEXT_CHECK_AT, 1))
+                .onFailure(fail -> log.error("failed to create schedule index: {}", fail.getMessage()));
+        refill();
+        vertx.setPeriodic(refillIntervalMs, id -> refill());
+        vertx.setPeriodic(dispatchIntervalMs, id -> dispatch());
+        log.info("adaptive check scheduler started");
+    }
+
+    public int queuedCount() {
+        return dueQueue.size();
+    }
+
+    private void refill() {
+        int capacity = maxQueued - tracked.size();
+        if (refilling || capacity <= 0) {
+            return;
+        }
+        refilling = true;
+        long horizon = System.currentTimeMillis() + lookaheadMs;
+        // never-scheduled products have a null checkSchedule and sort first
+        JsonObject due = new JsonObject().put("$or", new JsonArray()
+                .add(new JsonObject().put(NEXT_CHECK_AT, new JsonObject().put("$lte", horizon)))
+                .add(new JsonObject().put("checkSchedule", (Object) null)));
+        JsonObject query = new JsonObject().put("$and", new JsonArray().add(due).add(shardLeaseManager.shardFilter()));
+        FindOptions options = new FindOptions()
+                .setFields(SCHEDULE_FIELDS)
+                .setSort(new JsonObject().put(NEXT_CHECK_AT, 1))
+                .setLimit(capacity);
+        mongoDBClient.queryRecords(query, options, "products")
+                .onSuccess(products -> {
+                    long now = System.currentTimeMillis();
+                    int added = 0;
+                    for (JsonObject productJson : products) {
+                        Product product = Utility.castToClass(productJson, Product.class);
+                        if (tracked.contains(product.getProductId())) {
+                            continue;
+                        }
+                        if (product.getCheckSchedule() == null) {
+                            CheckSchedule initial = policy.initial(now);
+                            product.setCheckSchedule(initial);
+                            scheduleUpdater.persist(product.getProductId(), initial);
+                            if (initial.getNextCheckAt() > horizon) {
+                                continue;
+                            }
+                        }
+                        tracked.add(product.getProductId());
+                        dueQueue.add(new DueCheck(product.getCheckSchedule().getNextCheckAt(), product));
+                        added++;
+                    }
+                    log.info("scheduler queued {} products, {} waiting", added, dueQueue.size());
+                })
+                .onFailure(fail -> log.error("failed to load due products: {}", fail.getMessage()))
+                .onComplete(res -> refilling = false);
+    }
+
+    // each tick sends what has come due without waiting for earlier dispatches; a product stays tracked, so
+    // refill won't queue it again, until its own check finishes
+    private void dispatch() {
+        long now = System.currentTimeMillis();
+        List<Product> due = new ArrayList<>();
+        while (!dueQueue.isEmpty() && dueQueue.peek().dueAt() <= now) {
+            Product product = dueQueue.poll().product();
+            // the shard may have moved to another instance since this product was queued, and a full run
+            // over the shard checks it anyway and reschedules it
+            if (shardLeaseManager.owns(product.getShard()) && !runCoordinator.isRunning(product.getShard())) {
+                due.add(product);
+            } else {
+                tracked.remove(product.getProductId());
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        // only touched on the scheduler's context, like tracked
+        Set<String> pending = new HashSet<>();
+        due.forEach(product -> pending.add(product.getProductId()));
+        batchProcessor.handleProducts(due, new ItemListener<>() {
+            @Override
+            public void onDone(Product product, boolean succeeded) {
+                context.runOnContext(v -> {
+                    if (pending.remove(product.getProductId())) {
+                        tracked.remove(product.getProductId());
+                    }
+                });
+            }
+        }).onComplete(res -> context.runOnContext(v -> {
+            // products a cancelled batch never started don't report back
+            pending.forEach(tracked::remove);
+            pending.clear();
+        }));
+    }
+
+    private record DueCheck(long dueAt, Product product) {
+    }
+}
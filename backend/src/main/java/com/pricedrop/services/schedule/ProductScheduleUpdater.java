@@ -0,0 +1,44 @@
+package com.pricedrop.services.schedule;
+
+import com.pricedrop.models.CheckSchedule;
+import com.pricedrop.models.Price;
+import com.pricedrop.models.Product;
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ProductScheduleUpdater {
+    private static final Logger log = LoggerFactory.getLogger(ProductScheduleUpdater.class);
+    private final MongoDBClient mongoDBClient;
+    private final AdaptiveIntervalPolicy policy;
+
+    public ProductScheduleUpdater(MongoDBClient mongoDBClient, AdaptiveIntervalPolicy policy) {
+        this.mongoDBClient = mongoDBClient;
+        this.policy = policy;
+    }
+
+    public AdaptiveIntervalPolicy getPolicy() {
+        return policy;
+    }
+
+    public void recordObservation(Product product, JsonObject productInfo) {
+        try {
+            double price = Price.fromProductInfo(productInfo).toMajor();
+            persist(product.getProductId(), policy.afterObservation(product, price, System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            log.error("could not reschedule {}: {}", product.getProductId(), e.getMessage());
+            recordFailure(product);
+        }
+    }
+
+    public void recordFailure(Product product) {
+        persist(product.getProductId(), policy.afterFailure(product, System.currentTimeMillis()));
+    }
+
+    public void persist(String productId, CheckSchedule schedule) {
+        log.debug("next check for {} in {} ms", productId, schedule.getNextCheckAt() - System.currentTimeMillis());
+        mongoDBClient.updateRecordAsync(new JsonObject().put("productId", productId),
+                new JsonObject().put("checkSchedule", JsonObject.mapFrom(schedule)), "products");
+    }
+}
@@ -0,0 +1,175 @@
+package com.pricedrop.services.scrape;
+
+import com.pricedrop.models.Product;
+import com.pricedrop.services.metrics.Metrics;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.RecordParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+// Collects single-product scrapes for up to lingerMs (or maxBatchSize products) and sends them as one
+// POST /scrape/products. The scraper streams one NDJSON line per product as its page completes, and each
+// line completes its caller right away instead of waiting for the whole batch.
+public class BatchScrapeClient {
+    private static final Logger log = LoggerFactory.getLogger(BatchScrapeClient.class);
+    private final Vertx vertx;
+    private final HttpClient client;
+    private final String batchUrl;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final long timeoutMs;
+    // turns one line's status and result into product info, or throws a ScrapeException
+    private final BiFunction<Product, JsonObject, JsonObject> parser;
+    private Map<String, Pending> buffer = new LinkedHashMap<>();
+    private long lingerTimer = -1;
+
+    private record Pending(Product product, Promise<JsonObject> promise, Context context) {
+        void complete(JsonObject productInfo) {
+            deliver(() -> promise.tryComplete(productInfo));
+        }
+
+        void fail(Throwable failure) {
+            deliver(() -> promise.tryFail(failure));
+        }
+
+        // lines arrive on the batch request's context; callers continue on their own
+        private void deliver(Runnable completion) {
+            if (context == null) {
+                completion.run();
+            } else {
+                context.runOnContext(v -> completion.run());
+            }
+        }
+    }
+
+    public BatchScrapeClient(Vertx vertx, HttpClient client, String batchUrl, int maxBatchSize, long lingerMs,
+                             long timeoutMs, BiFunction<Product, JsonObject, JsonObject> parser) {
+        this.vertx = vertx;
+        this.client = client;
+        this.batchUrl = batchUrl;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerMs = lingerMs;
+        this.timeoutMs = timeoutMs;
+        this.parser = parser;
+    }
+
+    public Future<JsonObject> submit(Product product) {
+        Promise<JsonObject> promise = Promise.promise();
+        Map<String, Pending> full = null;
+        synchronized (this) {
+            Pending previous = buffer.put(product.getProductId(),
+                    new Pending(product, promise, Vertx.currentContext()));
+            if (previous != null) {
+                // single flight keeps this rare; the newer caller takes the slot, the older one fails over
+                previous.fail(new ScrapeException("DUPLICATE_IN_BATCH", "product queued twice", true));
+            }
+            if (buffer.size() >= maxBatchSize) {
+                full = takeBuffer();
+            } else if (lingerTimer < 0) {
+                lingerTimer = vertx.setTimer(Math.max(1, lingerMs), id -> flush());
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return promise.future();
+    }
+
+    private void flush() {
+        Map<String, Pending> batch;
+        synchronized (this) {
+            lingerTimer = -1;
+            batch = takeBuffer();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private Map<String, Pending> takeBuffer() {
+        Map<String, Pending> batch = buffer;
+        buffer = new LinkedHashMap<>();
+        if (lingerTimer >= 0) {
+            vertx.cancelTimer(lingerTimer);
+            lingerTimer = -1;
+        }
+        return batch;
+    }
+
+    private void send(Map<String, Pending> batch) {
+        JsonArray items = new JsonArray();
+        batch.forEach((id, pending) -> items.add(new JsonObject()
+                .put("id", id)
+                .put("url", pending.product().getProductUrl())));
+        Metrics.increment("scrape.batch.requests");
+        Metrics.counter("scrape.batch.items").add(batch.size());
+        log.info("sending batch of {} products to scrapper", batch.size());
+        // the timeout is idle time between lines, so a long batch is fine as long as pages keep finishing
+        RequestOptions options = new RequestOptions()
+                .setMethod(HttpMethod.POST)
+                .setAbsoluteURI(batchUrl)
+                .setTimeout(timeoutMs)
+                .putHeader("Content-Type", "application/json")
+                .putHeader("Accept", "application/x-ndjson");
+        client.request(options)
+                .compose(request -> request.send(new JsonObject().put("items", items).toBuffer()))
+                .onSuccess(response -> consume(response, batch))
+                .onFailure(fail -> failAll(batch, new ScrapeException("BATCH_FAILED",
+                        "batch request failed: " + fail.getMessage(), true, fail)));
+    }
+
+    private void consume(HttpClientResponse response, Map<String, Pending> batch) {
+        if (response.statusCode() >= 400) {
+            log.error("scrapper rejected batch with {}", response.statusCode());
+            failAll(batch, ScrapeException.forStatus(response.statusCode()));
+            return;
+        }
+        RecordParser lines = RecordParser.newDelimited("\n", response);
+        lines.handler(line -> {
+            if (line.length() == 0) {
+                return;
+            }
+            JsonObject record;
+            try {
+                record = line.toJsonObject();
+            } catch (Exception e) {
+                log.error("skipping unreadable batch line: {}", e.getMessage());
+                return;
+            }
+            Pending pending = batch.remove(record.getString("id", ""));
+            if (pending == null) {
+                return;
+            }
+            try {
+                pending.complete(parser.apply(pending.product(), record));
+            } catch (Exception e) {
+                pending.fail(e);
+            }
+        });
+        lines.endHandler(v -> failAll(batch, new ScrapeException("MISSING_RESULT",
+                "scrapper ended the batch without a result", true)));
+        lines.exceptionHandler(err -> failAll(batch, new ScrapeException("BATCH_FAILED",
+                "batch stream failed: " + err.getMessage(), true, err)));
+    }
+
+    private void failAll(Map<String, Pending> batch, Throwable failure) {
+        List<Pending> remaining = new ArrayList<>(batch.values());
+        batch.clear();
+        remaining.forEach(pending -> pending.fail(failure));
+    }
+}
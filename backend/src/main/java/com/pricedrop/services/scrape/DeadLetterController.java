@@ -0,0 +1,76 @@
+package com.pricedrop.services.scrape;
+
+import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.Product;
+import com.pricedrop.services.batchprocessor.ItemListener;
+import com.pricedrop.services.batchprocessor.SaveHistoryAndAlertBatchProcessor;
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DeadLetterController {
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterController.class);
+    private static final int MAX_REPLAY = 500;
+    private final MongoDBClient mongoDBClient;
+    private final DeadLetterStore deadLetterStore;
+    private final SaveHistoryAndAlertBatchProcessor batchProcessor;
+
+    public DeadLetterController(MongoDBClient mongoDBClient, SaveHistoryAndAlertBatchProcessor batchProcessor) {
+        this.mongoDBClient = mongoDBClient;
+        this.deadLetterStore = batchProcessor.getDeadLetterStore();
+        this.batchProcessor = batchProcessor;
+    }
+
+    public void list(RoutingContext context) {
+        deadLetterStore.list(MAX_REPLAY)
+                .onSuccess(deadLetters -> Utility.buildResponse(context, 200,
+                        Utility.createSuccessResponse(deadLetters)))
+                .onFailure(fail -> Utility.buildResponse(context, 500,
+                        Utility.createErrorResponse("failed to load dead letters")));
+    }
+
+    // body: { "productIds": ["amazon_b0cx23v2zk"] }, or no ids to replay the oldest dead letters
+    public void replay(RoutingContext context) {
+        JsonObject body = context.body().asJsonObject();
+        List<String> productIds = new ArrayList<>();
+        if (body != null && body.getJsonArray("productIds") != null) {
+            body.getJsonArray("productIds").forEach(id -> productIds.add(String.valueOf(id)));
+        }
+        int limit = body == null ? MAX_REPLAY : Math.min(MAX_REPLAY, body.getInteger("limit", MAX_REPLAY));
+        deadLetterStore.select(productIds, limit)
+                .compose(ids -> mongoDBClient.queryRecords(new JsonObject()
+                        .put("productId", new JsonObject().put("$in", new JsonArray(ids))), "products")
+                        .map(docs -> {
+                            List<Product> products = docs.stream()
+                                    .map(doc -> Utility.castToClass(doc, Product.class))
+                                    .toList();
+                            // products deleted since they failed have nothing left to replay
+                            List<String> found = products.stream().map(Product::getProductId).toList();
+                            ids.stream().filter(id -> !found.contains(id)).forEach(deadLetterStore::remove);
+                            return products;
+                        }))
+                .onSuccess(products -> {
+                    // successful replays clear their dead letter; failures are recorded again with a higher count
+                    batchProcessor.handleProducts(products, new ItemListener<>() {
+                        @Override
+                        public void onDone(Product product, boolean succeeded) {
+                            if (succeeded) {
+                                deadLetterStore.remove(product.getProductId());
+                            }
+                        }
+                    }).onSuccess(stats -> log.info("dead letter replay finished: {}", stats));
+                    Utility.buildResponse(context, 202,
+                            Utility.createSuccessResponse("replaying " + products.size() + " products"));
+                })
+                .onFailure(fail -> {
+                    log.error("failed to replay dead letters: {}", fail.getMessage());
+                    Utility.buildResponse(context, 500, Utility.createErrorResponse("failed to replay dead letters"));
+                });
+    }
+}
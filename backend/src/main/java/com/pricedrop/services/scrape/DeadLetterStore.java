@@ -0,0 +1,68 @@
+package com.pricedrop.services.scrape;
+
+import com.pricedrop.models.Product;
+import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.retry.RetriesExhaustedException;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// One document per product whose scrape kept failing, keyed by productId so repeat failures bump a count.
+public class DeadLetterStore {
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterStore.class);
+    private static final String DEAD_LETTER_COLLECTION = "scrape-dead-letters";
+    private final MongoDBClient mongoDBClient;
+
+    public DeadLetterStore(MongoDBClient mongoDBClient) {
+        this.mongoDBClient = mongoDBClient;
+    }
+
+    public void record(Product product, Throwable failure) {
+        Throwable cause = failure instanceof RetriesExhaustedException ? failure.getCause() : failure;
+        int attempts = failure instanceof RetriesExhaustedException exhausted ? exhausted.getAttempts() : 1;
+        long now = System.currentTimeMillis();
+        JsonObject update = new JsonObject()
+                .put("$set", new JsonObject()
+                        .put("productId", product.getProductId())
+                        .put("productUrl", product.getProductUrl())
+                        .put("reason", ScrapeException.reasonOf(cause))
+                        .put("retryable", ScrapeException.isRetryable(cause))
+                        .put("lastError", String.valueOf(cause.getMessage()))
+                        .put("lastAttempts", attempts)
+                        .put("lastFailedAt", now))
+                .put("$setOnInsert", new JsonObject().put("firstFailedAt", now))
+                .put("$inc", new JsonObject().put("failureCount", 1));
+        mongoDBClient.updateRecords(new JsonObject().put("_id", product.getProductId()), update,
+                        DEAD_LETTER_COLLECTION, true)
+                .onSuccess(res -> log.warn("dead-lettered {} ({})", product.getProductId(),
+                        ScrapeException.reasonOf(cause)));
+    }
+
+    public Future<List<JsonObject>> list(int limit) {
+        FindOptions options = new FindOptions()
+                .setSort(new JsonObject().put("lastFailedAt", -1))
+                .setLimit(limit);
+        return mongoDBClient.queryRecords(new JsonObject(), options, DEAD_LETTER_COLLECTION);
+    }
+
+    // an empty productIds list selects the oldest dead letters
+    public Future<List<String>> select(List<String> productIds, int limit) {
+        JsonObject query = productIds.isEmpty() ? new JsonObject()
+                : new JsonObject().put("_id", new JsonObject().put("$in", new JsonArray(productIds)));
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("_id", 1))
+                .setSort(new JsonObject().put("lastFailedAt", 1))
+                .setLimit(limit);
+        return mongoDBClient.queryRecords(query, options, DEAD_LETTER_COLLECTION)
+                .map(docs -> docs.stream().map(doc -> doc.getString("_id")).toList());
+    }
+
+    public void remove(String productId) {
+        mongoDBClient.deleteRecordAsync(new JsonObject().put("_id", productId), DEAD_LETTER_COLLECTION);
+    }
+}
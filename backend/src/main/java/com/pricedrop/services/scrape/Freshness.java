@@ -0,0 +1,38 @@
+package com.pricedrop.services.scrape;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+// How old a cached scrape a caller accepts. Within maxAge it is served as is; up to staleWhileRevalidate
+// beyond that it is still served, but a refresh is started in the background.
+public class Freshness {
+    // scheduled checks exist to observe the current price, so they never read the cache
+    public static final Freshness FRESH = new Freshness(0, 0);
+    public static final Freshness INTERACTIVE;
+
+    static {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        INTERACTIVE = new Freshness(
+                Long.parseLong(dotenv.get("SCRAPE_CACHE_INTERACTIVE_MAX_AGE_MS", "900000")),
+                Long.parseLong(dotenv.get("SCRAPE_CACHE_INTERACTIVE_STALE_MS", "2700000")));
+    }
+
+    private final long maxAgeMs;
+    private final long staleWhileRevalidateMs;
+
+    public Freshness(long maxAgeMs, long staleWhileRevalidateMs) {
+        this.maxAgeMs = maxAgeMs;
+        this.staleWhileRevalidateMs = staleWhileRevalidateMs;
+    }
+
+    public long getMaxAgeMs() {
+        return maxAgeMs;
+    }
+
+    public long getStaleWhileRevalidateMs() {
+        return staleWhileRevalidateMs;
+    }
+
+    public boolean acceptsCache() {
+        return maxAgeMs > 0 || staleWhileRevalidateMs > 0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.pricedrop.services.scrape;
+
+// Every primary request earns `ratio` of a hedge credit, up to `maxCredits`, and each hedge spends one,
+// so hedges can never exceed that fraction of scraper traffic for long.
+public class HedgeBudget {
+    private final double ratio;
+    private final double maxCredits;
+    private double credits = 0;
+
+    public HedgeBudget(double ratio, double maxCredits) {
+        this.ratio = ratio;
+        this.maxCredits = maxCredits;
+    }
+
+    public synchronized void onRequest() {
+        credits = Math.min(maxCredits, credits + ratio);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (credits < 1) {
+            return false;
+        }
+        credits -= 1;
+        return true;
+    }
+}
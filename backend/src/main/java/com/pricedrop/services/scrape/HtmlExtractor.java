@@ -0,0 +1,133 @@
+package com.pricedrop.services.scrape;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Pulls product fields out of an HTML page while it downloads. Each field has a few candidate patterns,
+// tried in order against the text seen so far. feed() reports done once every required field is found,
+// so the caller can drop the rest of the page. Only a window of recent text is kept, so a match may not
+// be longer than WINDOW characters.
+public class HtmlExtractor {
+    private static final int WINDOW = 4096;
+    private final Map<String, List<Pattern>> fields;
+    private final List<String> required;
+    private final Map<String, String> found = new LinkedHashMap<>();
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder text = new StringBuilder();
+    private ByteBuffer leftover = ByteBuffer.allocate(0);
+    private long bytesSeen = 0;
+
+    public HtmlExtractor(Map<String, List<Pattern>> fields, List<String> required) {
+        this.fields = fields;
+        this.required = required;
+    }
+
+    public static HtmlExtractor forPlatform(Platform platform) {
+        return switch (platform) {
+            case AMAZON -> new HtmlExtractor(Map.of(
+                    // the head's meta title comes first but carries store boilerplate, so it is not a fallback
+                    "title", List.of(
+                            Pattern.compile("id=\"productTitle\"[^>]*>\\s*([^<]+?)\\s*<")),
+                    "price", List.of(
+                            Pattern.compile("class=\"a-price-whole\">([\\d,]+)<"),
+                            Pattern.compile("\"priceAmount\":([\\d.]+)[,}]")),
+                    "image", List.of(
+                            Pattern.compile("<img(?=[^>]*id=\"landingImage\")[^>]*?\\ssrc=\"([^\"]+)\""),
+                            Pattern.compile("\"hiRes\":\"(https://[^\"]+)\""))),
+                    List.of("title", "price"));
+            case FLIPKART -> new HtmlExtractor(Map.of(
+                    "title", List.of(
+                            Pattern.compile("<h1[^>]*class=\"[^\"]*_6EBuvT[^\"]*\"[^>]*>(?:\\s*<span[^>]*>)?\\s*([^<]+?)\\s*<"),
+                            Pattern.compile("<meta property=\"og:title\" content=\"([^\"]+)\"")),
+                    // the page state carries many unrelated "price" keys, so only the rendered price is trusted
+                    "price", List.of(
+                            Pattern.compile("class=\"[^\"]*CxhGGd[^\"]*\">\\x{20B9}([\\d,]+)<")),
+                    "image", List.of(
+                            Pattern.compile("<img[^>]*class=\"[^\"]*(?:jLEJ7H|_53J4C-)[^\"]*\"[^>]*?\\ssrc=\"([^\"]+)\""),
+                            Pattern.compile("<meta property=\"og:image\" content=\"([^\"]+)\""))),
+                    List.of("title", "price"));
+            case OTHER -> null;
+        };
+    }
+
+    // true once every required field is found
+    public boolean feed(Buffer chunk) {
+        bytesSeen += chunk.length();
+        ByteBuffer in = concat(leftover, ByteBuffer.wrap(chunk.getBytes()));
+        CharBuffer out = CharBuffer.allocate(in.remaining() + 1);
+        // a multi-byte character split across chunks stays in leftover until the next chunk
+        decoder.decode(in, out, false);
+        leftover = in.slice();
+        out.flip();
+        int scanFrom = Math.max(0, text.length() - WINDOW);
+        text.append(out);
+        scan(scanFrom);
+        if (text.length() > 2 * WINDOW) {
+            text.delete(0, text.length() - WINDOW);
+        }
+        return isComplete();
+    }
+
+    public boolean isComplete() {
+        return found.keySet().containsAll(required);
+    }
+
+    public long getBytesSeen() {
+        return bytesSeen;
+    }
+
+    // same shape as the scrapper's response: price without currency or grouping, title, image
+    public JsonObject result() {
+        JsonObject result = new JsonObject();
+        found.forEach(result::put);
+        return result;
+    }
+
+    private void scan(int from) {
+        fields.forEach((field, patterns) -> {
+            if (found.containsKey(field)) {
+                return;
+            }
+            for (Pattern pattern : patterns) {
+                Matcher matcher = pattern.matcher(text);
+                if (matcher.find(from)) {
+                    String value = decodeEntities(matcher.group(1).trim());
+                    found.put(field, field.equals("price") ? value.replace(",", "") : value);
+                    return;
+                }
+            }
+        });
+    }
+
+    private static ByteBuffer concat(ByteBuffer first, ByteBuffer second) {
+        if (!first.hasRemaining()) {
+            return second;
+        }
+        ByteBuffer joined = ByteBuffer.allocate(first.remaining() + second.remaining());
+        joined.put(first).put(second).flip();
+        return joined;
+    }
+
+    private static String decodeEntities(String value) {
+        return value.replace("&amp;", "&")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&#x27;", "'")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&nbsp;", " ");
+    }
+}
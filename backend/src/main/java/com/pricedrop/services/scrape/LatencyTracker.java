@@ -0,0 +1,36 @@
+package com.pricedrop.services.scrape;
+
+import java.util.Arrays;
+
+// Sliding window over the most recent latencies; percentiles are computed on a sorted copy, which is
+// cheap for a window of a few hundred samples.
+public class LatencyTracker {
+    private final long[] samples;
+    private int next = 0;
+    private int size = 0;
+
+    public LatencyTracker(int window) {
+        this.samples = new long[window];
+    }
+
+    public synchronized void record(long latencyMs) {
+        samples[next] = latencyMs;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // nearest-rank percentile, e.g. 0.95; -1 when nothing was recorded yet
+    public synchronized long percentile(double quantile) {
+        if (size == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(quantile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+}
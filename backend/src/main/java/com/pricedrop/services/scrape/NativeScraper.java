@@ -0,0 +1,93 @@
+package com.pricedrop.services.scrape;
+
+import com.pricedrop.models.Product;
+import com.pricedrop.services.metrics.Metrics;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Fetches the product page itself and extracts price and title from the static HTML while it streams in.
+// The request is reset as soon as both are found, so most of a large page is never downloaded.
+// Any failure here means "ask the browser scraper", never "the product failed".
+public class NativeScraper {
+    private static final Logger log = LoggerFactory.getLogger(NativeScraper.class);
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36";
+    private final HttpClient client;
+    private final long timeoutMs;
+    private final long maxBytes;
+
+    public NativeScraper(HttpClient client, long timeoutMs, long maxBytes) {
+        this.client = client;
+        this.timeoutMs = timeoutMs;
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean supports(Platform platform) {
+        return platform != Platform.OTHER;
+    }
+
+    public Future<JsonObject> scrape(Product product) {
+        HtmlExtractor extractor = HtmlExtractor.forPlatform(Platform.fromProductId(product.getProductId()));
+        if (extractor == null) {
+            return Future.failedFuture(new ScrapeException("NATIVE_UNSUPPORTED", "no extractor for platform", true));
+        }
+        RequestOptions options = new RequestOptions()
+                .setMethod(HttpMethod.GET)
+                .setAbsoluteURI(product.getProductUrl())
+                .setFollowRedirects(true)
+                .setTimeout(timeoutMs)
+                .putHeader("User-Agent", USER_AGENT)
+                .putHeader("Accept", "text/html,application/xhtml+xml")
+                .putHeader("Accept-Language", "en-IN,en;q=0.9");
+        long startedAt = System.currentTimeMillis();
+        return client.request(options)
+                .compose(request -> request.send().compose(response -> {
+                    if (response.statusCode() != 200) {
+                        request.reset();
+                        return Future.failedFuture(new ScrapeException("NATIVE_HTTP_" + response.statusCode(),
+                                "product page responded with " + response.statusCode(), true));
+                    }
+                    return extract(request, response, extractor);
+                }))
+                .onSuccess(productInfo -> {
+                    Metrics.increment("scrape.native.hits");
+                    log.info("extracted {} natively from {} KB in {} ms", product.getProductId(),
+                            extractor.getBytesSeen() / 1024, System.currentTimeMillis() - startedAt);
+                })
+                .onFailure(fail -> {
+                    Metrics.increment("scrape.native.misses");
+                    log.info("native extraction of {} failed, falling back: {}", product.getProductId(),
+                            fail.getMessage());
+                });
+    }
+
+    private Future<JsonObject> extract(HttpClientRequest request, HttpClientResponse response,
+                                       HtmlExtractor extractor) {
+        Promise<JsonObject> promise = Promise.promise();
+        response.handler(chunk -> {
+            if (promise.future().isComplete()) {
+                return;
+            }
+            if (extractor.feed(chunk)) {
+                promise.tryComplete(extractor.result());
+                // early exit: the rest of the page is of no use
+                request.reset();
+            } else if (extractor.getBytesSeen() > maxBytes) {
+                promise.tryFail(new ScrapeException("NATIVE_TOO_LARGE", "no price within " + maxBytes + " bytes", true));
+                request.reset();
+            }
+        });
+        response.endHandler(v -> promise.tryFail(new ScrapeException("NATIVE_NOT_FOUND",
+                "price or title missing from static HTML", true)));
+        response.exceptionHandler(err -> promise.tryFail(err));
+        return promise.future();
+    }
+}
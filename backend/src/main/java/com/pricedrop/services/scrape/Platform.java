@@ -0,0 +1,29 @@
+package com.pricedrop.services.scrape;
+
+public enum Platform {
+    AMAZON("amazon_"),
+    FLIPKART("flipkart_"),
+    OTHER("");
+
+    private final String productIdPrefix;
+
+    Platform(String productIdPrefix) {
+        this.productIdPrefix = productIdPrefix;
+    }
+
+    public String getProductIdPrefix() {
+        return productIdPrefix;
+    }
+
+    // product ids are generated as <platform>_<id> by Utility.generateProductId
+    public static Platform fromProductId(String productId) {
+        if (productId != null) {
+            for (Platform platform : values()) {
+                if (platform != OTHER && productId.startsWith(platform.productIdPrefix)) {
+                    return platform;
+                }
+            }
+        }
+        return OTHER;
+    }
+}
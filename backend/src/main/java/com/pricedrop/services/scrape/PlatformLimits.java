@@ -0,0 +1,59 @@
+package com.pricedrop.services.scrape;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.json.JsonObject;
+
+public class PlatformLimits {
+    private double ratePerSecond;
+    private int burst;
+    private int maxInFlight;
+
+    public PlatformLimits() {
+    }
+
+    public PlatformLimits(double ratePerSecond, int burst, int maxInFlight) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // e.g. SCRAPE_AMAZON_RATE_PER_SEC, SCRAPE_AMAZON_BURST, SCRAPE_AMAZON_MAX_IN_FLIGHT
+    public static PlatformLimits fromEnv(Dotenv dotenv, Platform platform) {
+        String prefix = "SCRAPE_" + platform.name() + "_";
+        return new PlatformLimits(
+                Double.parseDouble(dotenv.get(prefix + "RATE_PER_SEC", "1")),
+                Integer.parseInt(dotenv.get(prefix + "BURST", "2")),
+                Integer.parseInt(dotenv.get(prefix + "MAX_IN_FLIGHT", "2")));
+    }
+
+    public PlatformLimits merge(JsonObject update) {
+        return new PlatformLimits(
+                update.getDouble("ratePerSecond", ratePerSecond),
+                update.getInteger("burst", burst),
+                update.getInteger("maxInFlight", maxInFlight));
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public void setRatePerSecond(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+}
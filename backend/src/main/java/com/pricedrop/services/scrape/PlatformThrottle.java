@@ -0,0 +1,130 @@
+package com.pricedrop.services.scrape;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Per-platform token bucket plus in-flight cap, so one throttled retailer queues only its own requests.
+public class PlatformThrottle {
+    private static final Logger log = LoggerFactory.getLogger(PlatformThrottle.class);
+    private final Vertx vertx;
+    private final Map<Platform, Lane> lanes = new EnumMap<>(Platform.class);
+
+    public PlatformThrottle(Vertx vertx) {
+        this.vertx = vertx;
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        for (Platform platform : Platform.values()) {
+            lanes.put(platform, new Lane(platform, PlatformLimits.fromEnv(dotenv, platform)));
+        }
+    }
+
+    public Future<Void> acquire(Platform platform) {
+        Promise<Void> permit = Promise.promise();
+        Lane lane = lanes.get(platform);
+        lane.enqueue(permit);
+        lane.drain();
+        return permit.future();
+    }
+
+    public void release(Platform platform) {
+        Lane lane = lanes.get(platform);
+        lane.release();
+        lane.drain();
+    }
+
+    public PlatformLimits getLimits(Platform platform) {
+        return lanes.get(platform).limits;
+    }
+
+    public void updateLimits(Platform platform, PlatformLimits limits) {
+        Lane lane = lanes.get(platform);
+        lane.reconfigure(limits);
+        log.info("updated scrape limits for {}: {}", platform, JsonObject.mapFrom(limits));
+        lane.drain();
+    }
+
+    public JsonObject snapshot() {
+        JsonObject snapshot = new JsonObject();
+        lanes.forEach((platform, lane) -> snapshot.put(platform.name().toLowerCase(), lane.snapshot()));
+        return snapshot;
+    }
+
+    private class Lane {
+        private final Platform platform;
+        private final TokenBucket bucket;
+        private final ArrayDeque<Promise<Void>> waiting = new ArrayDeque<>();
+        private volatile PlatformLimits limits;
+        private int inFlight = 0;
+        private boolean timerPending = false;
+
+        Lane(Platform platform, PlatformLimits limits) {
+            this.platform = platform;
+            this.limits = limits;
+            this.bucket = new TokenBucket(limits.getRatePerSecond(), limits.getBurst());
+        }
+
+        synchronized void enqueue(Promise<Void> permit) {
+            waiting.add(permit);
+        }
+
+        synchronized void release() {
+            inFlight = Math.max(0, inFlight - 1);
+        }
+
+        synchronized void reconfigure(PlatformLimits newLimits) {
+            this.limits = newLimits;
+            bucket.reconfigure(newLimits.getRatePerSecond(), newLimits.getBurst());
+        }
+
+        synchronized JsonObject snapshot() {
+            return JsonObject.mapFrom(limits)
+                    .put("inFlight", inFlight)
+                    .put("waiting", waiting.size());
+        }
+
+        void drain() {
+            List<Promise<Void>> granted = new ArrayList<>();
+            long waitNanos = 0;
+            synchronized (this) {
+                while (!waiting.isEmpty() && inFlight < limits.getMaxInFlight()) {
+                    if (!bucket.tryAcquire()) {
+                        waitNanos = bucket.nanosUntilAvailable();
+                        break;
+                    }
+                    inFlight++;
+                    granted.add(waiting.poll());
+                }
+                if (waitNanos > 0 && !timerPending && waitNanos != Long.MAX_VALUE) {
+                    timerPending = true;
+                } else {
+                    waitNanos = 0;
+                }
+            }
+            if (waitNanos > 0) {
+                long delayMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                vertx.setTimer(delayMs, id -> {
+                    synchronized (this) {
+                        timerPending = false;
+                    }
+                    drain();
+                });
+            }
+            // complete outside the lock: continuations start the scrape right away
+            granted.forEach(Promise::complete);
+            if (!granted.isEmpty()) {
+                log.debug("granted {} scrape permits for {}", granted.size(), platform);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.pricedrop.services.scrape;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Recent product info per productId. Least recently used entries go first once maxEntries is reached,
+// and nothing older than ttlMs is ever returned, whatever the caller's freshness.
+public class ScrapeCache {
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public record Entry(JsonObject productInfo, long fetchedAt) {
+        public long ageMs(long now) {
+            return now - fetchedAt;
+        }
+    }
+
+    public ScrapeCache(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ScrapeCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized Entry get(String productId, long now) {
+        Entry entry = entries.get(productId);
+        if (entry != null && entry.ageMs(now) > ttlMs) {
+            entries.remove(productId);
+            return null;
+        }
+        // callers go on to mutate the product info, which must not reach the cached copy
+        return entry == null ? null : new Entry(entry.productInfo().copy(), entry.fetchedAt());
+    }
+
+    public synchronized void put(String productId, JsonObject productInfo, long now) {
+        if (maxEntries > 0) {
+            entries.put(productId, new Entry(productInfo.copy(), now));
+        }
+    }
+
+    public synchronized void invalidate(String productId) {
+        entries.remove(productId);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
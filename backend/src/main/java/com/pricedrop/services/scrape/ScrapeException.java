@@ -0,0 +1,59 @@
+package com.pricedrop.services.scrape;
+
+import io.vertx.core.http.HttpClosedException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+// Carries why a scrape failed and whether trying the same product again could help.
+public class ScrapeException extends RuntimeException {
+    private final String reason;
+    private final boolean retryable;
+
+    public ScrapeException(String reason, String message, boolean retryable) {
+        super(message);
+        this.reason = reason;
+        this.retryable = retryable;
+    }
+
+    public ScrapeException(String reason, String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+        this.retryable = retryable;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public static ScrapeException forStatus(int statusCode) {
+        // 429 and 5xx are the scraper or the retailer being overloaded; other 4xx won't change on retry
+        boolean retryable = statusCode == 429 || statusCode >= 500;
+        return new ScrapeException("HTTP_" + statusCode, "scrapper responded with " + statusCode, retryable);
+    }
+
+    public static boolean isRetryable(Throwable failure) {
+        if (failure instanceof ScrapeException scrapeException) {
+            return scrapeException.isRetryable();
+        }
+        // refused or reset connections, connections closed mid-request and timeouts; anything else, e.g. a
+        // bug surfacing as a VertxException, fails the same way on every attempt
+        return failure instanceof IOException
+                || failure instanceof HttpClosedException
+                || failure instanceof TimeoutException;
+    }
+
+    public static String reasonOf(Throwable failure) {
+        if (failure instanceof ScrapeException scrapeException) {
+            return scrapeException.getReason();
+        }
+        if (failure instanceof TimeoutException) {
+            return "TIMEOUT";
+        }
+        return failure.getClass().getSimpleName();
+    }
+}
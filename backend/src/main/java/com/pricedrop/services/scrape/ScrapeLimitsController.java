@@ -0,0 +1,38 @@
+package com.pricedrop.services.scrape;
+
+import com.pricedrop.Utils.Utility;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ScrapeLimitsController {
+    private static final Logger log = LoggerFactory.getLogger(ScrapeLimitsController.class);
+    private final PlatformThrottle throttle;
+
+    public ScrapeLimitsController(PlatformThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    public void getLimits(RoutingContext context) {
+        Utility.buildResponse(context, 200, throttle.snapshot());
+    }
+
+    // body: { "platform": "amazon", "ratePerSecond": 0.5, "burst": 1, "maxInFlight": 2 }
+    public void updateLimits(RoutingContext context) {
+        try {
+            JsonObject body = context.body().asJsonObject();
+            Platform platform = Platform.valueOf(body.getString("platform", "").toUpperCase());
+            PlatformLimits updated = throttle.getLimits(platform).merge(body);
+            if (updated.getRatePerSecond() <= 0 || updated.getBurst() < 1 || updated.getMaxInFlight() < 1) {
+                Utility.buildResponse(context, 400, Utility.createErrorResponse("limits must be positive"));
+                return;
+            }
+            throttle.updateLimits(platform, updated);
+            Utility.buildResponse(context, 200, throttle.snapshot());
+        } catch (IllegalArgumentException | ClassCastException e) {
+            log.error("invalid scrape limits update: {}", e.getMessage());
+            Utility.buildResponse(context, 400, Utility.createErrorResponse("invalid platform or limits"));
+        }
+    }
+}
@@ -1,68 +1,415 @@
 package com.pricedrop.services.scrape;
 
+import com.pricedrop.Utils.WebClientFactory;
+import com.pricedrop.models.Price;
 import com.pricedrop.models.Product;
 import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.circuitbreaker.CircuitBreakerOptions;
+import io.vertx.circuitbreaker.CircuitBreakerState;
+import io.vertx.circuitbreaker.OpenCircuitException;
+import io.vertx.circuitbreaker.TimeoutException;
+import com.pricedrop.services.metrics.Metrics;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.HttpRequest;
-import io.vertx.ext.web.client.WebClient;
-import io.vertx.ext.web.client.impl.HttpRequestImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
 public class ScrapperClient {
     private static final Logger log = LoggerFactory.getLogger(ScrapperClient.class);
     private final String scrapperUrl;
-    WebClient client;
-    public ScrapperClient(WebClient client) {
+    HttpClient client;
+    Vertx vertx;
+    private final PlatformThrottle throttle;
+    private final CircuitBreaker circuitBreaker;
+    private final long timeoutMs;
+    private final boolean hedgingEnabled;
+    private final double hedgeQuantile;
+    private final int hedgeMinSamples;
+    private final long hedgeMinDelayMs;
+    private final double hedgeControlRatio;
+    private final HedgeBudget hedgeBudget;
+    private final SingleFlight<String, JsonObject> inFlightScrapes = new SingleFlight<>();
+    private final ScrapeCache cache;
+    private final BatchScrapeClient batchClient;
+    private final NativeScraper nativeScraper;
+    // latency of winning attempts drives the hedge delay. A small control group is never hedged, so
+    // comparing it with hedged requests measures the improvement without a cancelled primary's unknown latency.
+    private final LatencyTracker attemptLatency = new LatencyTracker(500);
+    private final LatencyTracker hedgedLatency = new LatencyTracker(500);
+    private final LatencyTracker unhedgedLatency = new LatencyTracker(500);
+    public ScrapperClient(Vertx vertx, HttpClient client) {
+        this(vertx, client, null);
+    }
+
+    // pageClient fetches retailer pages for the native engine; null leaves every scrape to the scrapper
+    public ScrapperClient(Vertx vertx, HttpClient client, HttpClient pageClient) {
+        this.vertx = vertx;
         this.client = client;
+        this.throttle = new PlatformThrottle(vertx);
         Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
         String defaultUrl = dotenv.get("SCRAPPER_URL", "");
         this.scrapperUrl = System.getenv().getOrDefault("SCRAPPER_URL", defaultUrl);
+        this.timeoutMs = WebClientFactory.timeoutMs("SCRAPPER", 45000);
+        CircuitBreakerOptions options = new CircuitBreakerOptions()
+                .setMaxFailures(Integer.parseInt(dotenv.get("SCRAPPER_BREAKER_MAX_FAILURES", "5")))
+                .setResetTimeout(Long.parseLong(dotenv.get("SCRAPPER_BREAKER_RESET_MS", "30000")))
+                // hard deadline for the whole call; the request timeout below only covers silence on the wire
+                .setTimeout(timeoutMs + 1000)
+                .setFallbackOnFailure(false);
+        this.circuitBreaker = CircuitBreaker.create("scrapper", vertx, options)
+                .openHandler(v -> log.error("scrapper circuit opened, failing scrapes fast"))
+                .halfOpenHandler(v -> log.info("scrapper circuit half-open, probing"))
+                .closeHandler(v -> log.info("scrapper circuit closed"));
+        this.hedgingEnabled = Boolean.parseBoolean(dotenv.get("SCRAPE_HEDGE_ENABLED", "false"));
+        this.hedgeQuantile = Double.parseDouble(dotenv.get("SCRAPE_HEDGE_PERCENTILE", "0.95"));
+        this.hedgeMinSamples = Integer.parseInt(dotenv.get("SCRAPE_HEDGE_MIN_SAMPLES", "20"));
+        this.hedgeMinDelayMs = Long.parseLong(dotenv.get("SCRAPE_HEDGE_MIN_DELAY_MS", "1000"));
+        this.hedgeControlRatio = Double.parseDouble(dotenv.get("SCRAPE_HEDGE_CONTROL_RATIO", "0.05"));
+        this.hedgeBudget = new HedgeBudget(Double.parseDouble(dotenv.get("SCRAPE_HEDGE_MAX_RATIO", "0.1")), 5);
+        this.cache = new ScrapeCache(Integer.parseInt(dotenv.get("SCRAPE_CACHE_MAX_ENTRIES", "10000")),
+                Long.parseLong(dotenv.get("SCRAPE_CACHE_TTL_MS", "3600000")));
+        // scraper-v2 only; without a batch URL every product is its own request
+        String batchUrl = dotenv.get("SCRAPPER_BATCH_URL", "");
+        this.batchClient = batchUrl.isEmpty() ? null : new BatchScrapeClient(vertx, client, batchUrl,
+                Integer.parseInt(dotenv.get("SCRAPE_BATCH_MAX_SIZE", "20")),
+                Long.parseLong(dotenv.get("SCRAPE_BATCH_LINGER_MS", "50")),
+                timeoutMs, this::parseBatchLine);
+        boolean nativeEnabled = Boolean.parseBoolean(dotenv.get("SCRAPE_NATIVE_ENABLED", "true"));
+        this.nativeScraper = pageClient == null || !nativeEnabled ? null : new NativeScraper(pageClient,
+                WebClientFactory.timeoutMs("PAGE", 10000),
+                Long.parseLong(dotenv.get("SCRAPE_NATIVE_MAX_BYTES", "3000000")));
+        registerMetrics();
+    }
+
+    public PlatformThrottle getThrottle() {
+        return throttle;
+    }
+
+    public CircuitBreakerState getCircuitState() {
+        return circuitBreaker.state();
     }
 
     public Future<JsonObject> getScrappedProductDetails(Product product) {
-        Promise<JsonObject> promise = Promise.promise();
+        return getScrappedProductDetails(product, Freshness.FRESH);
+    }
 
-        JsonObject requestBody = new JsonObject().put("url", product.getProductUrl());
-        log.info("Sending request to scrapper for product: {}", product.getProductId());
-        client.postAbs(scrapperUrl)
-                .sendJsonObject(requestBody)
-                .onSuccess(res -> {
-                    String resString = res.bodyAsString();
-                    if (resString == null || resString.isEmpty()) {
-                        log.error("Empty response body from scrapper for product: {}", product.getProductUrl());
-                        promise.fail("Empty response body");
-                        return;
-                    }
-                    try {
-                        JsonObject productInfo = res.bodyAsJsonObject();
-
-                        if (productInfo.getString("price") == null
-                                || productInfo.getString("title") == null
-                                || productInfo.getString("price").isEmpty()
-                                || productInfo.getString("title").isEmpty()) {
-                            log.error("Invalid product info from scrapper: {}", productInfo.encodePrettily());
-                            promise.fail("Invalid response from scrapper");
-                            return;
-                        }
-
-                        JsonObject result = new JsonObject()
-                                .put("productInfo", productInfo)
-                                .put("product", JsonObject.mapFrom(product));
-                        log.info("received response from the scrapper: {}", result);
-                        promise.complete(result);
-                    } catch (Exception e) {
-                        log.error("Error parsing response from scrapper: {}", e.getMessage());
-                        promise.fail(e);
+    public Future<JsonObject> getScrappedProductDetails(Product product, Freshness freshness) {
+        return productInfo(product, freshness)
+                .map(productInfo -> new JsonObject()
+                        .put("productInfo", productInfo)
+                        .put("product", JsonObject.mapFrom(product)));
+    }
+
+    private Future<JsonObject> productInfo(Product product, Freshness freshness) {
+        if (freshness.acceptsCache()) {
+            long now = System.currentTimeMillis();
+            ScrapeCache.Entry cached = cache.get(product.getProductId(), now);
+            long age = cached == null ? Long.MAX_VALUE : cached.ageMs(now);
+            if (age <= freshness.getMaxAgeMs()) {
+                Metrics.increment("scrape.cache.hits");
+                return Future.succeededFuture(cached.productInfo());
+            }
+            if (age <= freshness.getMaxAgeMs() + freshness.getStaleWhileRevalidateMs()) {
+                Metrics.increment("scrape.cache.stale");
+                revalidate(product);
+                return Future.succeededFuture(cached.productInfo());
+            }
+            Metrics.increment("scrape.cache.misses");
+        }
+        return singleFlight(product);
+    }
+
+    private void revalidate(Product product) {
+        if (inFlightScrapes.isInFlight(product.getProductId())) {
+            return;
+        }
+        singleFlight(product).onFailure(fail -> log.warn("background refresh of {} failed: {}",
+                product.getProductId(), fail.getMessage()));
+    }
+
+    // a product already being scraped (a new watcher adding it while its scheduled check runs, say) is
+    // not scraped again; callers share the running scrape's product info
+    private Future<JsonObject> singleFlight(Product product) {
+        return inFlightScrapes.execute(product.getProductId(), () -> scrape(product)
+                .map(productInfo -> withMinorUnits(product, productInfo))
+                .onSuccess(productInfo -> cache.put(product.getProductId(), productInfo, System.currentTimeMillis())));
+    }
+
+    // the one place a scraped price is parsed; everything downstream reads priceMinor
+    private JsonObject withMinorUnits(Product product, JsonObject productInfo) {
+        try {
+            return productInfo.put(Price.MINOR_FIELD, Price.parse(productInfo.getString("price")).minorUnits());
+        } catch (IllegalArgumentException e) {
+            log.error("Unparsable price from scrapper for {}: {}", product.getProductId(), e.getMessage());
+            throw new ScrapeException("INVALID_PRICE", e.getMessage(), true, e);
+        }
+    }
+
+    private Future<JsonObject> scrape(Product product) {
+        Platform platform = Platform.fromProductId(product.getProductId());
+        boolean nativeFirst = nativeScraper != null && nativeScraper.supports(platform);
+        // checked before taking a permit, so an open circuit doesn't burn rate-limit tokens
+        if (!nativeFirst && circuitBreaker.state() == CircuitBreakerState.OPEN) {
+            return Future.failedFuture(new ScrapeException("CIRCUIT_OPEN", "scrapper circuit is open", true));
+        }
+        // one permit covers both tries: they hit the same retailer, one after the other
+        return throttle.acquire(platform)
+                .compose(permit -> (nativeFirst
+                        ? nativeScraper.scrape(product).recover(fail -> guardedScrape(product))
+                        : guardedScrape(product))
+                        .onComplete(res -> throttle.release(platform)));
+    }
+
+    // only failures that say something about the scraper's health count against the circuit; a fatal
+    // failure for one product is passed through the breaker as a completed result
+    private Future<JsonObject> guardedScrape(Product product) {
+        return circuitBreaker.<AsyncResult<JsonObject>>execute(promise -> new Race(product).run().onComplete(res -> {
+                    if (res.failed() && ScrapeException.isRetryable(res.cause())) {
+                        promise.fail(res.cause());
+                    } else {
+                        promise.complete(res);
                     }
+                }))
+                .recover(fail -> Future.failedFuture(translate(fail)))
+                .compose(res -> res.succeeded() ? Future.succeededFuture(res.result())
+                        : Future.failedFuture(res.cause()));
+    }
+
+    private Throwable translate(Throwable failure) {
+        if (failure instanceof OpenCircuitException) {
+            return new ScrapeException("CIRCUIT_OPEN", "scrapper circuit is open", true, failure);
+        }
+        if (failure instanceof TimeoutException) {
+            return new ScrapeException("TIMEOUT", "scrape exceeded " + timeoutMs + " ms", true, failure);
+        }
+        return failure;
+    }
+
+    private Future<JsonObject> send(Product product, Attempt attempt) {
+        // hedges exist to dodge a slow primary, so they always go out on their own request
+        if (batchClient != null && !attempt.hedge) {
+            return batchClient.submit(product).onFailure(err -> {
+                if (!attempt.cancelled) {
+                    log.error("Failed to fetch scrapped data: {}", err.getMessage());
+                }
+            });
+        }
+        JsonObject requestBody = new JsonObject().put("url", product.getProductUrl());
+        log.info("Sending {} request to scrapper for product: {}", attempt.hedge ? "hedged" : "primary",
+                product.getProductId());
+        RequestOptions options = new RequestOptions()
+                .setMethod(HttpMethod.POST)
+                .setAbsoluteURI(scrapperUrl)
+                .setTimeout(timeoutMs)
+                .putHeader("Content-Type", "application/json");
+        return client.request(options)
+                .compose(request -> {
+                    attempt.attach(request);
+                    return request.send(requestBody.toBuffer());
                 })
+                .compose(response -> response.body().map(body -> parse(product, response.statusCode(), body)))
                 .onFailure(err -> {
-                    log.error("Failed to fetch scrapped data: {}", err.getMessage());
-                    promise.fail(err);
+                    if (!attempt.cancelled) {
+                        log.error("Failed to fetch scrapped data: {}", err.getMessage());
+                    }
                 });
+    }
+
+    private JsonObject parse(Product product, int statusCode, Buffer body) {
+        if (statusCode >= 400) {
+            log.error("scrapper responded with {} for product: {}", statusCode, product.getProductId());
+            throw ScrapeException.forStatus(statusCode);
+        }
+        if (body == null || body.length() == 0) {
+            log.error("Empty response body from scrapper for product: {}", product.getProductUrl());
+            throw new ScrapeException("EMPTY_RESPONSE", "Empty response body", true);
+        }
+        JsonObject productInfo;
+        try {
+            productInfo = body.toJsonObject();
+        } catch (Exception e) {
+            log.error("Error parsing response from scrapper: {}", e.getMessage());
+            throw new ScrapeException("UNPARSABLE_RESPONSE", e.getMessage(), false, e);
+        }
+        return validate(product, productInfo);
+    }
+
+    // one line of a batch response: {"id": ..., "status": 200, "result": {...}}
+    private JsonObject parseBatchLine(Product product, JsonObject line) {
+        int statusCode = line.getInteger("status", 200);
+        if (statusCode >= 400) {
+            log.error("scrapper responded with {} for product: {}", statusCode, product.getProductId());
+            throw ScrapeException.forStatus(statusCode);
+        }
+        JsonObject productInfo = line.getJsonObject("result");
+        if (productInfo == null) {
+            throw new ScrapeException("EMPTY_RESPONSE", "Empty batch result", true);
+        }
+        return validate(product, productInfo);
+    }
+
+    private JsonObject validate(Product product, JsonObject productInfo) {
+        if (productInfo.getString("price") == null
+                || productInfo.getString("title") == null
+                || productInfo.getString("price").isEmpty()
+                || productInfo.getString("title").isEmpty()) {
+            log.error("Invalid product info from scrapper: {}", productInfo.encodePrettily());
+            // usually a captcha or a half-rendered page, which tends to clear up
+            throw new ScrapeException("INVALID_PRODUCT_INFO", "Invalid response from scrapper", true);
+        }
+        log.info("received response from the scrapper for {}: {}", product.getProductId(), productInfo);
+        return productInfo;
+    }
+
+    // -1 disables hedging for this request: off, or too few samples to know what "slow" means yet
+    private long hedgeDelayMs() {
+        if (attemptLatency.size() < hedgeMinSamples) {
+            return -1;
+        }
+        return Math.max(hedgeMinDelayMs, attemptLatency.percentile(hedgeQuantile));
+    }
+
+    private void registerMetrics() {
+        Metrics.gauge("scrape.circuit.state", () -> circuitBreaker.state().name());
+        Metrics.gauge("scrape.singleflight.inFlight", inFlightScrapes::inFlightCount);
+        Metrics.gauge("scrape.singleflight.collapsed", inFlightScrapes::collapsedCount);
+        Metrics.gauge("scrape.cache.size", cache::size);
+        Metrics.gauge("scrape.native.hitRate", () -> {
+            long hits = Metrics.count("scrape.native.hits");
+            long attempts = hits + Metrics.count("scrape.native.misses");
+            return attempts == 0 ? 0.0 : (double) hits / attempts;
+        });
+        Metrics.gauge("scrape.latency.hedgedP99Ms", () -> hedgedLatency.percentile(0.99));
+        Metrics.gauge("scrape.latency.unhedgedP99Ms", () -> unhedgedLatency.percentile(0.99));
+        Metrics.gauge("scrape.hedge.p99ImprovementMs", () -> hedgedLatency.size() == 0 || unhedgedLatency.size() == 0
+                ? 0 : unhedgedLatency.percentile(0.99) - hedgedLatency.percentile(0.99));
+        Metrics.gauge("scrape.hedge.rate", () -> {
+            long requests = Metrics.count("scrape.requests");
+            return requests == 0 ? 0.0 : (double) Metrics.count("scrape.hedge.sent") / requests;
+        });
+    }
+
+    // One scrape, raced against a duplicate once the primary is slower than the configured percentile.
+    // Hedges skip the platform throttle; the hedge budget is what bounds their extra load.
+    private class Race {
+        private final Product product;
+        private final long startedAt = System.currentTimeMillis();
+        private final Promise<JsonObject> result = Promise.promise();
+        private final List<Attempt> attempts = new ArrayList<>();
+        private final boolean hedgeable = hedgingEnabled
+                && ThreadLocalRandom.current().nextDouble() >= hedgeControlRatio;
+        private int outstanding = 0;
+        private long timerId = -1;
+
+        Race(Product product) {
+            this.product = product;
+        }
+
+        Future<JsonObject> run() {
+            Metrics.increment("scrape.requests");
+            hedgeBudget.onRequest();
+            launch(false);
+            long delay = hedgeable ? hedgeDelayMs() : -1;
+            if (delay > 0) {
+                synchronized (this) {
+                    if (!result.future().isComplete()) {
+                        timerId = vertx.setTimer(delay, id -> hedge());
+                    }
+                }
+            }
+            return result.future();
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (result.future().isComplete()) {
+                    return;
+                }
+            }
+            if (!hedgeBudget.tryAcquire()) {
+                Metrics.increment("scrape.hedge.denied");
+                return;
+            }
+            Metrics.increment("scrape.hedge.sent");
+            launch(true);
+        }
+
+        private void launch(boolean hedge) {
+            Attempt attempt = new Attempt(hedge);
+            synchronized (this) {
+                if (result.future().isComplete()) {
+                    return;
+                }
+                attempts.add(attempt);
+                outstanding++;
+            }
+            send(product, attempt).onComplete(res -> finished(attempt, res));
+        }
+
+        private void finished(Attempt attempt, AsyncResult<JsonObject> res) {
+            List<Attempt> losers = new ArrayList<>();
+            synchronized (this) {
+                outstanding--;
+                if (result.future().isComplete()) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                if (res.succeeded()) {
+                    result.complete(res.result());
+                    attemptLatency.record(now - attempt.startedAt);
+                    (hedgeable ? hedgedLatency : unhedgedLatency).record(now - startedAt);
+                    if (attempt.hedge) {
+                        Metrics.increment("scrape.hedge.won");
+                    }
+                } else if (outstanding == 0 || !ScrapeException.isRetryable(res.cause())) {
+                    // a fatal answer won't change on the other attempt, a transient one might
+                    result.fail(res.cause());
+                } else {
+                    return;
+                }
+                vertx.cancelTimer(timerId);
+                attempts.stream().filter(other -> other != attempt).forEach(losers::add);
+            }
+            losers.forEach(Attempt::cancel);
+        }
+    }
+
+    private static class Attempt {
+        private final boolean hedge;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile HttpClientRequest request;
+        private volatile boolean cancelled = false;
+
+        Attempt(boolean hedge) {
+            this.hedge = hedge;
+        }
+
+        void attach(HttpClientRequest request) {
+            this.request = request;
+            if (cancelled) {
+                request.reset();
+            }
+        }
 
-        return promise.future();
+        void cancel() {
+            cancelled = true;
+            HttpClientRequest current = request;
+            if (current != null) {
+                current.reset();
+            }
+        }
     }
 }
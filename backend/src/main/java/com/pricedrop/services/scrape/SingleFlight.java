@@ -0,0 +1,61 @@
+package com.pricedrop.services.scrape;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Concurrent calls for the same key share the first caller's in-flight future instead of starting their own.
+// The key is released before the result is delivered, so a call arriving afterwards starts a fresh one.
+public class SingleFlight<K, V> {
+    private final Map<K, Future<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder collapsed = new LongAdder();
+
+    public Future<V> execute(K key, Supplier<Future<V>> action) {
+        Promise<V> leader = Promise.promise();
+        Future<V> existing = inFlight.putIfAbsent(key, leader.future());
+        if (existing != null) {
+            collapsed.increment();
+            return onCallerContext(existing);
+        }
+        Future<V> future;
+        try {
+            future = action.get();
+        } catch (Exception e) {
+            future = Future.failedFuture(e);
+        }
+        future.onComplete(res -> {
+            inFlight.remove(key, leader.future());
+            leader.handle(res);
+        });
+        return leader.future();
+    }
+
+    // joiners may sit on another event loop than the leader; hand them the result on their own
+    private Future<V> onCallerContext(Future<V> shared) {
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            return shared;
+        }
+        Promise<V> promise = Promise.promise();
+        shared.onComplete(res -> context.runOnContext(v -> promise.handle(res)));
+        return promise.future();
+    }
+
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public long collapsedCount() {
+        return collapsed.sum();
+    }
+}
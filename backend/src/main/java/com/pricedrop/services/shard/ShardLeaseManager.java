@@ -0,0 +1,256 @@
+package com.pricedrop.services.shard;
+
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Splits the product keyspace into SHARD_COUNT shards by productId hash. Each instance holds time-bounded
+// lease documents for its fair share of shards, renews them while alive and picks up shards whose lease expired.
+public class ShardLeaseManager {
+    private static final Logger log = LoggerFactory.getLogger(ShardLeaseManager.class);
+    private static final String LEASE_COLLECTION = "shard-leases";
+    private static final String INSTANCE_COLLECTION = "check-instances";
+    private static final int SHARD_COUNT;
+    private static final boolean ENABLED;
+
+    static {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        SHARD_COUNT = Integer.parseInt(dotenv.get("SHARD_COUNT", "16"));
+        ENABLED = Boolean.parseBoolean(dotenv.get("SHARDING_ENABLED", "true"));
+    }
+
+    private final Vertx vertx;
+    private final MongoDBClient mongoDBClient;
+    private final String instanceId;
+    private final long leaseTtlMs;
+    private final long renewIntervalMs;
+    private volatile Set<Integer> ownedShards = Set.of();
+    private boolean renewing = false;
+    private final List<Consumer<Set<Integer>>> acquiredListeners = new CopyOnWriteArrayList<>();
+
+    public ShardLeaseManager(Vertx vertx, MongoDBClient mongoDBClient) {
+        this.vertx = vertx;
+        this.mongoDBClient = mongoDBClient;
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.instanceId = dotenv.get("HOSTNAME", "node") + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.leaseTtlMs = Long.parseLong(dotenv.get("SHARD_LEASE_TTL_MS", "30000"));
+        this.renewIntervalMs = Long.parseLong(dotenv.get("SHARD_LEASE_RENEW_MS", "10000"));
+    }
+
+    // String.hashCode is specified by the JLS, so every instance maps a productId to the same shard
+    public static int shardFor(String productId) {
+        return Math.floorMod(productId.hashCode(), SHARD_COUNT);
+    }
+
+    public static int getShardCount() {
+        return SHARD_COUNT;
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public Set<Integer> getOwnedShards() {
+        return ownedShards;
+    }
+
+    public boolean owns(Integer shard) {
+        return !ENABLED || (shard != null && ownedShards.contains(shard));
+    }
+
+    // ANDed into every product query of the check path; matches nothing while no shard is owned
+    public JsonObject shardFilter() {
+        if (!ENABLED) {
+            return new JsonObject();
+        }
+        return new JsonObject().put("shard", new JsonObject().put("$in", new JsonArray(new ArrayList<>(ownedShards))));
+    }
+
+    // called with the shards each renewal newly took over, including ones held again after a failed renewal
+    public void onAcquired(Consumer<Set<Integer>> listener) {
+        acquiredListeners.add(listener);
+    }
+
+    public Future<Void> start() {
+        if (!ENABLED) {
+            log.info("sharding disabled, this instance checks every product");
+            return Future.succeededFuture();
+        }
+        log.info("starting shard leases for instance {} over {} shards", instanceId, SHARD_COUNT);
+        return ensureLeaseDocuments()
+                .compose(v -> backfillProductShards())
+                .onComplete(res -> {
+                    renew();
+                    vertx.setPeriodic(renewIntervalMs, id -> renew());
+                });
+    }
+
+    public Future<Void> releaseAll() {
+        if (!ENABLED || ownedShards.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        JsonObject query = new JsonObject().put("owner", instanceId);
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("owner", (Object) null)
+                .put("expiresAt", 0L));
+        ownedShards = Set.of();
+        return Future.join(
+                        mongoDBClient.updateRecords(query, update, LEASE_COLLECTION, false),
+                        mongoDBClient.deleteRecord(new JsonObject().put("_id", instanceId), INSTANCE_COLLECTION))
+                .onComplete(res -> log.info("released shard leases of {}", instanceId))
+                .mapEmpty();
+    }
+
+    private Future<Void> ensureLeaseDocuments() {
+        List<Future<Long>> inserts = new ArrayList<>();
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            JsonObject query = new JsonObject().put("_id", leaseId(shard));
+            JsonObject update = new JsonObject().put("$setOnInsert", new JsonObject()
+                    .put("shard", shard)
+                    .put("owner", (Object) null)
+                    .put("expiresAt", 0L));
+            inserts.add(mongoDBClient.updateRecords(query, update, LEASE_COLLECTION, true));
+        }
+        return Future.join(inserts).mapEmpty();
+    }
+
+    // products saved before sharding existed have no shard field
+    private Future<Void> backfillProductShards() {
+        JsonObject query = new JsonObject().put("shard", new JsonObject().put("$exists", false));
+        JsonObject fields = new JsonObject().put("_id", 0).put("productId", 1);
+        return mongoDBClient.queryRecords(query, new FindOptions().setFields(fields), "products")
+                .compose(products -> {
+                    List<Future<Long>> updates = new ArrayList<>();
+                    products.forEach(product -> {
+                        String productId = product.getString("productId");
+                        updates.add(mongoDBClient.updateRecords(new JsonObject().put("productId", productId),
+                                new JsonObject().put("$set", new JsonObject().put("shard", shardFor(productId))),
+                                "products", false));
+                    });
+                    if (!updates.isEmpty()) {
+                        log.info("assigned shards to {} products", updates.size());
+                    }
+                    return Future.join(updates).mapEmpty();
+                });
+    }
+
+    private void renew() {
+        if (renewing) {
+            return;
+        }
+        renewing = true;
+        long now = System.currentTimeMillis();
+        heartbeat(now)
+                .compose(v -> mongoDBClient.countRecords(new JsonObject()
+                        .put("expiresAt", new JsonObject().put("$gt", now)), INSTANCE_COLLECTION))
+                .compose(liveInstances -> {
+                    int fairShare = (int) Math.ceil((double) SHARD_COUNT / Math.max(1, liveInstances));
+                    return renewOwned(now).compose(kept -> rebalance(kept, fairShare, now));
+                })
+                .onSuccess(owned -> {
+                    if (!owned.equals(ownedShards)) {
+                        log.info("instance {} now owns shards {}", instanceId, owned);
+                    }
+                    Set<Integer> acquired = new HashSet<>(owned);
+                    acquired.removeAll(ownedShards);
+                    ownedShards = Set.copyOf(owned);
+                    if (!acquired.isEmpty()) {
+                        acquiredListeners.forEach(listener -> listener.accept(Set.copyOf(acquired)));
+                    }
+                })
+                .onFailure(fail -> {
+                    // without a successful renewal our leases may already belong to someone else
+                    log.error("shard lease renewal failed, dropping owned shards: {}", fail.getMessage());
+                    ownedShards = Set.of();
+                })
+                .onComplete(res -> renewing = false);
+    }
+
+    private Future<Void> heartbeat(long now) {
+        JsonObject query = new JsonObject().put("_id", instanceId);
+        JsonObject update = new JsonObject().put("$set", new JsonObject().put("expiresAt", now + leaseTtlMs));
+        return mongoDBClient.updateRecords(query, update, INSTANCE_COLLECTION, true).mapEmpty();
+    }
+
+    private Future<Set<Integer>> renewOwned(long now) {
+        List<Future<JsonObject>> renewals = new ArrayList<>();
+        for (Integer shard : ownedShards) {
+            JsonObject query = new JsonObject().put("_id", leaseId(shard)).put("owner", instanceId);
+            JsonObject update = new JsonObject().put("$set", new JsonObject().put("expiresAt", now + leaseTtlMs));
+            renewals.add(mongoDBClient.findAndUpdate(query, update, LEASE_COLLECTION, false));
+        }
+        // a renewal that failed loses only its own shard; the ones that went through are still ours
+        return Future.join(renewals).transform(res -> {
+            Set<Integer> kept = new HashSet<>();
+            renewals.forEach(renewal -> {
+                if (renewal.succeeded() && renewal.result() != null) {
+                    kept.add(renewal.result().getInteger("shard"));
+                }
+            });
+            return Future.succeededFuture(kept);
+        });
+    }
+
+    private Future<Set<Integer>> rebalance(Set<Integer> kept, int fairShare, long now) {
+        if (kept.size() > fairShare) {
+            // hand surplus shards back so newly joined instances can take them
+            List<Integer> surplus = new ArrayList<>(kept).subList(fairShare, kept.size());
+            Set<Integer> remaining = new HashSet<>(kept);
+            surplus.forEach(remaining::remove);
+            JsonObject query = new JsonObject()
+                    .put("_id", new JsonObject().put("$in", new JsonArray(surplus.stream().map(this::leaseId).toList())))
+                    .put("owner", instanceId);
+            JsonObject update = new JsonObject().put("$set", new JsonObject()
+                    .put("owner", (Object) null)
+                    .put("expiresAt", 0L));
+            return mongoDBClient.updateRecords(query, update, LEASE_COLLECTION, false).map(res -> remaining);
+        }
+        if (kept.size() == fairShare) {
+            return Future.succeededFuture(kept);
+        }
+        return claim(kept, fairShare - kept.size(), now);
+    }
+
+    private Future<Set<Integer>> claim(Set<Integer> kept, int wanted, long now) {
+        JsonObject expired = new JsonObject()
+                .put("expiresAt", new JsonObject().put("$lte", now));
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("owner", instanceId)
+                .put("expiresAt", now + leaseTtlMs));
+        List<Future<JsonObject>> claims = new ArrayList<>();
+        for (int i = 0; i < wanted; i++) {
+            claims.add(mongoDBClient.findAndUpdate(expired, update, LEASE_COLLECTION, false));
+        }
+        return Future.join(claims).map(res -> {
+            Set<Integer> owned = new HashSet<>(kept);
+            claims.forEach(claimed -> {
+                if (claimed.succeeded() && claimed.result() != null) {
+                    owned.add(claimed.result().getInteger("shard"));
+                }
+            });
+            return owned;
+        }).otherwise(kept);
+    }
+
+    private String leaseId(int shard) {
+        return "shard-" + shard;
+    }
+}
@@ -1,5 +1,7 @@
 package com.pricedrop.services.user;
 
+import com.pricedrop.Utils.BlockingExecutor;
+import io.vertx.core.Future;
 import org.mindrot.jbcrypt.BCrypt;
 
 public class PasswordUtil {
@@ -9,4 +11,12 @@ public class PasswordUtil {
     public static boolean checkPassword(String unencryptedPassword, String encryptedPassword) {
         return BCrypt.checkpw(unencryptedPassword, encryptedPassword);
     }
+    // BCrypt takes tens of milliseconds by design; these keep it off the event loop
+    public static Future<String> hashPasswordAsync(String unencryptedPassword) {
+        return BlockingExecutor.execute(BlockingExecutor.Category.PASSWORD, () -> hashPassword(unencryptedPassword));
+    }
+    public static Future<Boolean> checkPasswordAsync(String unencryptedPassword, String encryptedPassword) {
+        return BlockingExecutor.execute(BlockingExecutor.Category.PASSWORD,
+                () -> checkPassword(unencryptedPassword, encryptedPassword));
+    }
 }
@@ -0,0 +1,140 @@
+package com.pricedrop.services.user;
+
+import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.User;
+import com.pricedrop.services.metrics.Metrics;
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static com.pricedrop.Utils.Constants.USER_COLLECTION;
+
+// Resolves the users to alert. Cache misses from every product checked within one window are collected
+// and fetched with a single $in query projecting only what an alert needs, instead of one query per
+// product. One instance is shared by all alert stage instances so their misses land in the same batch.
+public class UserLookup {
+    private static final Logger log = LoggerFactory.getLogger(UserLookup.class);
+    private static final JsonObject FIELDS = new JsonObject()
+            .put("_id", 0).put("userId", 1).put("email", 1).put("name", 1)
+            .put("quietHoursStart", 1).put("quietHoursEnd", 1).put("timeZone", 1);
+    private final Vertx vertx;
+    private final MongoDBClient mongoDBClient;
+    private final UserProfileCache cache;
+    private final long windowMs;
+    private final int maxBatch;
+    private Batch pending;
+
+    private static class Batch {
+        final Set<String> userIds = new LinkedHashSet<>();
+        final Map<String, User> loaded = new HashMap<>();
+        final Promise<Void> done = Promise.promise();
+        long timerId = -1;
+    }
+
+    public UserLookup(Vertx vertx, MongoDBClient mongoDBClient, UserProfileCache cache) {
+        this(vertx, mongoDBClient, cache,
+                Long.parseLong(Dotenv.configure().ignoreIfMissing().load().get("USER_LOOKUP_WINDOW_MS", "200")),
+                Integer.parseInt(Dotenv.configure().ignoreIfMissing().load().get("USER_LOOKUP_MAX_BATCH", "500")));
+    }
+
+    public UserLookup(Vertx vertx, MongoDBClient mongoDBClient, UserProfileCache cache, long windowMs, int maxBatch) {
+        this.vertx = vertx;
+        this.mongoDBClient = mongoDBClient;
+        this.cache = cache;
+        this.windowMs = windowMs;
+        this.maxBatch = maxBatch;
+    }
+
+    // users that no longer exist are left out of the result
+    public Future<List<User>> users(Collection<String> userIds) {
+        long now = System.currentTimeMillis();
+        List<User> found = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            User user = cache.get(userId, now);
+            if (user != null) {
+                found.add(user);
+            } else {
+                missing.add(userId);
+            }
+        }
+        Metrics.counter("users.cache.hit").add(found.size());
+        Metrics.counter("users.cache.miss").add(missing.size());
+        if (missing.isEmpty()) {
+            return Future.succeededFuture(found);
+        }
+        Batch batch = enqueue(missing);
+        return onCallerContext(batch.done.future()).map(v -> {
+            for (String userId : missing) {
+                User user = batch.loaded.get(userId);
+                if (user != null) {
+                    found.add(user);
+                }
+            }
+            return found;
+        });
+    }
+
+    private synchronized Batch enqueue(List<String> userIds) {
+        if (pending == null) {
+            Batch batch = new Batch();
+            pending = batch;
+            batch.timerId = vertx.setTimer(windowMs, id -> flush(batch));
+        }
+        Batch batch = pending;
+        batch.userIds.addAll(userIds);
+        if (batch.userIds.size() >= maxBatch) {
+            vertx.cancelTimer(batch.timerId);
+            flush(batch);
+        }
+        return batch;
+    }
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = null;
+        }
+        Metrics.increment("users.lookup.batches");
+        JsonObject query = new JsonObject()
+                .put("userId", new JsonObject().put("$in", new JsonArray(new ArrayList<>(batch.userIds))));
+        mongoDBClient.queryRecords(query, new FindOptions().setFields(FIELDS), USER_COLLECTION)
+                .onSuccess(records -> {
+                    long now = System.currentTimeMillis();
+                    for (JsonObject record : records) {
+                        User user = Utility.castToClass(record, User.class);
+                        batch.loaded.put(user.getUserId(), user);
+                        cache.put(user, now);
+                    }
+                    log.info("fetched {} of {} users in one batch", records.size(), batch.userIds.size());
+                    batch.done.complete();
+                })
+                .onFailure(fail -> {
+                    log.error("failed to fetch {} users: {}", batch.userIds.size(), fail.getMessage());
+                    batch.done.fail(fail);
+                });
+    }
+
+    // the batch completes on the event loop of whichever caller opened it
+    private static Future<Void> onCallerContext(Future<Void> shared) {
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            return shared;
+        }
+        Promise<Void> promise = Promise.promise();
+        shared.onComplete(res -> context.runOnContext(v -> promise.handle(res)));
+        return promise.future();
+    }
+}
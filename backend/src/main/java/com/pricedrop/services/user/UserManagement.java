@@ -6,14 +6,14 @@ import com.pricedrop.services.mongo.MongoDBClient;
 import com.pricedrop.services.user.login.LoginFactory;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.DateTimeException;
 import java.time.Instant;
-import java.util.List;
+import java.time.ZoneId;
 import java.util.UUID;
 
 import static com.pricedrop.Utils.Constants.*;
@@ -27,27 +27,6 @@ public class UserManagement {
         this.mongoClient = mongoClient;
     }
 
-    public Future<List<JsonObject>> fetchUsersFromUserIds(List<String> userIds) {
-        log.info("Fetching users for userIds: {}", userIds);
-        JsonObject query = new JsonObject().put("userId", new JsonObject().put("$in", new JsonArray(userIds)));
-        Promise<List<JsonObject>> promise = Promise.promise();
-
-        mongoClient.queryRecords(query, "users").onSuccess(res -> {
-            if (!res.isEmpty()) {
-                log.info("Users fetched successfully: {}", res);
-                promise.complete(res);
-            } else {
-                log.warn("No users found for provided userIds: {}", userIds);
-                promise.fail("no user found");
-            }
-        }).onFailure(fail -> {
-            log.error("Failed to fetch users. Error: {}", fail.getMessage());
-            promise.fail(fail.getMessage());
-        });
-
-        return promise.future();
-    }
-
     public void handleLogin(RoutingContext context) {
         log.info("Handling login request");
         LoginFactory.createLogin(context, mongoClient).handleLogin();
@@ -69,9 +48,6 @@ public class UserManagement {
             user.setProfilePicture(DEFAULT_PROFILE_PICTURE);
 
             String password = requestBody.getString("password");
-            String hashedPassword = PasswordUtil.hashPassword(password);
-
-            AuthProvider authProvider = new AuthProvider(userId, "base", user.getEmail(), user.getEmail(), now, now, hashedPassword);
 
             log.info("Checking if user already exists for email: {}", user.getEmail());
             Future<Boolean> checkForExistingUser = checkForUser(user.getEmail());
@@ -80,20 +56,28 @@ public class UserManagement {
                 if (!userExists) {
                     log.info("No existing user found. Proceeding to register new user: {}", user.getEmail());
 
-                    mongoClient.insertRecord(JsonObject.mapFrom(user), "users").onSuccess(res -> {
-                        log.info("User record inserted successfully for userId: {}", userId);
+                    PasswordUtil.hashPasswordAsync(password).onSuccess(hashedPassword -> {
+                        AuthProvider authProvider = new AuthProvider(userId, "base", user.getEmail(), user.getEmail(), now, now, hashedPassword);
+
+                        mongoClient.insertRecord(JsonObject.mapFrom(user), "users").onSuccess(res -> {
+                            log.info("User record inserted successfully for userId: {}", userId);
+
+                            mongoClient.insertRecord(JsonObject.mapFrom(authProvider), "authprovider").onSuccess(authRes -> {
+                                log.info("AuthProvider inserted successfully for userId: {}", userId);
+                                buildResponse(context, 200, createSuccessResponse("user is registered"));
+                            }).onFailure(failure -> {
+                                log.error("Failed to insert authProvider for userId: {}. Rolling back user insert.", userId);
+                                buildResponse(context, 500, "failure in registering user, please retry");
+                                mongoClient.deleteRecordAsync(new JsonObject().put("userId", userId), "users");
+                                UserProfileCache.shared().invalidate(userId);
+                            });
 
-                        mongoClient.insertRecord(JsonObject.mapFrom(authProvider), "authprovider").onSuccess(authRes -> {
-                            log.info("AuthProvider inserted successfully for userId: {}", userId);
-                            buildResponse(context, 200, createSuccessResponse("user is registered"));
-                        }).onFailure(failure -> {
-                            log.error("Failed to insert authProvider for userId: {}. Rolling back user insert.", userId);
+                        }).onFailure(fail -> {
+                            log.error("Failed to insert user record for userId: {}. Error: {}", userId, fail.getMessage());
                             buildResponse(context, 500, "failure in registering user, please retry");
-                            mongoClient.deleteRecordAsync(new JsonObject().put("userId", userId), "users");
                         });
-
                     }).onFailure(fail -> {
-                        log.error("Failed to insert user record for userId: {}. Error: {}", userId, fail.getMessage());
+                        log.error("Failed to hash password for userId: {}. Error: {}", userId, fail.getMessage());
                         buildResponse(context, 500, "failure in registering user, please retry");
                     });
 
@@ -112,6 +96,60 @@ public class UserManagement {
         }
     }
 
+    // sets the hours [quietHoursStart, quietHoursEnd) of the user's day in which alert digests are held back;
+    // sending neither hour clears them
+    public void handleQuietHours(RoutingContext context) {
+        String userId = context.get("userId");
+        JsonObject body = context.body().asJsonObject();
+        if (body == null) {
+            buildResponse(context, 400, createErrorResponse("Missing request body"));
+            return;
+        }
+        Object start = body.getValue("quietHoursStart");
+        Object end = body.getValue("quietHoursEnd");
+        String timeZone = body.getString("timeZone");
+        if ((start == null) != (end == null) || !(start == null || isHour(start) && isHour(end))) {
+            buildResponse(context, 400, createErrorResponse("quietHoursStart and quietHoursEnd must both be hours from 0 to 23"));
+            return;
+        }
+        if (timeZone != null && !isZone(timeZone)) {
+            buildResponse(context, 400, createErrorResponse("unknown timeZone " + timeZone));
+            return;
+        }
+        JsonObject set = new JsonObject().put("updatedAt", Instant.now().toString());
+        JsonObject update = new JsonObject().put("$set", set);
+        if (start == null) {
+            update.put("$unset", new JsonObject().put("quietHoursStart", "").put("quietHoursEnd", ""));
+        } else {
+            set.put("quietHoursStart", start).put("quietHoursEnd", end);
+        }
+        if (timeZone != null) {
+            set.put("timeZone", timeZone);
+        }
+        mongoClient.updateRecord(new JsonObject().put("userId", userId), update, "users").onSuccess(res -> {
+            // digests queued from now on use the new hours
+            UserProfileCache.shared().invalidate(userId);
+            log.info("Updated quiet hours of user {}", userId);
+            buildResponse(context, 200, createSuccessResponse("Quiet hours updated"));
+        }).onFailure(fail -> {
+            log.error("Failed to update quiet hours of user {}: {}", userId, fail.getMessage());
+            buildResponse(context, 500, createErrorResponse("Error updating quiet hours"));
+        });
+    }
+
+    private static boolean isHour(Object value) {
+        return value instanceof Integer hour && hour >= 0 && hour <= 23;
+    }
+
+    private static boolean isZone(String timeZone) {
+        try {
+            ZoneId.of(timeZone);
+            return true;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+
     public Future<Boolean> checkForUser(String email) {
         log.info("Checking user existence by email: {}", email);
         Promise<Boolean> promise = Promise.promise();
@@ -0,0 +1,66 @@
+package com.pricedrop.services.user;
+
+import com.pricedrop.models.User;
+import com.pricedrop.services.metrics.Metrics;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The slice of a user that alerts need (userId, email, name, quiet hours), per userId. Least recently used entries go
+// first once maxEntries is reached, and nothing older than ttlMs is returned. Anything writing a user
+// document invalidates its entry, so the TTL only bounds staleness from writes made elsewhere.
+public class UserProfileCache {
+    private static UserProfileCache shared;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private record Entry(User user, long fetchedAt) {
+    }
+
+    public UserProfileCache(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserProfileCache.this.maxEntries;
+            }
+        };
+    }
+
+    public static synchronized UserProfileCache shared() {
+        if (shared == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            shared = new UserProfileCache(
+                    Integer.parseInt(dotenv.get("USER_CACHE_MAX_ENTRIES", "10000")),
+                    Long.parseLong(dotenv.get("USER_CACHE_TTL_MS", "900000")));
+            Metrics.gauge("users.cache.size", shared::size);
+        }
+        return shared;
+    }
+
+    public synchronized User get(String userId, long now) {
+        Entry entry = entries.get(userId);
+        if (entry != null && now - entry.fetchedAt() > ttlMs) {
+            entries.remove(userId);
+            return null;
+        }
+        return entry == null ? null : entry.user();
+    }
+
+    public synchronized void put(User user, long now) {
+        if (maxEntries > 0) {
+            entries.put(user.getUserId(), new Entry(user, now));
+        }
+    }
+
+    public synchronized void invalidate(String userId) {
+        entries.remove(userId);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -3,6 +3,7 @@ package com.pricedrop.services.user.login;
 import com.pricedrop.services.jwt.JWTProvider;
 import com.pricedrop.services.mongo.MongoDBClient;
 import com.pricedrop.services.user.PasswordUtil;
+import com.pricedrop.services.user.UserProfileCache;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 
@@ -40,17 +41,20 @@ public class BaseLogin implements Login {
                             buildResponse(context, 401, "user doesnt exist");
                         } else {
                             JsonObject user = res.get(0);
-                            if (PasswordUtil.checkPassword(password, hashedPassword)) {
-                                String jwtToken = JWTProvider.generateToken(userId);
-                                JsonObject response = new JsonObject().put("token", jwtToken);
-                                response.put("user", extractRequiredUserInfo(user));
-                                buildResponse(context, 200, response);
-                                Instant now = Instant.now();
-                                JsonObject update = new JsonObject().put("updatedAt", now);
-                                JsonObject findUpdateQueryObj = new JsonObject().put("userId", userId);
-                                mongoDBClient.updateRecordAsync(findUpdateQueryObj, update, "users");
-                                mongoDBClient.updateRecordAsync(findUpdateQueryObj, update, "authprovider");
-                            } else buildResponse(context, 401, createErrorResponse("invalid user/password combination"));
+                            PasswordUtil.checkPasswordAsync(password, hashedPassword).onSuccess(matches -> {
+                                if (matches) {
+                                    String jwtToken = JWTProvider.generateToken(userId);
+                                    JsonObject response = new JsonObject().put("token", jwtToken);
+                                    response.put("user", extractRequiredUserInfo(user));
+                                    buildResponse(context, 200, response);
+                                    Instant now = Instant.now();
+                                    JsonObject update = new JsonObject().put("updatedAt", now);
+                                    JsonObject findUpdateQueryObj = new JsonObject().put("userId", userId);
+                                    mongoDBClient.updateRecordAsync(findUpdateQueryObj, update, "users");
+                                    UserProfileCache.shared().invalidate(userId);
+                                    mongoDBClient.updateRecordAsync(findUpdateQueryObj, update, "authprovider");
+                                } else buildResponse(context, 401, createErrorResponse("invalid user/password combination"));
+                            }).onFailure(checkFailure -> buildResponse(context, 500, "login failure, retry"));
                         }
                     }).onFailure(userTableFailure -> {
                         buildResponse(context, 500, "login failure, retry");
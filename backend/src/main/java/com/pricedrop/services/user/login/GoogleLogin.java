@@ -6,6 +6,7 @@ import com.pricedrop.models.AuthProvider;
 import com.pricedrop.models.User;
 import com.pricedrop.services.jwt.JWTProvider;
 import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.user.UserProfileCache;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import org.slf4j.Logger;
@@ -46,6 +47,7 @@ public class GoogleLogin implements Login {
             JsonObject findUpdateQueryObj = new JsonObject().put("userId", userId);
 
             mongoDBClient.updateRecordAsync(findUpdateQueryObj, update, "users");
+            UserProfileCache.shared().invalidate(userId);
             mongoDBClient.updateRecordAsync(findUpdateQueryObj, update, "authprovider");
             log.info("Updated 'updatedAt' field for userId: {} in users and authprovider collections", userId);
 
@@ -100,6 +102,7 @@ public class GoogleLogin implements Login {
 
                             JsonObject deleteQuery = new JsonObject().put("userId", userId);
                             mongoDBClient.deleteRecordAsync(deleteQuery, "users");
+                            UserProfileCache.shared().invalidate(userId);
                             log.info("Rolled back user insert for userId: {}", userId);
                         });
 
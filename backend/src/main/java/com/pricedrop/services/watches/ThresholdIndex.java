@@ -0,0 +1,146 @@
+package com.pricedrop.services.watches;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-product thresholds of the watches that have one, kept sorted with each watch's _id alongside, so
+// finding the watches a price triggers is a binary search in memory and the watches collection is only
+// read for the ones that fire. Entries are loaded by WatchStore on first use and patched when this
+// instance moves a threshold; watches added or removed here drop the entry, and entries are reloaded
+// after ttlMs so changes made through other instances show up.
+public class ThresholdIndex {
+    private static ThresholdIndex shared;
+    private final long ttlMs;
+    private final ConcurrentHashMap<String, Thresholds> products = new ConcurrentHashMap<>();
+
+    // immutable; every change produces a copy, so readers never lock
+    public static final class Thresholds {
+        // sorted ascending; watchIds[i] is the watch with thresholds[i]
+        private final long[] thresholds;
+        private final Object[] watchIds;
+        private final long builtAt;
+
+        Thresholds(long[] thresholds, Object[] watchIds, long builtAt) {
+            this.thresholds = thresholds;
+            this.watchIds = watchIds;
+            this.builtAt = builtAt;
+        }
+
+        // watches are {_id, threshold} documents
+        public static Thresholds of(List<JsonObject> watches, long builtAt) {
+            JsonObject[] sorted = watches.stream()
+                    .filter(watch -> watch.getLong("threshold") != null)
+                    .toArray(JsonObject[]::new);
+            Arrays.sort(sorted, (a, b) -> Long.compare(a.getLong("threshold"), b.getLong("threshold")));
+            long[] thresholds = new long[sorted.length];
+            Object[] watchIds = new Object[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                thresholds[i] = sorted[i].getLong("threshold");
+                watchIds[i] = sorted[i].getValue("_id");
+            }
+            return new Thresholds(thresholds, watchIds, builtAt);
+        }
+
+        // the watches with a threshold at or above the price
+        public List<Object> triggeredBy(long priceMinor) {
+            int from = lowerBound(thresholds, priceMinor);
+            return new ArrayList<>(Arrays.asList(watchIds).subList(from, watchIds.length));
+        }
+
+        public int size() {
+            return thresholds.length;
+        }
+
+        Thresholds with(Object watchId, long threshold) {
+            int at = lowerBound(thresholds, threshold);
+            long[] nextThresholds = new long[thresholds.length + 1];
+            Object[] nextWatchIds = new Object[watchIds.length + 1];
+            System.arraycopy(thresholds, 0, nextThresholds, 0, at);
+            System.arraycopy(watchIds, 0, nextWatchIds, 0, at);
+            nextThresholds[at] = threshold;
+            nextWatchIds[at] = watchId;
+            System.arraycopy(thresholds, at, nextThresholds, at + 1, thresholds.length - at);
+            System.arraycopy(watchIds, at, nextWatchIds, at + 1, watchIds.length - at);
+            return new Thresholds(nextThresholds, nextWatchIds, builtAt);
+        }
+
+        Thresholds without(Object watchId) {
+            for (int i = 0; i < watchIds.length; i++) {
+                if (watchIds[i].equals(watchId)) {
+                    long[] nextThresholds = new long[thresholds.length - 1];
+                    Object[] nextWatchIds = new Object[watchIds.length - 1];
+                    System.arraycopy(thresholds, 0, nextThresholds, 0, i);
+                    System.arraycopy(watchIds, 0, nextWatchIds, 0, i);
+                    System.arraycopy(thresholds, i + 1, nextThresholds, i, thresholds.length - i - 1);
+                    System.arraycopy(watchIds, i + 1, nextWatchIds, i, watchIds.length - i - 1);
+                    return new Thresholds(nextThresholds, nextWatchIds, builtAt);
+                }
+            }
+            return this;
+        }
+    }
+
+    public ThresholdIndex(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public static synchronized ThresholdIndex shared() {
+        if (shared == null) {
+            shared = new ThresholdIndex(Long.parseLong(Dotenv.configure().ignoreIfMissing().load()
+                    .get("THRESHOLD_INDEX_TTL_MS", "300000")));
+        }
+        return shared;
+    }
+
+    // null when the product's entry is missing or due for a reload
+    public Thresholds get(String productId, long now) {
+        Thresholds thresholds = productId == null ? null : products.get(productId);
+        return thresholds != null && now - thresholds.builtAt < ttlMs ? thresholds : null;
+    }
+
+    public Thresholds put(String productId, Thresholds thresholds) {
+        if (productId != null) {
+            products.put(productId, thresholds);
+        }
+        return thresholds;
+    }
+
+    // patches only entries that are already loaded; a missing one is loaded with the new thresholds later
+    public void moveTo(String productId, List<Object> watchIds, long threshold) {
+        products.computeIfPresent(productId, (id, existing) -> {
+            Thresholds next = existing;
+            for (Object watchId : watchIds) {
+                next = next.without(watchId).with(watchId, threshold);
+            }
+            return next;
+        });
+    }
+
+    public void invalidate(String productId) {
+        products.remove(productId);
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    // first index whose value is >= key
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
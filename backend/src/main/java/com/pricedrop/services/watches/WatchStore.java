@@ -0,0 +1,254 @@
+package com.pricedrop.services.watches;
+
+import com.pricedrop.Utils.Utility;
+import com.pricedrop.models.AlertRule;
+import com.pricedrop.models.Price;
+import com.pricedrop.models.Watch;
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.github.cdimascio.dotenv.Dotenv;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.IndexOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// Watchers live one per (user, product, target or rule) document instead of in an ever-growing array on
+// the product. Each target watch stores its alert threshold with the margin already applied, so finding
+// who to alert is a lookup in the ThresholdIndex loaded from the (productId, threshold) index; rule
+// watches are found by rule.
+public class WatchStore {
+    private static final Logger log = LoggerFactory.getLogger(WatchStore.class);
+    public static final String COLLECTION = "watches";
+    private final MongoDBClient mongoDBClient;
+    private final int marginPercent;
+    private final ThresholdIndex thresholdIndex;
+
+    public WatchStore(MongoDBClient mongoDBClient) {
+        this(mongoDBClient, Integer.parseInt(Dotenv.configure().ignoreIfMissing().load()
+                .get("ALERT_MARGIN_PERCENT", "5")));
+    }
+
+    public WatchStore(MongoDBClient mongoDBClient, int marginPercent) {
+        this(mongoDBClient, marginPercent, ThresholdIndex.shared());
+    }
+
+    public WatchStore(MongoDBClient mongoDBClient, int marginPercent, ThresholdIndex thresholdIndex) {
+        this.mongoDBClient = mongoDBClient;
+        this.marginPercent = marginPercent;
+        this.thresholdIndex = thresholdIndex;
+    }
+
+    public Future<Void> ensureIndexes() {
+        return Future.all(
+                mongoDBClient.createIndex(COLLECTION,
+                        new JsonObject().put("productId", 1).put("threshold", 1).put("userId", 1)),
+                mongoDBClient.createIndex(COLLECTION,
+                        new JsonObject().put("productId", 1).put("rule", 1).put("dropPercent", 1)),
+                mongoDBClient.createIndex(COLLECTION,
+                        new JsonObject().put("userId", 1).put("productId", 1).put("rule", 1)
+                                .put("targetPrice", 1).put("dropPercent", 1),
+                        new IndexOptions().unique(true))
+                        .compose(v -> dropLegacyKeyIndexes())
+        ).mapEmpty();
+    }
+
+    // the key index from before rules would let a user keep only one rule watch per product, and keying
+    // on targetMinor would let a user keep only one unparsable target per product
+    private Future<Void> dropLegacyKeyIndexes() {
+        return Future.join(
+                dropIndex("userId_1_productId_1_targetMinor_1"),
+                dropIndex("userId_1_productId_1_rule_1_targetMinor_1_dropPercent_1")
+        ).mapEmpty();
+    }
+
+    private Future<Void> dropIndex(String name) {
+        return mongoDBClient.dropIndex(COLLECTION, name)
+                .onFailure(fail -> log.debug("legacy watch key index {} not dropped: {}", name, fail.getMessage()))
+                .otherwiseEmpty();
+    }
+
+    // the highest price that still alerts: price * 100 <= target * (100 + margin)
+    public long threshold(long targetMinor) {
+        return Math.floorDiv(targetMinor * (100 + marginPercent), 100);
+    }
+
+    // completes with false when the user already watches the product at this target
+    public Future<Boolean> add(String userId, String productId, Price target) {
+        Watch watch = new Watch(userId, productId, target, threshold(target.minorUnits()), System.currentTimeMillis());
+        return insertIfAbsent(watch)
+                .compose(inserted -> !inserted ? Future.succeededFuture(false)
+                        : raiseMaxTarget(productId, target.minorUnits()).map(true));
+    }
+
+    // completes with false when the user already watches the product with this rule; a LOW_SINCE_ADDED
+    // watch matches any price until its first one becomes its baseline
+    public Future<Boolean> addRule(String userId, String productId, AlertRule rule, Double dropPercent) {
+        long threshold = rule == AlertRule.LOW_SINCE_ADDED ? Long.MAX_VALUE : 0;
+        return insertIfAbsent(new Watch(userId, productId, rule, dropPercent, threshold, System.currentTimeMillis()));
+    }
+
+    // leaves maxTargetMinor to the caller
+    public Future<Boolean> insertIfAbsent(Watch watch) {
+        return mongoDBClient.updateRecords(key(watch),
+                        new JsonObject().put("$setOnInsert", JsonObject.mapFrom(watch)), COLLECTION, true)
+                .map(inserted -> {
+                    if (inserted > 0) {
+                        thresholdIndex.invalidate(watch.getProductId());
+                    }
+                    return inserted > 0;
+                });
+    }
+
+    // targets are matched by their text as well as their value, so a target saved as "1,000" is found by
+    // "1000" and vice versa; completes with false when there was nothing to remove
+    public Future<Boolean> remove(String userId, String productId, String targetPrice) {
+        JsonArray matches = new JsonArray().add(new JsonObject().put("targetPrice", targetPrice));
+        try {
+            matches.add(new JsonObject().put("targetMinor", Price.parse(targetPrice).minorUnits()));
+        } catch (IllegalArgumentException e) {
+            // only the text can match
+        }
+        JsonObject query = new JsonObject()
+                .put("userId", userId)
+                .put("productId", productId)
+                .put("$or", matches);
+        return mongoDBClient.deleteRecord(query, COLLECTION)
+                .onSuccess(deleted -> thresholdIndex.invalidate(productId))
+                .compose(deleted -> refreshMaxTarget(productId).map(true))
+                .recover(fail -> fail.getMessage() != null && fail.getMessage().contains("No matching document")
+                        ? Future.succeededFuture(false) : Future.failedFuture(fail));
+    }
+
+    // completes with false when there was nothing to remove
+    public Future<Boolean> removeRule(String userId, String productId, AlertRule rule, Double dropPercent) {
+        return mongoDBClient.deleteRecord(ruleKey(userId, productId, rule, dropPercent), COLLECTION)
+                .onSuccess(deleted -> thresholdIndex.invalidate(productId))
+                .map(true)
+                .recover(fail -> fail.getMessage() != null && fail.getMessage().contains("No matching document")
+                        ? Future.succeededFuture(false) : Future.failedFuture(fail));
+    }
+
+    // the watches whose threshold the price reaches, plus those matching any of the RuleEngine's rule
+    // clauses, with what their rules and alert state need; nothing is read when neither finds a watch
+    public Future<List<JsonObject>> triggered(String productId, long priceMinor, JsonArray ruleClauses) {
+        return thresholds(productId).compose(thresholds -> {
+            JsonArray any = ruleClauses.copy();
+            List<Object> watchIds = thresholds.triggeredBy(priceMinor);
+            if (!watchIds.isEmpty()) {
+                any.add(new JsonObject().put("_id", new JsonObject().put("$in", new JsonArray(watchIds))));
+            }
+            if (any.isEmpty()) {
+                return Future.succeededFuture(List.of());
+            }
+            JsonObject query = new JsonObject().put("productId", productId);
+            if (any.size() == 1) {
+                query.mergeIn(any.getJsonObject(0));
+            } else {
+                query.put("$or", any);
+            }
+            FindOptions options = new FindOptions().setFields(new JsonObject()
+                    .put("userId", 1).put("rule", 1).put("dropPercent", 1).put("threshold", 1)
+                    .put("lowSinceAddedMinor", 1).put("alertedPriceMinor", 1).put("alertedAt", 1));
+            return mongoDBClient.queryRecords(query, options, COLLECTION);
+        });
+    }
+
+    private Future<ThresholdIndex.Thresholds> thresholds(String productId) {
+        long now = System.currentTimeMillis();
+        ThresholdIndex.Thresholds cached = thresholdIndex.get(productId, now);
+        if (cached != null) {
+            return Future.succeededFuture(cached);
+        }
+        JsonObject query = new JsonObject()
+                .put("productId", productId)
+                .put("threshold", new JsonObject().put("$exists", true));
+        FindOptions options = new FindOptions().setFields(new JsonObject().put("_id", 1).put("threshold", 1));
+        return mongoDBClient.queryRecords(query, options, COLLECTION)
+                .map(watches -> thresholdIndex.put(productId, ThresholdIndex.Thresholds.of(watches, now)));
+    }
+
+    // moves LOW_SINCE_ADDED watches down to a new lowest price; a failure only means the same low may
+    // match again, which the alert cooldown absorbs
+    public Future<Void> recordLow(String productId, List<Object> ids, long priceMinor) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        JsonObject update = new JsonObject().put("$set", new JsonObject()
+                .put("lowSinceAddedMinor", priceMinor).put("threshold", priceMinor - 1));
+        return mongoDBClient.updateRecords(new JsonObject().put("_id", new JsonObject().put("$in", new JsonArray(ids))),
+                        update, COLLECTION, false)
+                .onSuccess(moved -> thresholdIndex.moveTo(productId, ids, priceMinor - 1))
+                .onFailure(fail -> log.error("could not record low of {}: {}", productId, fail.getMessage()))
+                .<Void>mapEmpty()
+                .otherwiseEmpty();
+    }
+
+    public Future<List<Watch>> forUser(String userId) {
+        return mongoDBClient.queryRecords(new JsonObject().put("userId", userId), COLLECTION)
+                .map(watches -> watches.stream().map(watch -> Utility.castToClass(watch, Watch.class)).toList());
+    }
+
+    public Future<Long> countForProduct(String productId) {
+        return mongoDBClient.countRecords(new JsonObject().put("productId", productId), COLLECTION);
+    }
+
+    // maxTargetMinor only tunes scheduling, so failing to keep it current never fails the watch change
+    private Future<Void> raiseMaxTarget(String productId, long targetMinor) {
+        return mongoDBClient.updateRecords(new JsonObject().put("productId", productId),
+                        new JsonObject().put("$max", new JsonObject().put("maxTargetMinor", targetMinor)),
+                        "products", false)
+                .onFailure(fail -> log.error("could not raise max target of {}: {}", productId, fail.getMessage()))
+                .<Void>mapEmpty()
+                .otherwiseEmpty();
+    }
+
+    // the highest remaining target, read off the end of the (productId, threshold) index past any rule
+    // watches that keep a threshold
+    private Future<Void> refreshMaxTarget(String productId) {
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("_id", 0).put("targetMinor", 1))
+                .setSort(new JsonObject().put("productId", 1).put("threshold", -1))
+                .setLimit(1);
+        JsonObject query = new JsonObject()
+                .put("productId", productId)
+                .put("targetMinor", new JsonObject().put("$exists", true));
+        return mongoDBClient.queryRecords(query, options, COLLECTION)
+                .compose(top -> {
+                    JsonObject update = top.isEmpty()
+                            ? new JsonObject().put("$unset", new JsonObject().put("maxTargetMinor", ""))
+                            : new JsonObject().put("$set", new JsonObject()
+                                    .put("maxTargetMinor", top.getFirst().getLong("targetMinor")));
+                    return mongoDBClient.updateRecords(new JsonObject().put("productId", productId), update,
+                            "products", false);
+                })
+                .onFailure(fail -> log.error("could not refresh max target of {}: {}", productId, fail.getMessage()))
+                .<Void>mapEmpty()
+                .otherwiseEmpty();
+    }
+
+    private static JsonObject key(Watch watch) {
+        if (watch.getRule() != null) {
+            return ruleKey(watch.getUserId(), watch.getProductId(), watch.getRule(), watch.getDropPercent());
+        }
+        // parsed targets carry canonical text, so equal text means an equal target
+        return new JsonObject()
+                .put("userId", watch.getUserId())
+                .put("productId", watch.getProductId())
+                .put("targetPrice", watch.getTargetPrice());
+    }
+
+    private static JsonObject ruleKey(String userId, String productId, AlertRule rule, Double dropPercent) {
+        JsonObject key = new JsonObject()
+                .put("userId", userId)
+                .put("productId", productId)
+                .put("rule", rule.name());
+        if (dropPercent != null) {
+            key.put("dropPercent", dropPercent);
+        }
+        return key;
+    }
+}
@@ -1,19 +1,16 @@
 package com.pricedrop.verticles;
 
-import com.pricedrop.services.products.ProductChecker;
+import com.pricedrop.services.schedule.CheckScheduler;
 import io.vertx.core.AbstractVerticle;
 
 public class PriceCheckSchedulerVerticle extends AbstractVerticle {
-    ProductChecker productChecker;
-    public PriceCheckSchedulerVerticle(ProductChecker productChecker) {
-        this.productChecker = productChecker;
+    CheckScheduler checkScheduler;
+    public PriceCheckSchedulerVerticle(CheckScheduler checkScheduler) {
+        this.checkScheduler = checkScheduler;
     }
     @Override
     public void start() {
-        long interval = 60 * 60 *  1000; // will run every 1 hour
-        vertx.setPeriodic(interval, id -> {
-           productChecker.checkAllProducts();
-        });
-
+        // products are checked as their own nextCheckAt comes due, instead of an hourly sweep
+        checkScheduler.start();
     }
 }
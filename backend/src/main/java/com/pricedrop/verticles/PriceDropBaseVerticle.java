@@ -1,17 +1,41 @@
 package com.pricedrop.verticles;
 
+import com.pricedrop.Utils.PythonWorkerPool;
+import com.pricedrop.Utils.WebClientFactory;
+import com.pricedrop.Utils.WebDriverPool;
+import com.pricedrop.middlewares.AdminHandler;
 import com.pricedrop.middlewares.AuthHandler;
+import com.pricedrop.services.alerts.EmailOutbox;
+import com.pricedrop.services.alerts.MailService;
+import com.pricedrop.services.alerts.NotificationAggregator;
+import com.pricedrop.services.alerts.OutboxSender;
+import com.pricedrop.services.alerts.PendingNotifications;
+import com.pricedrop.services.batchprocessor.SaveHistoryAndAlertBatchProcessor;
 import com.pricedrop.services.leetcode.*;
 import com.pricedrop.services.products.DeleteProduct;
 import com.pricedrop.services.products.GetPriceHistory;
 import com.pricedrop.services.products.GetProducts;
 import com.pricedrop.services.products.SaveProduct;
+import com.pricedrop.services.metrics.MetricsController;
+import com.pricedrop.services.migration.PriceMinorUnitsMigration;
+import com.pricedrop.services.migration.WatchesMigration;
 import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.pipeline.CheckPipeline;
+import com.pricedrop.services.runs.CheckRunController;
+import com.pricedrop.services.runs.CheckRunCoordinator;
+import com.pricedrop.services.schedule.CheckScheduler;
 import com.pricedrop.services.schedule.Schedule;
+import com.pricedrop.services.scrape.DeadLetterController;
+import com.pricedrop.services.scrape.ScrapeLimitsController;
+import com.pricedrop.services.scrape.ScrapperClient;
+import com.pricedrop.services.shard.ShardLeaseManager;
 import com.pricedrop.services.user.UserManagement;
+import com.pricedrop.services.watches.WatchStore;
 import io.github.cdimascio.dotenv.Dotenv;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
@@ -26,7 +50,14 @@ import java.io.InputStream;
 public class PriceDropBaseVerticle extends AbstractVerticle {
     private static final Logger log = LoggerFactory.getLogger(PriceDropBaseVerticle.class);
     private MongoDBClient mongoDBClient;
-    private WebClient client;
+    private WebClient mailClient;
+    private OutboxSender outboxSender;
+    private NotificationAggregator notificationAggregator;
+    private HttpClient scrapperHttpClient;
+    private HttpClient pageHttpClient;
+    private WebClient leetcodeClient;
+    private ShardLeaseManager shardLeaseManager;
+    private CheckRunCoordinator runCoordinator;
 
     @Override
     public void start(Promise<Void> startFuture) {
@@ -41,7 +72,26 @@ public class PriceDropBaseVerticle extends AbstractVerticle {
             }).onSuccess(mongoConfig -> {
                 mongoDBClient = new MongoDBClient(vertx, mongoConfig);
                 mongoDBClient.pingConnection().onSuccess(res -> {
-                    this.client = WebClient.create(vertx);
+                    Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+                    WatchStore watchStore = new WatchStore(mongoDBClient);
+                    // runs in the background: until it is done, readers fall back to parsing price text
+                    Future<Void> priceMigration = Boolean.parseBoolean(dotenv.get("PRICE_MIGRATION_ENABLED", "true"))
+                            ? new PriceMinorUnitsMigration(mongoDBClient).run() : Future.succeededFuture();
+                    // watchers embedded in products are only alerted once they are moved to the watches collection
+                    Future<Void> watchIndexes = watchStore.ensureIndexes()
+                            .onFailure(fail -> log.error("could not create watches indexes: {}", fail.getMessage()));
+                    Future.join(watchIndexes, priceMigration).onComplete(done -> {
+                        if (Boolean.parseBoolean(dotenv.get("WATCHES_MIGRATION_ENABLED", "true"))) {
+                            new WatchesMigration(mongoDBClient, watchStore).run();
+                        }
+                    });
+                    // separate pools, so a hanging scraper can't starve mail or LeetCode calls
+                    this.mailClient = WebClientFactory.create(vertx, "MAIL", 5);
+                    this.scrapperHttpClient = WebClientFactory.createHttpClient(vertx, "SCRAPPER", 10);
+                    // retailer pages are large, so ask for them compressed
+                    this.pageHttpClient = vertx.createHttpClient(WebClientFactory.options("PAGE", 20)
+                            .setTryUseCompression(true));
+                    this.leetcodeClient = WebClientFactory.create(vertx, "LEETCODE", 10);
                     Router router = Router.router(vertx);
                     router.route().handler(
                             CorsHandler.create()
@@ -53,13 +103,33 @@ public class PriceDropBaseVerticle extends AbstractVerticle {
                     );
                     router.route().handler(BodyHandler.create());
                     UserManagement userManagement = new UserManagement(mongoDBClient);
-                    SaveProduct saveProduct = new SaveProduct(mongoDBClient, client, vertx);
+                    ScrapperClient scrapperClient = new ScrapperClient(vertx, scrapperHttpClient, pageHttpClient);
+                    shardLeaseManager = new ShardLeaseManager(vertx, mongoDBClient);
+                    runCoordinator = new CheckRunCoordinator(vertx, mongoDBClient, scrapperClient,
+                            shardLeaseManager);
+                    CheckRunController checkRunController = new CheckRunController(runCoordinator);
+                    DeadLetterController deadLetterController = new DeadLetterController(mongoDBClient,
+                            new SaveHistoryAndAlertBatchProcessor(mongoDBClient, vertx));
+                    SaveProduct saveProduct = new SaveProduct(mongoDBClient, mailClient, vertx, scrapperClient);
+                    ScrapeLimitsController scrapeLimitsController =
+                            new ScrapeLimitsController(scrapperClient.getThrottle());
                     router.post("/api/login").handler(userManagement::handleLogin);
                     router.post("/api/register").handler(userManagement::handleRegister);
                     router.route("/api/protected/*").handler(new AuthHandler());
                     router.post("/api/protected/save-product").handler(saveProduct::saveProduct);
-                    router.get("/api/schedule").handler(context
-                            -> Schedule.schedulePriceCheck(context, mongoDBClient, vertx, client));
+                    router.post("/api/protected/user/quiet-hours").handler(userManagement::handleQuietHours);
+                    router.get("/api/protected/schedule").handler(new AdminHandler()).handler(context
+                            -> Schedule.schedulePriceCheck(context, runCoordinator));
+                    router.get("/api/protected/check-runs").handler(checkRunController::getStatus);
+                    router.post("/api/protected/check-runs/cancel").handler(new AdminHandler())
+                            .handler(checkRunController::cancel);
+                    router.get("/api/protected/scrape/limits").handler(scrapeLimitsController::getLimits);
+                    router.post("/api/protected/scrape/limits").handler(new AdminHandler())
+                            .handler(scrapeLimitsController::updateLimits);
+                    router.get("/api/protected/metrics").handler(new MetricsController()::getMetrics);
+                    router.get("/api/protected/scrape/dead-letters").handler(deadLetterController::list);
+                    router.post("/api/protected/scrape/dead-letters/replay").handler(new AdminHandler())
+                            .handler(deadLetterController::replay);
                     router.get("/api/protected/products")
                             .handler(context -> new GetProducts(mongoDBClient, context));
                     router.post("/api/protected/pricehistory")
@@ -67,7 +137,7 @@ public class PriceDropBaseVerticle extends AbstractVerticle {
                     router.post("/api/protected/delete")
                             .handler(context -> new DeleteProduct(mongoDBClient, context));
                     router.post("/api/protected/leetcode/add")
-                            .handler(new AddQuestionController(mongoDBClient, client)::handle);
+                            .handler(new AddQuestionController(vertx, mongoDBClient, leetcodeClient)::handle);
                     router.get("/api/protected/leetcode/questions").handler(new GetQuestions(mongoDBClient)::handle);
                     router.post("/api/protected/leetcode/update-status")
                     .handler(new UpdateQuestionStatus(mongoDBClient)::handle);
@@ -79,6 +149,16 @@ public class PriceDropBaseVerticle extends AbstractVerticle {
                             .listen(8080)
                             .onSuccess(server -> {
                                 log.info("Server started on port: {}", server.actualPort());
+                                shardLeaseManager.start()
+                                        .onFailure(fail -> log.error("failed to start shard leases {}",
+                                                fail.getMessage()));
+                                // runs and the scheduler only feed the pipeline, so its stages come up first
+                                CheckPipeline.deploy(vertx, mongoDBClient, scrapperClient, shardLeaseManager)
+                                        .onComplete(res -> {
+                                            runCoordinator.start();
+                                            deployScheduler();
+                                        });
+                                startMailDelivery();
                                 startFuture.complete();
                             }).onFailure(fail -> startFuture.fail(fail.getMessage()));
                 }).onFailure(fail -> startFuture.fail(fail.getMessage()));
@@ -92,6 +172,35 @@ public class PriceDropBaseVerticle extends AbstractVerticle {
         }
     }
 
+    // alerts gather into per-user digests, which go out through the outbox
+    private void startMailDelivery() {
+        EmailOutbox outbox = new EmailOutbox(mongoDBClient);
+        notificationAggregator = new NotificationAggregator(vertx, new PendingNotifications(mongoDBClient), outbox);
+        notificationAggregator.start();
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        if (!Boolean.parseBoolean(dotenv.get("MAIL_OUTBOX_SENDER_ENABLED", "true"))) {
+            log.info("outbox sender disabled, alert mails stay queued");
+            return;
+        }
+        outboxSender = new OutboxSender(vertx, outbox, new MailService(mailClient));
+        outboxSender.start();
+    }
+
+    private void deployScheduler() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        if (!Boolean.parseBoolean(dotenv.get("CHECK_SCHEDULER_ENABLED", "true"))) {
+            log.info("adaptive check scheduler disabled");
+            return;
+        }
+        SaveHistoryAndAlertBatchProcessor batchProcessor = new SaveHistoryAndAlertBatchProcessor(mongoDBClient,
+                vertx);
+        CheckScheduler checkScheduler = new CheckScheduler(vertx, mongoDBClient, batchProcessor,
+                shardLeaseManager, runCoordinator);
+        vertx.deployVerticle(new PriceCheckSchedulerVerticle(checkScheduler))
+                .onSuccess(id -> log.info("scheduler verticle deployed with ID: {}", id))
+                .onFailure(err -> log.error("failed to deploy scheduler verticle {}", err.toString()));
+    }
+
     private JsonObject loadMongoConfig() throws Exception {
         try (InputStream is = getClass().getClassLoader().getResourceAsStream("mongo-config.json")) {
             if (is == null) {
@@ -104,13 +213,32 @@ public class PriceDropBaseVerticle extends AbstractVerticle {
 
     @Override
     public void stop(Promise<Void> stopPromise) {
-        if (mongoDBClient.getMongoClient() != null) {
-            mongoDBClient.getMongoClient().close();
-        }
-        if (client != null) {
-            client.close();
-        }
-        stopPromise.complete();
+        // hand shards back right away instead of making other instances wait for the lease to expire
+        Future<Void> released = shardLeaseManager == null ? Future.succeededFuture() : shardLeaseManager.releaseAll();
+        released.onComplete(res -> {
+            if (notificationAggregator != null) {
+                notificationAggregator.stop();
+            }
+            if (outboxSender != null) {
+                outboxSender.stop();
+            }
+            WebDriverPool.closeShared();
+            PythonWorkerPool.closeShared();
+            if (mongoDBClient.getMongoClient() != null) {
+                mongoDBClient.getMongoClient().close();
+            }
+            for (WebClient webClient : new WebClient[]{mailClient, leetcodeClient}) {
+                if (webClient != null) {
+                    webClient.close();
+                }
+            }
+            for (HttpClient httpClient : new HttpClient[]{scrapperHttpClient, pageHttpClient}) {
+                if (httpClient != null) {
+                    httpClient.close();
+                }
+            }
+            stopPromise.complete();
+        });
     }
 
 }
@@ -0,0 +1,69 @@
+package com.pricedrop.Utils;
+
+import io.vertx.core.Future;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs outside Vert.x, so results complete on the virtual thread that ran the task
+class BlockingExecutorTest {
+    private static final int LIMIT = WebDriverPool.configuredSize();
+
+    private static <T> T await(Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testCategoryNeverRunsMoreThanItsLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < LIMIT * 4; i++) {
+            int task = i;
+            results.add(BlockingExecutor.execute(BlockingExecutor.Category.BROWSER, () -> {
+                mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return task;
+            }));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, await(results.get(i)));
+        }
+        assertTrue(mostRunning.get() <= LIMIT);
+    }
+
+    @Test
+    void testFailedTaskReleasesItsPermit() throws Exception {
+        for (int i = 0; i < LIMIT; i++) {
+            Future<Object> failed = BlockingExecutor.execute(BlockingExecutor.Category.BROWSER, () -> {
+                throw new IllegalStateException("browser crashed");
+            });
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> await(failed));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+        }
+        // every permit is back: a full limit of tasks can run at the same time
+        CountDownLatch started = new CountDownLatch(LIMIT);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Void>> blocked = new ArrayList<>();
+        for (int i = 0; i < LIMIT; i++) {
+            blocked.add(BlockingExecutor.execute(BlockingExecutor.Category.BROWSER, () -> {
+                started.countDown();
+                release.await();
+                return null;
+            }));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        for (Future<Void> task : blocked) {
+            await(task);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.pricedrop.Utils;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// stand-in workers are plain shell commands speaking the same line protocol
+class PythonWorkerPoolTest {
+    // picks id and url out separately, so it doesn't depend on the order the request's keys are written in
+    private static final String ECHO_WORKER = "sed -u 'h;s/.*\"id\":\\([0-9]*\\).*/\\1/;x;"
+            + "s/.*\"url\":\"\\([^\"]*\\)\".*/\\1/;G;"
+            + "s/\\(.*\\)\\n\\(.*\\)/{\"id\":\\2,\"result\":{\"title\":\"\\1\",\"price\":\"1\"}}/'";
+    private PythonWorkerPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private static PythonWorkerPool pool(int maxInFlight, int maxQueued, String script) {
+        return new PythonWorkerPool(1, maxInFlight, maxQueued, 5000, 50,
+                () -> new ProcessBuilder("sh", "-c", script));
+    }
+
+    private static JsonObject await(Future<JsonObject> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testManyRequestsShareOneWorker() throws Exception {
+        pool = pool(4, 10, ECHO_WORKER);
+        List<Future<JsonObject>> replies = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            replies.add(pool.submit(new JsonObject().put("url", "product-" + i)));
+        }
+        for (int i = 0; i < 6; i++) {
+            assertEquals("product-" + i, await(replies.get(i)).getString("title"));
+        }
+        assertEquals(0, pool.getInFlight());
+        assertEquals(0, pool.getQueued());
+    }
+
+    @Test
+    void testCrashedWorkerFailsPendingAndRestarts() throws Exception {
+        pool = pool(4, 10, "read line; exit 3");
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> await(pool.submit(new JsonObject().put("url", "product-1"))));
+        assertTrue(failure.getCause().getMessage().contains("exited"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getRestarts() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(pool.getRestarts() >= 1);
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        pool = pool(1, 1, "cat > /dev/null");
+        pool.submit(new JsonObject().put("url", "product-1"));
+        pool.submit(new JsonObject().put("url", "product-2"));
+        assertEquals(1, pool.getInFlight());
+        assertEquals(1, pool.getQueued());
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> await(pool.submit(new JsonObject().put("url", "product-3"))));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+    }
+}
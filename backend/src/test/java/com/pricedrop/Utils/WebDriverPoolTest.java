@@ -0,0 +1,82 @@
+package com.pricedrop.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WebDriverPoolTest {
+    private final List<WebDriver> created = new ArrayList<>();
+
+    private WebDriver newDriver() {
+        WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        when(driver.manage()).thenReturn(mock(WebDriver.Options.class));
+        created.add(driver);
+        return driver;
+    }
+
+    @Test
+    void testReusesWarmSession() throws Exception {
+        WebDriverPool pool = new WebDriverPool(1, 10, 0, this::newDriver);
+        WebDriverPool.Session first = pool.borrow(100);
+        pool.release(first, false);
+        WebDriverPool.Session second = pool.borrow(100);
+        assertSame(first.getDriver(), second.getDriver());
+        assertEquals(1, created.size());
+        verify(first.getDriver(), never()).quit();
+    }
+
+    @Test
+    void testRecyclesAfterMaxPages() throws Exception {
+        WebDriverPool pool = new WebDriverPool(1, 2, 0, this::newDriver);
+        for (int i = 0; i < 2; i++) {
+            pool.release(pool.borrow(100), false);
+        }
+        verify(created.getFirst()).quit();
+        pool.borrow(100);
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    void testBrokenSessionIsQuit() throws Exception {
+        WebDriverPool pool = new WebDriverPool(1, 10, 0, this::newDriver);
+        WebDriverPool.Session session = pool.borrow(100);
+        pool.release(session, true);
+        verify(session.getDriver()).quit();
+        assertEquals(0, pool.getOpenSessions());
+    }
+
+    @Test
+    void testDeadIdleSessionIsReplaced() throws Exception {
+        WebDriverPool pool = new WebDriverPool(1, 10, 0, this::newDriver);
+        WebDriverPool.Session session = pool.borrow(100);
+        pool.release(session, false);
+        when(session.getDriver().getWindowHandle()).thenThrow(new WebDriverException("chrome not reachable"));
+        WebDriverPool.Session replacement = pool.borrow(100);
+        assertNotSame(session.getDriver(), replacement.getDriver());
+        verify(session.getDriver()).quit();
+    }
+
+    @Test
+    void testOversizedHeapIsRecycled() throws Exception {
+        WebDriverPool pool = new WebDriverPool(1, 10, 1000, this::newDriver);
+        WebDriverPool.Session session = pool.borrow(100);
+        when(((JavascriptExecutor) session.getDriver()).executeScript(anyString())).thenReturn(5000L);
+        pool.release(session, false);
+        verify(session.getDriver()).quit();
+    }
+
+    @Test
+    void testBorrowTimesOutWhenExhausted() throws Exception {
+        WebDriverPool pool = new WebDriverPool(1, 10, 0, this::newDriver);
+        pool.borrow(100);
+        assertThrows(TimeoutException.class, () -> pool.borrow(20));
+    }
+}
@@ -0,0 +1,29 @@
+package com.pricedrop.middlewares;
+
+import io.vertx.ext.web.RoutingContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+
+class AdminHandlerTest {
+    private final AdminHandler adminHandler = new AdminHandler(Set.of("admin"));
+
+    @Test
+    void testAdminPasses() {
+        RoutingContext context = mock(RoutingContext.class, RETURNS_DEEP_STUBS);
+        when(context.get("userId")).thenReturn("admin");
+        adminHandler.handle(context);
+        verify(context).next();
+    }
+
+    @Test
+    void testOtherUsersAreForbidden() {
+        RoutingContext context = mock(RoutingContext.class, RETURNS_DEEP_STUBS);
+        when(context.get("userId")).thenReturn("user");
+        adminHandler.handle(context);
+        verify(context, never()).next();
+        verify(context.response()).setStatusCode(403);
+    }
+}
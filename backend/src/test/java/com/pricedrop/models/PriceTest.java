@@ -0,0 +1,46 @@
+package com.pricedrop.models;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceTest {
+    @Test
+    void testParsesScraperAndUserFormats() {
+        assertEquals(129900, Price.parse("\u20B91,299.00").minorUnits());
+        assertEquals(129900, Price.parse("Rs. 1299").minorUnits());
+        assertEquals(129950, Price.parse("1299.5").minorUnits());
+        assertEquals(1234, Price.parse("12.345").minorUnits());
+        assertThrows(IllegalArgumentException.class, () -> Price.parse("not found"));
+        assertThrows(IllegalArgumentException.class, () -> Price.parse(null));
+    }
+
+    @Test
+    void testCanonicalText() {
+        assertEquals("1299", Price.parse("1,299.00").toString());
+        assertEquals("1299.50", Price.parse("1299.5").toString());
+        assertEquals("0.05", Price.parse("0.05").toString());
+    }
+
+    @Test
+    void testProductInfoPrefersParsedValue() {
+        assertEquals(100, Price.fromProductInfo(new JsonObject().put("price", "999").put("priceMinor", 100L))
+                .minorUnits());
+        assertEquals(99900, Price.fromProductInfo(new JsonObject().put("price", "999")).minorUnits());
+    }
+
+    @Test
+    void testUnmigratedTargetsAreParsed() {
+        UserTargetPrices userTargetPrices = new UserTargetPrices();
+        userTargetPrices.setTargetPrices(List.of("1,000", "bad"));
+        assertEquals(List.of(100000L), userTargetPrices.targetPricesInMinorUnits());
+        // a target added before the entry was migrated doesn't hide the older ones
+        userTargetPrices.setTargetPricesMinor(List.of(5L));
+        assertEquals(List.of(100000L, 5L), userTargetPrices.targetPricesInMinorUnits());
+        userTargetPrices.setTargetPricesMinor(List.of(100000L));
+        assertEquals(List.of(100000L), userTargetPrices.targetPricesInMinorUnits());
+    }
+}
@@ -0,0 +1,32 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.models.Product;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertMailRendererTest {
+
+    @Test
+    void testProductBlockFormatsPrice() {
+        Product product = new Product();
+        product.setProductUrl("http://example.com/p");
+        String block = AlertMailRenderer.productBlock(product,
+                new JsonObject().put("price", "1,299").put("title", "Test Product"));
+        assertTrue(block.contains("Test Product"));
+        assertTrue(block.contains("1,299.00"));
+        assertTrue(block.contains("http://example.com/p"));
+    }
+
+    @Test
+    void testDigestHoldsEveryBlockOnce() {
+        String digest = AlertMailRenderer.digest(List.of("<p>first</p>\n", "<p>second</p>\n"));
+        assertEquals(1, digest.split("<p>first</p>", -1).length - 1);
+        assertTrue(digest.indexOf("first") < digest.indexOf("second"));
+        assertTrue(digest.startsWith("<html>") && digest.trim().endsWith("</html>"));
+        assertEquals("Hurry!!, The prices of 2 of your added products have dropped", AlertMailRenderer.subject(2));
+    }
+}
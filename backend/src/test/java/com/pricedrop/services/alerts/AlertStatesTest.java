@@ -0,0 +1,97 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AlertStatesTest {
+    private static final long HOUR = 3_600_000;
+    private MongoDBClient mongoDBClient;
+    private AlertStates alertStates;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBClient = mock(MongoDBClient.class);
+        when(mongoDBClient.updateRecords(any(), any(), eq("watches"), eq(false)))
+                .thenReturn(Future.succeededFuture(1L));
+        alertStates = new AlertStates(mongoDBClient, 24 * HOUR, 5, 2);
+    }
+
+    private JsonObject watch(Long alertedPriceMinor, Long alertedAt) {
+        JsonObject watch = new JsonObject().put("_id", "w1").put("userId", "u1").put("threshold", 105_000L);
+        if (alertedPriceMinor != null) {
+            watch.put("alertedPriceMinor", alertedPriceMinor).put("alertedAt", alertedAt);
+        }
+        return watch;
+    }
+
+    @Test
+    void testArmedWatchIsDue() {
+        assertTrue(alertStates.isDue(watch(null, null), 100_000, 0));
+    }
+
+    @Test
+    void testAlertedWatchNeedsFurtherDropAndCooldown() {
+        JsonObject alerted = watch(100_000L, 0L);
+        assertFalse(alertStates.isDue(alerted, 100_000, 48 * HOUR));
+        assertFalse(alertStates.isDue(alerted, 90_000, HOUR));
+        assertTrue(alertStates.isDue(alerted, 95_000, 48 * HOUR));
+    }
+
+    @Test
+    void testRecoveryAboveThresholdRearms() {
+        alertStates.markAlerted("pid", List.of(watch(null, null)), 100_000, 0);
+
+        // within the hysteresis band: 105000 * 1.02 = 107100
+        alertStates.rearm("pid", 107_100);
+        verify(mongoDBClient, times(1)).updateRecords(any(), any(), eq("watches"), eq(false));
+
+        alertStates.rearm("pid", 107_101);
+        verify(mongoDBClient).updateRecords(any(),
+                eq(new JsonObject().put("$unset", new JsonObject().put("alertedPriceMinor", "").put("alertedAt", ""))),
+                eq("watches"), eq(false));
+
+        // forgotten once re-armed
+        alertStates.rearm("pid", 200_000);
+        verify(mongoDBClient, times(2)).updateRecords(any(), any(), eq("watches"), eq(false));
+    }
+
+    @Test
+    void testRuleWatchOnlyWaitsOutCooldown() {
+        JsonObject alerted = watch(100_000L, 0L).put("rule", "ALL_TIME_LOW");
+        assertFalse(alertStates.isDue(alerted, 99_000, HOUR));
+        assertTrue(alertStates.isDue(alerted, 99_000, 48 * HOUR));
+
+        // nothing to re-arm: only the markAlerted write happens
+        alertStates.markAlerted("pid", List.of(alerted), 99_000, 0);
+        alertStates.rearm("pid", 200_000);
+        verify(mongoDBClient, times(1)).updateRecords(any(), any(), eq("watches"), eq(false));
+    }
+
+    @Test
+    void testShardLoadLetsAnotherInstancesAlertRearm() {
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), eq("products")))
+                .thenReturn(Future.succeededFuture(List.of(new JsonObject().put("productId", "pid"))));
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), eq("watches")))
+                .thenReturn(Future.succeededFuture(List.of(watch(100_000L, 0L).put("productId", "pid"))));
+
+        assertTrue(alertStates.loadShards(Set.of(3)).succeeded());
+        verify(mongoDBClient).queryRecords(eq(new JsonObject().put("shard", new JsonObject().put("$in", new JsonArray().add(3)))),
+                any(FindOptions.class), eq("products"));
+
+        alertStates.rearm("pid", 107_101);
+        verify(mongoDBClient).updateRecords(any(),
+                eq(new JsonObject().put("$unset", new JsonObject().put("alertedPriceMinor", "").put("alertedAt", ""))),
+                eq("watches"), eq(false));
+    }
+}
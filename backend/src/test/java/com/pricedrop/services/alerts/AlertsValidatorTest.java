@@ -1,39 +1,104 @@
 package com.pricedrop.services.alerts;
 
+import com.pricedrop.models.PriceStats;
 import com.pricedrop.models.Product;
 import com.pricedrop.services.mongo.MongoDBClient;
+import com.pricedrop.services.user.UserLookup;
+import com.pricedrop.services.user.UserProfileCache;
+import com.pricedrop.services.watches.ThresholdIndex;
+import com.pricedrop.services.watches.WatchStore;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.mongo.FindOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class AlertsValidatorTest {
     private MongoDBClient mongoDBClient;
     private Vertx vertx;
-    private WebClient client;
     private AlertsValidator alertsValidator;
 
     @BeforeEach
     void setUp() {
         mongoDBClient = mock(MongoDBClient.class);
         vertx = mock(Vertx.class);
-        client = mock(WebClient.class);
-        alertsValidator = new AlertsValidator(mongoDBClient, vertx, client);
+        when(mongoDBClient.updateRecords(any(), any(), any(), anyBoolean()))
+                .thenReturn(Future.succeededFuture(1L));
+        // a fresh threshold index per test, so no test sees thresholds cached by another
+        alertsValidator = new AlertsValidator(mongoDBClient, vertx,
+                new UserLookup(vertx, mongoDBClient, UserProfileCache.shared()), new AlertStates(mongoDBClient),
+                new WatchStore(mongoDBClient, 5, new ThresholdIndex(60_000)));
     }
 
     @Test
     void testCheckForAlertsAndSend_NoUsersToAlert() {
-        Product product = mock(Product.class);
-        when(product.getUserTargetPrices()).thenReturn(List.of());
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), any()))
+                .thenReturn(Future.succeededFuture(List.of()));
         JsonObject productInfo = new JsonObject().put("price", "1000");
         JsonObject futureResult = new JsonObject()
                 .put("product", new JsonObject())
                 .put("productInfo", productInfo);
         alertsValidator.checkForAlertsAndSend(futureResult);
     }
+
+    @Test
+    void testCheckForAlerts_ReadsNoWatchesWhenNoThresholdIsReached() {
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), any()))
+                .thenReturn(Future.succeededFuture(List.of()));
+        Product product = new Product();
+        product.setProductId("pid");
+        assertTrue(alertsValidator.checkForAlerts(product, new JsonObject().put("price", "1,000")).succeeded());
+        // only the product's thresholds are loaded; with none reached there is nothing else to read
+        verify(mongoDBClient).queryRecords(
+                eq(new JsonObject().put("productId", "pid").put("threshold", new JsonObject().put("$exists", true))),
+                any(FindOptions.class), eq("watches"));
+        verify(mongoDBClient, times(1)).queryRecords(any(), any(FindOptions.class), eq("watches"));
+    }
+
+    @Test
+    void testCheckForAlerts_SeedsAllTimeLowFromHistoryForProductsWithoutStats() {
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), any()))
+                .thenReturn(Future.succeededFuture(List.of()));
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), eq("pricehistory")))
+                .thenReturn(Future.succeededFuture(List.of(new JsonObject().put("priceMinor", 50000L))));
+        Product product = new Product();
+        product.setProductId("pid");
+        assertTrue(alertsValidator.checkForAlerts(product, new JsonObject().put("price", "600")).succeeded());
+        ArgumentCaptor<JsonObject> query = ArgumentCaptor.forClass(JsonObject.class);
+        ArgumentCaptor<JsonObject> update = ArgumentCaptor.forClass(JsonObject.class);
+        verify(mongoDBClient).updateRecords(query.capture(), update.capture(), eq("products"), eq(false));
+        assertTrue(query.getValue().containsKey("priceStats"));
+        assertEquals(50000L, update.getValue().getJsonObject("$set").getJsonObject("priceStats").getLong("allTimeLowMinor"));
+    }
+
+    @Test
+    void testCheckForAlerts_ObservesAgainOnAConcurrentStatsWrite() {
+        PriceStats stored = new PriceStats();
+        stored.setObservations(3);
+        PriceStats concurrent = new PriceStats();
+        concurrent.setObservations(4);
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), any()))
+                .thenReturn(Future.succeededFuture(List.of()));
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), eq("products")))
+                .thenReturn(Future.succeededFuture(List.of(new JsonObject().put("priceStats", JsonObject.mapFrom(concurrent)))));
+        when(mongoDBClient.updateRecords(any(), any(), eq("products"), eq(false)))
+                .thenReturn(Future.succeededFuture(0L), Future.succeededFuture(1L));
+        Product product = new Product();
+        product.setProductId("pid");
+        product.setPriceStats(stored);
+        assertTrue(alertsValidator.checkForAlerts(product, new JsonObject().put("price", "600")).succeeded());
+        ArgumentCaptor<JsonObject> query = ArgumentCaptor.forClass(JsonObject.class);
+        ArgumentCaptor<JsonObject> update = ArgumentCaptor.forClass(JsonObject.class);
+        verify(mongoDBClient, times(2)).updateRecords(query.capture(), update.capture(), eq("products"), eq(false));
+        assertEquals(4L, query.getAllValues().get(1).getLong("priceStats.observations"));
+        assertEquals(5L, update.getAllValues().get(1).getJsonObject("$set").getJsonObject("priceStats").getLong("observations"));
+    }
 }
@@ -1,8 +1,11 @@
 package com.pricedrop.services.alerts;
 
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -13,5 +16,20 @@ class EmailAlertServiceTest {
         when(service.sendEmail(anyString(), anyString(), anyString())).thenReturn(Future.succeededFuture());
         assertNotNull(service.sendEmail("subject", "to", "body"));
     }
-}
 
+    @Test
+    void testBatchSentOneByOneReportsWhichMailsFailed() {
+        MailSendException rejected = new MailSendException(400, "invalid email address");
+        EmailAlertService service = (subject, to, body) -> "bad".equals(to)
+                ? Future.failedFuture(rejected) : Future.succeededFuture();
+        JsonObject good = new JsonObject().put("to", "a@example.com");
+        JsonObject bad = new JsonObject().put("to", "bad");
+
+        Future<Void> sent = service.sendBatch(List.of(good, bad));
+
+        PartialBatchException partial = assertInstanceOf(PartialBatchException.class, sent.cause());
+        assertEquals(List.of(good), partial.getDelivered());
+        assertEquals(List.of(bad), partial.getFailed());
+        assertSame(rejected, partial.getFailure(0));
+    }
+}
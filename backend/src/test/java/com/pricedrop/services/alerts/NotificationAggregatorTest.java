@@ -0,0 +1,58 @@
+package com.pricedrop.services.alerts;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NotificationAggregatorTest {
+
+    private static JsonObject notification(String userId, String productId, String block, long updatedAt) {
+        return new JsonObject().put("claim", "c1").put("userId", userId).put("email", userId + "@example.com")
+                .put("productId", productId).put("block", block).put("updatedAt", updatedAt);
+    }
+
+    @Test
+    void testOneDigestPerUser() {
+        PendingNotifications pending = mock(PendingNotifications.class);
+        EmailOutbox outbox = mock(EmailOutbox.class);
+        when(pending.claim(100, 0)).thenReturn(Future.succeededFuture(List.of(
+                notification("u1", "phone", "<p>phone</p>", 0),
+                notification("u2", "phone", "<p>phone</p>", 0),
+                notification("u1", "laptop", "<p>laptop</p>", 0))));
+        when(pending.remove(any(), any())).thenReturn(Future.succeededFuture(3L));
+        when(outbox.append(eq("u1@example.com"), any(), any())).thenReturn(Future.succeededFuture());
+        when(outbox.append(eq("u2@example.com"), any(), any())).thenReturn(Future.failedFuture("down"));
+        NotificationAggregator aggregator = new NotificationAggregator(mock(Vertx.class), pending, outbox, 60_000, 100);
+
+        assertEquals(3, aggregator.flushOnce(0).result());
+
+        verify(outbox).append(eq("u1@example.com"), eq(AlertMailRenderer.subject(2)),
+                argThat(body -> body.contains("phone") && body.contains("laptop")));
+        // u2's notification stays for the next window
+        verify(pending).remove("c1", List.of("u1"));
+    }
+
+    @Test
+    void testDuplicateNotificationsOfAProductGoOutOnce() {
+        PendingNotifications pending = mock(PendingNotifications.class);
+        EmailOutbox outbox = mock(EmailOutbox.class);
+        when(pending.claim(100, 0)).thenReturn(Future.succeededFuture(List.of(
+                notification("u1", "phone", "<p>phone at 900</p>", 2),
+                notification("u1", "phone", "<p>phone at 950</p>", 1))));
+        when(pending.remove(any(), any())).thenReturn(Future.succeededFuture(2L));
+        when(outbox.append(any(), any(), any())).thenReturn(Future.succeededFuture());
+        NotificationAggregator aggregator = new NotificationAggregator(mock(Vertx.class), pending, outbox, 60_000, 100);
+
+        aggregator.flushOnce(0);
+
+        verify(outbox).append(eq("u1@example.com"), eq(AlertMailRenderer.subject(1)),
+                argThat(body -> body.contains("phone at 900") && !body.contains("phone at 950")));
+        verify(pending).remove("c1", List.of("u1"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.services.retry.RetryPolicy;
+import com.pricedrop.services.scrape.TokenBucket;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class OutboxSenderTest {
+    private EmailOutbox outbox;
+    private EmailAlertService mailService;
+    private RetryPolicy retryPolicy;
+    private OutboxSender sender;
+    private final List<JsonObject> batch = List.of(
+            new JsonObject().put("_id", "m1").put("to", "a@example.com"),
+            new JsonObject().put("_id", "m2").put("to", "b@example.com"));
+
+    @BeforeEach
+    void setUp() {
+        outbox = mock(EmailOutbox.class);
+        mailService = mock(EmailAlertService.class);
+        retryPolicy = new RetryPolicy(3, 1000, 60_000, MailSendException::isRetryable);
+        sender = new OutboxSender(mock(Vertx.class), outbox, mailService, new TokenBucket(10, 10), retryPolicy,
+                2, 1000);
+        when(outbox.markSent(any())).thenReturn(Future.succeededFuture());
+        when(outbox.markFailed(any(), any(), any())).thenReturn(Future.succeededFuture());
+    }
+
+    @Test
+    void testSendsClaimAsOneBatchAndKeepsDrainingWhileFull() {
+        when(outbox.claim(2)).thenReturn(Future.succeededFuture(batch), Future.succeededFuture(List.of()));
+        when(mailService.sendBatch(batch)).thenReturn(Future.succeededFuture());
+
+        sender.drain();
+
+        verify(mailService, times(1)).sendBatch(batch);
+        verify(outbox).markSent(batch);
+        verify(outbox, times(2)).claim(2);
+        verify(mailService, never()).sendEmail(any(), any(), any());
+    }
+
+    @Test
+    void testFailedBatchIsHandedBackForRetry() {
+        MailSendException throttled = new MailSendException(429, "too many requests");
+        when(outbox.claim(2)).thenReturn(Future.succeededFuture(batch.subList(0, 1)));
+        when(mailService.sendBatch(any())).thenReturn(Future.failedFuture(throttled));
+
+        sender.drain();
+
+        verify(outbox).markFailed(batch.subList(0, 1), throttled, retryPolicy);
+        verify(outbox, never()).markSent(any());
+    }
+
+    @Test
+    void testRejectedBatchIsSplitBeforeAnythingFails() {
+        MailSendException rejected = new MailSendException(400, "invalid email address");
+        when(outbox.claim(2)).thenReturn(Future.succeededFuture(batch), Future.succeededFuture(List.of()));
+        when(mailService.sendBatch(batch)).thenReturn(Future.failedFuture(rejected));
+        when(mailService.sendBatch(batch.subList(0, 1))).thenReturn(Future.succeededFuture());
+        when(mailService.sendBatch(batch.subList(1, 2))).thenReturn(Future.failedFuture(rejected));
+
+        sender.drain();
+
+        verify(outbox).markSent(batch.subList(0, 1));
+        verify(outbox).markFailed(batch.subList(1, 2), rejected, retryPolicy);
+        verify(outbox, never()).markFailed(eq(batch), any(), any());
+    }
+
+    @Test
+    void testOnlyTheFailedMailsOfAOneByOneBatchAreRetried() {
+        MailSendException unavailable = new MailSendException(503, "service unavailable");
+        EmailAlertService oneByOne = (subject, to, body) -> "b@example.com".equals(to)
+                ? Future.failedFuture(unavailable) : Future.succeededFuture();
+        sender = new OutboxSender(mock(Vertx.class), outbox, oneByOne, new TokenBucket(10, 10), retryPolicy,
+                2, 1000);
+        when(outbox.claim(2)).thenReturn(Future.succeededFuture(batch), Future.succeededFuture(List.of()));
+
+        sender.drain();
+
+        verify(outbox).markSent(batch.subList(0, 1));
+        verify(outbox).markFailed(batch.subList(1, 2), unavailable, retryPolicy);
+        verify(outbox, never()).markSent(batch);
+    }
+}
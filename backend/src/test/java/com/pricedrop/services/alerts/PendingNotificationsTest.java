@@ -0,0 +1,48 @@
+package com.pricedrop.services.alerts;
+
+import com.pricedrop.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingNotificationsTest {
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+    private final PendingNotifications pending = new PendingNotifications(null, IST, 60_000);
+
+    private static long at(int day, int hour, int minute) {
+        return ZonedDateTime.of(2024, 1, day, hour, minute, 0, 0, IST).toInstant().toEpochMilli();
+    }
+
+    private static User quietBetween(Integer start, Integer end) {
+        User user = new User();
+        user.setUserId("u1");
+        user.setQuietHoursStart(start);
+        user.setQuietHoursEnd(end);
+        return user;
+    }
+
+    @Test
+    void testNoQuietHoursDeliversNow() {
+        assertEquals(at(1, 23, 0), pending.deliverAfter(quietBetween(null, null), at(1, 23, 0)));
+    }
+
+    @Test
+    void testOvernightQuietHoursDeferToMorning() {
+        User user = quietBetween(22, 7);
+        assertEquals(at(2, 7, 0), pending.deliverAfter(user, at(1, 23, 30)));
+        assertEquals(at(2, 7, 0), pending.deliverAfter(user, at(2, 3, 0)));
+        assertEquals(at(2, 7, 0), pending.deliverAfter(user, at(2, 7, 0)));
+        assertEquals(at(2, 12, 0), pending.deliverAfter(user, at(2, 12, 0)));
+    }
+
+    @Test
+    void testUserTimeZoneIsUsed() {
+        User user = quietBetween(22, 7);
+        user.setTimeZone("UTC");
+        // 23:30 in India is 18:00 UTC, outside the user's quiet hours
+        assertEquals(at(1, 23, 30), pending.deliverAfter(user, at(1, 23, 30)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.pricedrop.services.batchprocessor;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class AsyncPipelineTest {
+
+    private Future<Integer> delayed(Vertx vertx, int value, long delayMs) {
+        Promise<Integer> promise = Promise.promise();
+        vertx.setTimer(delayMs, id -> promise.complete(value));
+        return promise.future();
+    }
+
+    @Test
+    void testKeepsConcurrencyBound(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 20).boxed().toList();
+        new AsyncPipeline<Integer, Integer>(vertx, "test", item -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            return delayed(vertx, item, 5 + item % 3).onComplete(res -> active.decrementAndGet());
+        }).setConcurrency(4).run(items).onComplete(testContext.succeeding(stats -> testContext.verify(() -> {
+            assertEquals(20, stats.getSucceeded());
+            assertEquals(0, stats.getFailed());
+            assertTrue(maxActive.get() <= 4);
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    void testItemTimeoutCountsAsFailure(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger failures = new AtomicInteger();
+        new AsyncPipeline<Integer, Integer>(vertx, "test", item -> item == 1
+                ? Promise.<Integer>promise().future()
+                : Future.succeededFuture(item))
+                .setItemTimeout(50)
+                .onItemFailure((item, failure) -> failures.incrementAndGet())
+                .run(List.of(0, 1, 2))
+                .onComplete(testContext.succeeding(stats -> testContext.verify(() -> {
+                    assertEquals(2, stats.getSucceeded());
+                    assertEquals(1, stats.getFailed());
+                    assertEquals(1, failures.get());
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testCancelStopsPullingItems(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger started = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+        AsyncPipeline<Integer, Integer> pipeline = new AsyncPipeline<>(vertx, "test", item -> {
+            started.incrementAndGet();
+            return delayed(vertx, item, 20);
+        });
+        pipeline.setConcurrency(2).run(items).onComplete(testContext.succeeding(stats -> testContext.verify(() -> {
+            assertTrue(stats.isCancelled());
+            assertTrue(started.get() < 100);
+            testContext.completeNow();
+        })));
+        vertx.setTimer(30, id -> pipeline.cancel());
+    }
+}
@@ -0,0 +1,24 @@
+package com.pricedrop.services.migration;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceMinorUnitsMigrationTest {
+    @Test
+    void testMigrateCanonicalisesAndDeduplicatesTargets() {
+        JsonArray original = new JsonArray().add(new JsonObject()
+                .put("userId", "u1")
+                .put("targetPrices", new JsonArray().add("1,000").add("1000.00").add("999.5").add("soon")));
+
+        JsonObject migrated = PriceMinorUnitsMigration.migrate(original).getJsonObject(0);
+
+        assertEquals("u1", migrated.getString("userId"));
+        assertEquals(new JsonArray().add("1000").add("999.50").add("soon"), migrated.getJsonArray("targetPrices"));
+        assertEquals(new JsonArray().add(100000L).add(99950L), migrated.getJsonArray("targetPricesMinor"));
+        // the input is matched on as-is when writing back, so it must not change
+        assertEquals(4, original.getJsonObject(0).getJsonArray("targetPrices").size());
+    }
+}
@@ -0,0 +1,35 @@
+package com.pricedrop.services.migration;
+
+import com.pricedrop.models.Watch;
+import com.pricedrop.services.watches.WatchStore;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchesMigrationTest {
+    @Test
+    void testWatchesSplitsTargetsAndKeepsInvalidAsText() {
+        JsonArray userTargetPrices = new JsonArray()
+                .add(new JsonObject().put("userId", "u1")
+                        .put("targetPrices", new JsonArray().add("1,000").add("1000.00").add("soon")))
+                .add(new JsonObject().put("userId", "u2")
+                        .put("targetPrices", new JsonArray().add("999.5")));
+
+        List<Watch> watches = WatchesMigration.watches("pid", userTargetPrices, new WatchStore(null, 5), 42);
+
+        assertEquals(3, watches.size());
+        assertEquals("u1", watches.get(0).getUserId());
+        assertEquals("1000", watches.get(0).getTargetPrice());
+        assertEquals(105_000, watches.get(0).getThreshold());
+        // never alerts, but the user still sees it and can delete it
+        assertEquals("soon", watches.get(1).getTargetPrice());
+        assertEquals(0, watches.get(1).getThreshold());
+        assertEquals("u2", watches.get(2).getUserId());
+        assertEquals(99_950, watches.get(2).getTargetMinor());
+        assertEquals(42, watches.get(2).getCreatedAt());
+    }
+}
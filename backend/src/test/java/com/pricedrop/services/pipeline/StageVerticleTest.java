@@ -0,0 +1,67 @@
+package com.pricedrop.services.pipeline;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class StageVerticleTest {
+
+    static class HoldingStage extends StageVerticle<String, String> {
+        final Promise<String> held = Promise.promise();
+
+        HoldingStage() {
+            super("test.stage", "test", 1);
+        }
+
+        @Override
+        protected Future<String> process(String input) {
+            return held.future().map(value -> value + input);
+        }
+    }
+
+    @Test
+    void testRejectsWhenFullAndAcceptsAfterwards(Vertx vertx, VertxTestContext testContext) {
+        HoldingStage stage = new HoldingStage();
+        vertx.deployVerticle(stage).onComplete(testContext.succeeding(id -> {
+            Future<Object> first = vertx.eventBus().request("test.stage", "a").map(msg -> msg.body());
+            vertx.eventBus().request("test.stage", "b").onComplete(testContext.failing(fail -> testContext.verify(() -> {
+                assertTrue(fail instanceof ReplyException);
+                assertEquals(StageVerticle.BUSY, ((ReplyException) fail).failureCode());
+                assertTrue(StageClient.isBackpressure(fail));
+                stage.held.complete("held-");
+                first.onComplete(testContext.succeeding(body -> testContext.verify(() -> {
+                    assertEquals("held-a", body);
+                    testContext.completeNow();
+                })));
+            })));
+        }));
+    }
+
+    @Test
+    void testClientRetriesUntilStageHasRoom(Vertx vertx, VertxTestContext testContext) {
+        HoldingStage stage = new HoldingStage();
+        StageClient client = new StageClient(vertx);
+        vertx.deployVerticle(stage).onComplete(testContext.succeeding(id -> {
+            client.<String>request("test.stage", "a", 5000);
+            vertx.setTimer(100, t -> stage.held.complete("done-"));
+            client.<String>request("test.stage", "b", 5000)
+                    .onComplete(testContext.succeeding(body -> testContext.verify(() -> {
+                        assertEquals("done-b", body);
+                        testContext.completeNow();
+                    })));
+        }));
+    }
+
+    @Test
+    void testApplicationFailureIsNotBackpressure() {
+        assertFalse(StageClient.isBackpressure(new RuntimeException("boom")));
+    }
+}
@@ -3,6 +3,7 @@ package com.pricedrop.services.products;
 import com.pricedrop.services.mongo.MongoDBClient;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
@@ -29,9 +30,36 @@ class DeleteProductTest {
         when(context.body()).thenReturn(requestBody);
         when(requestBody.asJsonObject()).thenReturn(new JsonObject().put("productId", "pid").put("targetPrice", "100"));
         when(context.get("userId")).thenReturn("uid");
-        when(mongoDBClient.updateRecord(any(), any(), any())).thenReturn(io.vertx.core.Future.succeededFuture());
         when(mongoDBClient.deleteRecord(any(), any())).thenReturn(io.vertx.core.Future.succeededFuture());
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), any()))
+                .thenReturn(io.vertx.core.Future.succeededFuture(new java.util.ArrayList<>()));
+        when(mongoDBClient.updateRecords(any(), any(), any(), anyBoolean()))
+                .thenReturn(io.vertx.core.Future.succeededFuture(1L));
+        when(mongoDBClient.countRecords(any(), any())).thenReturn(io.vertx.core.Future.succeededFuture(0L));
         new DeleteProduct(mongoDBClient, context);
         testContext.completeNow();
     }
+
+    @Test
+    void testProductIsPutBackWhenAWatchArrivesDuringTheDelete(Vertx vertx, VertxTestContext testContext) {
+        var requestBody = mock(io.vertx.ext.web.RequestBody.class);
+        JsonObject product = new JsonObject().put("productId", "pid").put("productUrl", "https://example.com/p");
+        when(context.body()).thenReturn(requestBody);
+        when(requestBody.asJsonObject()).thenReturn(new JsonObject().put("productId", "pid").put("targetPrice", "100"));
+        when(context.get("userId")).thenReturn("uid");
+        when(mongoDBClient.deleteRecord(any(), any())).thenReturn(io.vertx.core.Future.succeededFuture());
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), any()))
+                .thenReturn(io.vertx.core.Future.succeededFuture(new java.util.ArrayList<>()));
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), eq("products")))
+                .thenReturn(io.vertx.core.Future.succeededFuture(java.util.List.of(product)));
+        when(mongoDBClient.updateRecords(any(), any(), any(), anyBoolean()))
+                .thenReturn(io.vertx.core.Future.succeededFuture(1L));
+        when(mongoDBClient.countRecords(any(), any())).thenReturn(io.vertx.core.Future.succeededFuture(0L),
+                io.vertx.core.Future.succeededFuture(1L));
+        new DeleteProduct(mongoDBClient, context);
+        verify(mongoDBClient).deleteRecord(new JsonObject().put("productId", "pid"), "products");
+        verify(mongoDBClient).updateRecords(new JsonObject().put("productId", "pid"),
+                new JsonObject().put("$setOnInsert", product), "products", true);
+        testContext.completeNow();
+    }
 }
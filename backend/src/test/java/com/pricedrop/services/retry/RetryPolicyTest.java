@@ -0,0 +1,94 @@
+package com.pricedrop.services.retry;
+
+import com.pricedrop.services.scrape.ScrapeException;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.net.ConnectException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class RetryPolicyTest {
+    private final RetryPolicy policy = new RetryPolicy(3, 5, 20, ScrapeException::isRetryable);
+
+    @Test
+    void testRetriesUntilSuccess(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger calls = new AtomicInteger();
+        policy.execute(vertx, () -> calls.incrementAndGet() < 3
+                        ? Future.failedFuture(ScrapeException.forStatus(503))
+                        : Future.succeededFuture("ok"))
+                .onComplete(testContext.succeeding(result -> testContext.verify(() -> {
+                    assertEquals("ok", result);
+                    assertEquals(3, calls.get());
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testFatalFailureIsNotRetried(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger calls = new AtomicInteger();
+        policy.execute(vertx, () -> {
+                    calls.incrementAndGet();
+                    return Future.failedFuture(ScrapeException.forStatus(404));
+                })
+                .onComplete(testContext.failing(failure -> testContext.verify(() -> {
+                    RetriesExhaustedException exhausted = assertInstanceOf(RetriesExhaustedException.class, failure);
+                    assertEquals(1, exhausted.getAttempts());
+                    assertFalse(exhausted.isRetryable());
+                    assertEquals(1, calls.get());
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts(Vertx vertx, VertxTestContext testContext) {
+        policy.execute(vertx, () -> Future.failedFuture(ScrapeException.forStatus(429)))
+                .onComplete(testContext.failing(failure -> testContext.verify(() -> {
+                    RetriesExhaustedException exhausted = assertInstanceOf(RetriesExhaustedException.class, failure);
+                    assertEquals(3, exhausted.getAttempts());
+                    assertEquals("HTTP_429", ScrapeException.reasonOf(exhausted.getCause()));
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testCancelledRetriesStopBeforeTheNextAttempt(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger calls = new AtomicInteger();
+        policy.execute(vertx, () -> {
+                    calls.incrementAndGet();
+                    return Future.failedFuture(ScrapeException.forStatus(503));
+                }, () -> calls.get() >= 1)
+                .onComplete(testContext.failing(failure -> testContext.verify(() -> {
+                    RetriesExhaustedException exhausted = assertInstanceOf(RetriesExhaustedException.class, failure);
+                    assertEquals(1, exhausted.getAttempts());
+                    assertInstanceOf(CancellationException.class, exhausted.getCause());
+                    assertEquals(1, calls.get());
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testOnlyConnectionFailuresAndTimeoutsAreRetryable() {
+        assertTrue(ScrapeException.isRetryable(new ConnectException("Connection refused")));
+        assertTrue(ScrapeException.isRetryable(new TimeoutException("timed out")));
+        assertFalse(ScrapeException.isRetryable(new VertxException("unexpected")));
+        assertFalse(ScrapeException.isRetryable(new IllegalStateException("bug")));
+    }
+
+    @Test
+    void testDelayStaysWithinCap() {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            long delay = policy.delayFor(attempt);
+            assertTrue(delay >= 0 && delay <= 20);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.pricedrop.services.rules;
+
+import com.pricedrop.models.PriceStats;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleEngineTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private RuleEngine ruleEngine;
+
+    @BeforeEach
+    void setUp() {
+        ruleEngine = new RuleEngine(3);
+    }
+
+    private PriceStats observeDaily(long... prices) {
+        PriceStats stats = null;
+        for (int day = 0; day < prices.length; day++) {
+            stats = ruleEngine.observe(stats, prices[day], day * DAY);
+        }
+        return stats;
+    }
+
+    @Test
+    void testObserveKeepsLowAndWindow() {
+        PriceStats stats = observeDaily(1000, 800, 900);
+
+        assertEquals(3, stats.getObservations());
+        assertEquals(800, stats.getAllTimeLowMinor());
+        assertEquals(900, stats.getLastPriceMinor());
+        assertEquals(2700, stats.getWindowSum());
+        assertEquals(3, stats.getWindowCount());
+    }
+
+    @Test
+    void testObserveLeavesPreviousStatsUntouched() {
+        PriceStats before = observeDaily(1000);
+        ruleEngine.observe(before, 500, DAY);
+
+        assertEquals(1, before.getObservations());
+        assertEquals(1000, before.getWindowSum());
+    }
+
+    @Test
+    void testOldDaysLeaveTheWindowButNotTheLow() {
+        PriceStats stats = observeDaily(500);
+        stats = ruleEngine.observe(stats, 1000, RuleEngine.WINDOW_DAYS * DAY);
+
+        assertEquals(1000, stats.getWindowSum());
+        assertEquals(1, stats.getWindowCount());
+        assertEquals(500, stats.getAllTimeLowMinor());
+
+        // a long gap clears the whole ring
+        stats = ruleEngine.observe(stats, 700, 1000 * DAY);
+        assertEquals(700, stats.getWindowSum());
+        assertEquals(1, stats.getWindowCount());
+    }
+
+    @Test
+    void testDropFromAverageNeedsEnoughObservations() {
+        assertNull(ruleEngine.dropFromAverage(observeDaily(1000, 1000), 500));
+        assertEquals(50.0, ruleEngine.dropFromAverage(observeDaily(1000, 1000, 1000), 500), 1e-9);
+    }
+
+    @Test
+    void testRuleClausesAddOnlyRulesThatCanFire() {
+        PriceStats stats = observeDaily(1000, 1000, 1000);
+        assertTrue(ruleEngine.ruleClauses(1100, stats).isEmpty());
+
+        JsonArray any = ruleEngine.ruleClauses(900, stats);
+        assertEquals(2, any.size());
+        assertEquals("ALL_TIME_LOW", any.getJsonObject(0).getString("rule"));
+        assertEquals(10.0, any.getJsonObject(1).getJsonObject("dropPercent").getDouble("$lte"), 1e-9);
+    }
+
+    @Test
+    void testFires() {
+        PriceStats stats = observeDaily(1000, 1000, 1000);
+
+        assertTrue(ruleEngine.fires(new JsonObject().put("threshold", 900L), 900, stats));
+        assertTrue(ruleEngine.fires(new JsonObject().put("rule", "ALL_TIME_LOW"), 999, stats));
+        assertFalse(ruleEngine.fires(new JsonObject().put("rule", "ALL_TIME_LOW"), 1000, stats));
+        assertTrue(ruleEngine.fires(new JsonObject().put("rule", "DROP_FROM_AVERAGE").put("dropPercent", 10.0), 900, stats));
+        assertFalse(ruleEngine.fires(new JsonObject().put("rule", "DROP_FROM_AVERAGE").put("dropPercent", 10.0), 901, stats));
+        // the first price only becomes the baseline
+        assertFalse(ruleEngine.fires(new JsonObject().put("rule", "LOW_SINCE_ADDED"), 500, stats));
+        assertTrue(ruleEngine.fires(new JsonObject().put("rule", "LOW_SINCE_ADDED").put("lowSinceAddedMinor", 600L), 500, stats));
+    }
+}
@@ -0,0 +1,35 @@
+package com.pricedrop.services.runs;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointTrackerTest {
+
+    @Test
+    void testCheckpointOnlyAdvancesOverContiguousCompletions() {
+        CheckpointTracker tracker = new CheckpointTracker(null);
+        tracker.started("amazon_a");
+        tracker.started("amazon_b");
+        tracker.started("amazon_c");
+
+        tracker.finished("amazon_b");
+        assertNull(tracker.getCheckpoint());
+
+        tracker.finished("amazon_a");
+        assertEquals("amazon_b", tracker.getCheckpoint());
+
+        tracker.finished("amazon_c");
+        assertEquals("amazon_c", tracker.getCheckpoint());
+        assertEquals(0, tracker.pending());
+    }
+
+    @Test
+    void testKeepsResumedCheckpointUntilProgress() {
+        CheckpointTracker tracker = new CheckpointTracker("flipkart_m");
+        tracker.started("flipkart_n");
+        assertEquals("flipkart_m", tracker.getCheckpoint());
+        tracker.finished("flipkart_n");
+        assertEquals("flipkart_n", tracker.getCheckpoint());
+    }
+}
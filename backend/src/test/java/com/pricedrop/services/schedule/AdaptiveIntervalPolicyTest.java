@@ -0,0 +1,55 @@
+package com.pricedrop.services.schedule;
+
+import com.pricedrop.models.CheckSchedule;
+import com.pricedrop.models.Product;
+import com.pricedrop.models.Price;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveIntervalPolicyTest {
+    private static final long MINUTE = 60_000;
+    private final AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(60 * MINUTE, 15 * MINUTE, 360 * MINUTE);
+
+    private Product productWithTarget(String targetPrice) {
+        Product product = new Product();
+        product.setProductId("amazon_b0abc12345");
+        product.setMaxTargetMinor(Price.parse(targetPrice).minorUnits());
+        return product;
+    }
+
+    @Test
+    void testInitialIsSpreadWithinBaseInterval() {
+        CheckSchedule schedule = policy.initial(0);
+        assertTrue(schedule.getNextCheckAt() >= 0 && schedule.getNextCheckAt() < 60 * MINUTE);
+    }
+
+    @Test
+    void testPriceNearTargetShortensInterval() {
+        CheckSchedule near = policy.afterObservation(productWithTarget("1000"), 1010, 0);
+        CheckSchedule far = policy.afterObservation(productWithTarget("100"), 1010, 0);
+        assertEquals(15 * MINUTE, near.getIntervalMs());
+        assertEquals(60 * MINUTE, far.getIntervalMs());
+    }
+
+    @Test
+    void testVolatilePriceShortensInterval() {
+        Product product = productWithTarget("100");
+        CheckSchedule previous = new CheckSchedule();
+        previous.setLastPrice(1000d);
+        product.setCheckSchedule(previous);
+        CheckSchedule next = policy.afterObservation(product, 1200, 0);
+        assertTrue(next.getVolatility() > 0.02);
+        assertEquals(30 * MINUTE, next.getIntervalMs());
+    }
+
+    @Test
+    void testFailuresBackOff() {
+        Product product = productWithTarget("100");
+        CheckSchedule first = policy.afterFailure(product, 0);
+        product.setCheckSchedule(first);
+        CheckSchedule second = policy.afterFailure(product, 0);
+        assertEquals(2, second.getConsecutiveFailures());
+        assertTrue(second.getNextCheckAt() > first.getNextCheckAt());
+    }
+}
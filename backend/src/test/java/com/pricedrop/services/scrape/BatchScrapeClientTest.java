@@ -0,0 +1,85 @@
+package com.pricedrop.services.scrape;
+
+import com.pricedrop.models.Product;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class BatchScrapeClientTest {
+
+    private Product product(String id) {
+        Product product = new Product();
+        product.setProductId(id);
+        product.setProductUrl("https://www.amazon.in/dp/" + id);
+        return product;
+    }
+
+    private JsonObject parse(Product product, JsonObject line) {
+        if (line.getInteger("status") >= 400) {
+            throw ScrapeException.forStatus(line.getInteger("status"));
+        }
+        return line.getJsonObject("result");
+    }
+
+    @Test
+    void testStreamsResultsPerProduct(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger requests = new AtomicInteger();
+        vertx.createHttpServer().requestHandler(req -> req.body().onSuccess(body -> {
+            requests.incrementAndGet();
+            JsonArray items = body.toJsonObject().getJsonArray("items");
+            req.response().setChunked(true).putHeader("Content-Type", "application/x-ndjson");
+            // answers out of order and leaves the last item out
+            for (int i = items.size() - 2; i >= 0; i--) {
+                String id = items.getJsonObject(i).getString("id");
+                JsonObject line = id.endsWith("bad")
+                        ? new JsonObject().put("id", id).put("status", 400).put("result", new JsonObject())
+                        : new JsonObject().put("id", id).put("status", 200)
+                                .put("result", new JsonObject().put("price", "100").put("title", id));
+                req.response().write(line.encode() + "\n");
+            }
+            req.response().end();
+        })).listen(0).onComplete(testContext.succeeding(server -> {
+            HttpClient httpClient = vertx.createHttpClient();
+            BatchScrapeClient client = new BatchScrapeClient(vertx, httpClient,
+                    "http://localhost:" + server.actualPort() + "/scrape/products", 10, 20, 5000, this::parse);
+            Future<JsonObject> ok = client.submit(product("amazon_ok"));
+            Future<JsonObject> bad = client.submit(product("amazon_bad"));
+            Future<JsonObject> missing = client.submit(product("amazon_missing"));
+            Future.join(ok, bad, missing).onComplete(res -> testContext.verify(() -> {
+                assertEquals(1, requests.get());
+                assertEquals("amazon_ok", ok.result().getString("title"));
+                assertFalse(ScrapeException.isRetryable(bad.cause()));
+                assertEquals("MISSING_RESULT", ((ScrapeException) missing.cause()).getReason());
+                testContext.completeNow();
+            }));
+        }));
+    }
+
+    @Test
+    void testFullBatchIsSentWithoutLinger(Vertx vertx, VertxTestContext testContext) {
+        vertx.createHttpServer().requestHandler(req -> req.body().onSuccess(body -> {
+            JsonArray items = body.toJsonObject().getJsonArray("items");
+            StringBuilder lines = new StringBuilder();
+            items.forEach(item -> lines.append(new JsonObject()
+                    .put("id", ((JsonObject) item).getString("id")).put("status", 200)
+                    .put("result", new JsonObject().put("price", "1").put("title", "t")).encode()).append("\n"));
+            req.response().end(lines.toString());
+        })).listen(0).onComplete(testContext.succeeding(server -> {
+            BatchScrapeClient client = new BatchScrapeClient(vertx, vertx.createHttpClient(),
+                    "http://localhost:" + server.actualPort() + "/scrape/products", 2, 60000, 5000, this::parse);
+            Future.all(client.submit(product("amazon_1")), client.submit(product("amazon_2")))
+                    .onComplete(testContext.succeedingThenComplete());
+        }));
+    }
+}
@@ -0,0 +1,64 @@
+package com.pricedrop.services.scrape;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlExtractorTest {
+
+    private byte[] fixture(String name) throws Exception {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("fixtures/" + name)) {
+            return is.readAllBytes();
+        }
+    }
+
+    // small chunks split tags and the multi-byte rupee sign across feed() calls
+    private boolean feedInChunks(HtmlExtractor extractor, byte[] page, int chunkSize) {
+        for (int i = 0; i < page.length; i += chunkSize) {
+            int end = Math.min(page.length, i + chunkSize);
+            if (extractor.feed(Buffer.buffer().appendBytes(page, i, end - i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void testExtractsAmazonProduct() throws Exception {
+        HtmlExtractor extractor = HtmlExtractor.forPlatform(Platform.AMAZON);
+        assertTrue(feedInChunks(extractor, fixture("amazon-product.html"), 7));
+        JsonObject result = extractor.result();
+        assertEquals("1499", result.getString("price"));
+        assertTrue(result.getString("title").startsWith("boAt Rockerz 450"));
+        assertTrue(result.getString("title").contains("Battery & Padded"));
+    }
+
+    @Test
+    void testExtractsFlipkartProduct() throws Exception {
+        HtmlExtractor extractor = HtmlExtractor.forPlatform(Platform.FLIPKART);
+        assertTrue(feedInChunks(extractor, fixture("flipkart-product.html"), 5));
+        JsonObject result = extractor.result();
+        assertEquals("69900", result.getString("price"));
+        assertEquals("Apple iPhone 15 (Black, 128 GB)", result.getString("title"));
+    }
+
+    @Test
+    void testStopsBeforeTheEndOfThePage() throws Exception {
+        byte[] page = fixture("flipkart-product.html");
+        HtmlExtractor extractor = HtmlExtractor.forPlatform(Platform.FLIPKART);
+        assertTrue(feedInChunks(extractor, page, 64));
+        assertTrue(extractor.getBytesSeen() < page.length);
+    }
+
+    @Test
+    void testIncompletePageIsNotDone() {
+        HtmlExtractor extractor = HtmlExtractor.forPlatform(Platform.AMAZON);
+        assertFalse(extractor.feed(Buffer.buffer("<html><title>Robot Check</title></html>")));
+        assertFalse(extractor.isComplete());
+        assertNull(HtmlExtractor.forPlatform(Platform.OTHER));
+    }
+}
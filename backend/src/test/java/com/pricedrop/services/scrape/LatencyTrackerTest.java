@@ -0,0 +1,46 @@
+package com.pricedrop.services.scrape;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyTrackerTest {
+
+    @Test
+    void testPercentileOverWindow() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        assertEquals(-1, tracker.percentile(0.5));
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+        assertEquals(50, tracker.percentile(0.5));
+        assertEquals(95, tracker.percentile(0.95));
+        assertEquals(100, tracker.percentile(1.0));
+    }
+
+    @Test
+    void testOldSamplesFallOutOfWindow() {
+        LatencyTracker tracker = new LatencyTracker(10);
+        for (int i = 0; i < 10; i++) {
+            tracker.record(10_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            tracker.record(100);
+        }
+        assertEquals(10, tracker.size());
+        assertEquals(100, tracker.percentile(0.99));
+    }
+
+    @Test
+    void testHedgeBudgetCapsExtraLoad() {
+        HedgeBudget budget = new HedgeBudget(0.1, 5);
+        int hedges = 0;
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+            if (budget.tryAcquire()) {
+                hedges++;
+            }
+        }
+        assertEquals(10, hedges);
+    }
+}
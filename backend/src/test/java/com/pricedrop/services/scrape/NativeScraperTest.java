@@ -0,0 +1,85 @@
+package com.pricedrop.services.scrape;
+
+import com.pricedrop.models.Product;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class NativeScraperTest {
+
+    private Buffer fixture(String name) throws Exception {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("fixtures/" + name)) {
+            return Buffer.buffer(is.readAllBytes());
+        }
+    }
+
+    private Product product(String productId, HttpServer server, String path) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductUrl("http://localhost:" + server.actualPort() + path);
+        return product;
+    }
+
+    @Test
+    void testExtractsAndResetsEarly(Vertx vertx, VertxTestContext testContext) throws Exception {
+        Buffer amazon = fixture("amazon-product.html");
+        Checkpoint extracted = testContext.checkpoint();
+        Checkpoint connectionDropped = testContext.checkpoint();
+        vertx.createHttpServer().requestHandler(req -> {
+            req.response().setChunked(true).closeHandler(v -> connectionDropped.flag());
+            req.response().write(amazon);
+            // keeps streaming filler until the client walks away
+            vertx.setPeriodic(5, id -> {
+                if (req.response().closed()) {
+                    vertx.cancelTimer(id);
+                } else {
+                    req.response().write("<div>" + "x".repeat(1000) + "</div>");
+                }
+            });
+        }).listen(0).onComplete(testContext.succeeding(server -> {
+            NativeScraper scraper = new NativeScraper(vertx.createHttpClient(), 5000, 3_000_000);
+            scraper.scrape(product("amazon_B07PR1CL3S", server, "/dp/B07PR1CL3S"))
+                    .onComplete(testContext.succeeding(info -> testContext.verify(() -> {
+                        assertEquals("1499", info.getString("price"));
+                        assertNotNull(info.getString("title"));
+                        extracted.flag();
+                    })));
+        }));
+    }
+
+    @Test
+    void testBlockedPageFails(Vertx vertx, VertxTestContext testContext) {
+        vertx.createHttpServer().requestHandler(req -> req.response().setStatusCode(503).end("Robot Check"))
+                .listen(0).onComplete(testContext.succeeding(server -> {
+                    NativeScraper scraper = new NativeScraper(vertx.createHttpClient(), 5000, 3_000_000);
+                    scraper.scrape(product("flipkart_itm1", server, "/p/itm1"))
+                            .onComplete(testContext.failing(fail -> testContext.verify(() -> {
+                                assertEquals("NATIVE_HTTP_503", ((ScrapeException) fail).getReason());
+                                testContext.completeNow();
+                            })));
+                }));
+    }
+
+    @Test
+    void testPageWithoutPriceFails(Vertx vertx, VertxTestContext testContext) {
+        vertx.createHttpServer().requestHandler(req -> req.response().end("<html><h1>captcha</h1></html>"))
+                .listen(0).onComplete(testContext.succeeding(server -> {
+                    NativeScraper scraper = new NativeScraper(vertx.createHttpClient(), 5000, 3_000_000);
+                    scraper.scrape(product("flipkart_itm2", server, "/p/itm2"))
+                            .onComplete(testContext.failing(fail -> testContext.verify(() -> {
+                                assertTrue(ScrapeException.isRetryable(fail));
+                                testContext.completeNow();
+                            })));
+                }));
+    }
+}
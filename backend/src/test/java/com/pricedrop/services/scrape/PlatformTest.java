@@ -0,0 +1,16 @@
+package com.pricedrop.services.scrape;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlatformTest {
+
+    @Test
+    void testPlatformFromProductId() {
+        assertEquals(Platform.AMAZON, Platform.fromProductId("amazon_b0abc12345"));
+        assertEquals(Platform.FLIPKART, Platform.fromProductId("flipkart_itm123"));
+        assertEquals(Platform.OTHER, Platform.fromProductId("myntra_1"));
+        assertEquals(Platform.OTHER, Platform.fromProductId(null));
+    }
+}
@@ -0,0 +1,54 @@
+package com.pricedrop.services.scrape;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScrapeCacheTest {
+    private final JsonObject info = new JsonObject().put("price", "₹1,000").put("title", "phone");
+
+    @Test
+    void testReturnsEntryWithinTtl() {
+        ScrapeCache cache = new ScrapeCache(10, 1000);
+        cache.put("amazon_1", info, 0);
+        ScrapeCache.Entry entry = cache.get("amazon_1", 500);
+        assertNotNull(entry);
+        assertEquals(500, entry.ageMs(500));
+        assertEquals(info, entry.productInfo());
+    }
+
+    @Test
+    void testExpiredEntryIsDropped() {
+        ScrapeCache cache = new ScrapeCache(10, 1000);
+        cache.put("amazon_1", info, 0);
+        assertNull(cache.get("amazon_1", 1001));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        ScrapeCache cache = new ScrapeCache(2, 1000);
+        cache.put("amazon_1", info, 0);
+        cache.put("amazon_2", info, 0);
+        cache.get("amazon_1", 1);
+        cache.put("amazon_3", info, 2);
+        assertNotNull(cache.get("amazon_1", 3));
+        assertNull(cache.get("amazon_2", 3));
+        assertNotNull(cache.get("amazon_3", 3));
+    }
+
+    @Test
+    void testChangesToAReturnedHitDoNotReachTheCache() {
+        ScrapeCache cache = new ScrapeCache(10, 1000);
+        cache.put("amazon_1", info, 0);
+        cache.get("amazon_1", 1).productInfo().put("price", "1");
+        assertEquals(info, cache.get("amazon_1", 2).productInfo());
+    }
+
+    @Test
+    void testFreshnessAcceptsCache() {
+        assertFalse(Freshness.FRESH.acceptsCache());
+        assertTrue(new Freshness(1000, 0).acceptsCache());
+    }
+}
@@ -0,0 +1,64 @@
+package com.pricedrop.services.scrape;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallsShareOneExecution() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        Promise<String> pending = Promise.promise();
+        Future<String> first = singleFlight.execute("amazon_1", () -> {
+            executions.incrementAndGet();
+            return pending.future();
+        });
+        Future<String> second = singleFlight.execute("amazon_1", () -> {
+            executions.incrementAndGet();
+            return Future.succeededFuture("other");
+        });
+        assertTrue(singleFlight.isInFlight("amazon_1"));
+        pending.complete("price");
+        assertEquals("price", first.result());
+        assertEquals("price", second.result());
+        assertEquals(1, executions.get());
+        assertEquals(1, singleFlight.collapsedCount());
+        assertFalse(singleFlight.isInFlight("amazon_1"));
+    }
+
+    @Test
+    void testCallAfterCompletionStartsFresh() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        singleFlight.execute("amazon_1", () -> Future.succeededFuture("old"));
+        Future<String> next = singleFlight.execute("amazon_1", () -> Future.succeededFuture("new"));
+        assertEquals("new", next.result());
+        assertEquals(0, singleFlight.collapsedCount());
+    }
+
+    @Test
+    void testFailureIsSharedAndReleasesKey() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Promise<String> pending = Promise.promise();
+        Future<String> first = singleFlight.execute("flipkart_1", pending::future);
+        Future<String> second = singleFlight.execute("flipkart_1", () -> Future.succeededFuture("unused"));
+        pending.fail("boom");
+        assertTrue(first.failed());
+        assertTrue(second.failed());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testDifferentKeysDoNotCollapse() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        singleFlight.execute("amazon_1", () -> Promise.<String>promise().future());
+        singleFlight.execute("amazon_2", () -> Promise.<String>promise().future());
+        assertEquals(2, singleFlight.inFlightCount());
+        assertEquals(0, singleFlight.collapsedCount());
+    }
+}
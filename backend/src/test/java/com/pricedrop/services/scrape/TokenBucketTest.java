@@ -0,0 +1,25 @@
+package com.pricedrop.services.scrape;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void testBurstThenEmpty() {
+        TokenBucket bucket = new TokenBucket(0.001, 2);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        assertTrue(bucket.nanosUntilAvailable() > 0);
+    }
+
+    @Test
+    void testReconfigureCapsTokens() {
+        TokenBucket bucket = new TokenBucket(0.001, 5);
+        bucket.reconfigure(0.001, 1);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+}
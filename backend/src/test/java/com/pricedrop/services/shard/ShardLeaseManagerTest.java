@@ -0,0 +1,156 @@
+package com.pricedrop.services.shard;
+
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ShardLeaseManagerTest {
+    private Vertx vertx;
+    private MongoDBClient mongoDBClient;
+    private ShardLeaseManager manager;
+    // leases whose owner expired, handed out one per claim
+    private final ArrayDeque<Integer> expired = new ArrayDeque<>();
+    // owned leases another instance has taken over, and ones whose renewal errors
+    private final Set<Integer> lost = new HashSet<>();
+    private final Set<Integer> erroring = new HashSet<>();
+    private final AtomicLong liveInstances = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        vertx = mock(Vertx.class);
+        mongoDBClient = mock(MongoDBClient.class);
+        manager = new ShardLeaseManager(vertx, mongoDBClient);
+        when(mongoDBClient.updateRecords(any(), any(), any(), anyBoolean())).thenReturn(Future.succeededFuture(1L));
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), eq("products")))
+                .thenReturn(Future.succeededFuture(List.of()));
+        when(mongoDBClient.countRecords(any(), eq("check-instances")))
+                .thenAnswer(inv -> Future.succeededFuture(liveInstances.get()));
+        when(mongoDBClient.findAndUpdate(any(), any(), eq("shard-leases"), eq(false))).thenAnswer(inv -> {
+            JsonObject query = inv.getArgument(0);
+            if (!query.containsKey("owner")) {
+                Integer shard = expired.poll();
+                return Future.succeededFuture(shard == null ? null : new JsonObject().put("shard", shard));
+            }
+            int shard = Integer.parseInt(query.getString("_id").substring("shard-".length()));
+            if (erroring.contains(shard)) {
+                return Future.failedFuture("connection reset");
+            }
+            return Future.succeededFuture(lost.contains(shard) ? null : new JsonObject().put("shard", shard));
+        });
+    }
+
+    private Set<Integer> shards(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toSet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void renewAgain() {
+        ArgumentCaptor<Handler<Long>> timer = ArgumentCaptor.forClass(Handler.class);
+        verify(vertx).setPeriodic(anyLong(), timer.capture());
+        timer.getValue().handle(0L);
+    }
+
+    @Test
+    void testShardIsStableAndInRange() {
+        String productId = "amazon_B0CX23V2ZK";
+        int shard = ShardLeaseManager.shardFor(productId);
+        assertEquals(shard, ShardLeaseManager.shardFor(productId));
+        assertTrue(shard >= 0 && shard < ShardLeaseManager.getShardCount());
+    }
+
+    @Test
+    void testProductsSpreadOverShards() {
+        Set<Integer> shards = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            shards.add(ShardLeaseManager.shardFor("flipkart_item" + i));
+        }
+        assertEquals(ShardLeaseManager.getShardCount(), shards.size());
+    }
+
+    @Test
+    void testAcquiresExpiredLeasesUpToItsFairShare() {
+        expired.addAll(shards(ShardLeaseManager.getShardCount()));
+        List<Set<Integer>> acquired = new ArrayList<>();
+        manager.onAcquired(acquired::add);
+
+        manager.start();
+
+        assertEquals(shards(ShardLeaseManager.getShardCount()), manager.getOwnedShards());
+        assertEquals(List.of(manager.getOwnedShards()), acquired);
+    }
+
+    @Test
+    void testRenewalKeepsOwnedLeasesWithoutReacquiringThem() {
+        expired.addAll(shards(ShardLeaseManager.getShardCount()));
+        manager.start();
+        List<Set<Integer>> acquired = new ArrayList<>();
+        manager.onAcquired(acquired::add);
+
+        renewAgain();
+
+        assertEquals(shards(ShardLeaseManager.getShardCount()), manager.getOwnedShards());
+        assertTrue(acquired.isEmpty());
+    }
+
+    @Test
+    void testOnlyTheLeaseThatFailedToRenewIsDropped() {
+        expired.addAll(shards(ShardLeaseManager.getShardCount()));
+        manager.start();
+        erroring.add(3);
+
+        renewAgain();
+
+        Set<Integer> expected = shards(ShardLeaseManager.getShardCount());
+        expected.remove(3);
+        assertEquals(expected, manager.getOwnedShards());
+    }
+
+    @Test
+    void testLeaseTakenOverAfterExpiringIsDropped() {
+        expired.addAll(shards(ShardLeaseManager.getShardCount()));
+        manager.start();
+        lost.add(5);
+
+        renewAgain();
+
+        assertFalse(manager.getOwnedShards().contains(5));
+        assertEquals(ShardLeaseManager.getShardCount() - 1, manager.getOwnedShards().size());
+    }
+
+    @Test
+    void testSurplusLeasesAreReleasedWhenAnotherInstanceJoins() {
+        expired.addAll(shards(ShardLeaseManager.getShardCount()));
+        manager.start();
+        liveInstances.set(2);
+
+        renewAgain();
+
+        int fairShare = (int) Math.ceil(ShardLeaseManager.getShardCount() / 2.0);
+        assertEquals(fairShare, manager.getOwnedShards().size());
+        ArgumentCaptor<JsonObject> released = ArgumentCaptor.forClass(JsonObject.class);
+        verify(mongoDBClient).updateRecords(released.capture(),
+                eq(new JsonObject().put("$set", new JsonObject().put("owner", (Object) null).put("expiresAt", 0L))),
+                eq("shard-leases"), eq(false));
+        assertEquals(ShardLeaseManager.getShardCount() - fairShare,
+                released.getValue().getJsonObject("_id").getJsonArray("$in").size());
+    }
+}
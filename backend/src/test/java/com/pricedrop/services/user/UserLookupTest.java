@@ -0,0 +1,82 @@
+package com.pricedrop.services.user;
+
+import com.pricedrop.models.User;
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserLookupTest {
+    private Vertx vertx;
+    private MongoDBClient mongoDBClient;
+    private UserProfileCache cache;
+    private UserLookup userLookup;
+
+    @BeforeEach
+    void setUp() {
+        vertx = mock(Vertx.class);
+        mongoDBClient = mock(MongoDBClient.class);
+        cache = new UserProfileCache(100, 60_000);
+        userLookup = new UserLookup(vertx, mongoDBClient, cache, 200, 500);
+        when(mongoDBClient.queryRecords(any(), any(FindOptions.class), eq("users")))
+                .thenReturn(Future.succeededFuture(List.of(
+                        new JsonObject().put("userId", "u1").put("email", "u1@example.com").put("name", "One"),
+                        new JsonObject().put("userId", "u2").put("email", "u2@example.com").put("name", "Two"))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fireWindow() {
+        ArgumentCaptor<Handler<Long>> timer = ArgumentCaptor.forClass(Handler.class);
+        verify(vertx).setTimer(eq(200L), timer.capture());
+        timer.getValue().handle(0L);
+    }
+
+    @Test
+    void testLookupsInOneWindowShareOneQuery() {
+        Future<List<User>> first = userLookup.users(List.of("u1"));
+        Future<List<User>> second = userLookup.users(List.of("u2", "gone"));
+        assertFalse(first.isComplete());
+
+        fireWindow();
+
+        assertEquals("u1@example.com", first.result().get(0).getEmail());
+        assertEquals(List.of("u2"), second.result().stream().map(User::getUserId).toList());
+        verify(mongoDBClient, times(1)).queryRecords(
+                eq(new JsonObject().put("userId", new JsonObject().put("$in", new JsonArray().add("u1").add("u2").add("gone")))),
+                any(FindOptions.class), eq("users"));
+    }
+
+    @Test
+    void testCachedUsersSkipTheQueryUntilInvalidated() {
+        userLookup.users(List.of("u1"));
+        fireWindow();
+
+        assertTrue(userLookup.users(List.of("u1")).succeeded());
+        verify(mongoDBClient, times(1)).queryRecords(any(), any(FindOptions.class), any());
+
+        cache.invalidate("u1");
+        assertFalse(userLookup.users(List.of("u1")).isComplete());
+    }
+
+    @Test
+    void testCacheDropsExpiredProfiles() {
+        UserProfileCache shortLived = new UserProfileCache(10, 1000);
+        User user = new User();
+        user.setUserId("u1");
+        shortLived.put(user, 0);
+        assertNotNull(shortLived.get("u1", 1000));
+        assertNull(shortLived.get("u1", 1001));
+    }
+}
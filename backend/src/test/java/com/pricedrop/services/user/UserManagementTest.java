@@ -0,0 +1,57 @@
+package com.pricedrop.services.user;
+
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.*;
+
+class UserManagementTest {
+    private MongoDBClient mongoDBClient;
+    private UserManagement userManagement;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBClient = mock(MongoDBClient.class);
+        when(mongoDBClient.updateRecord(any(), any(), any())).thenReturn(Future.succeededFuture());
+        userManagement = new UserManagement(mongoDBClient);
+    }
+
+    private RoutingContext request(JsonObject body) {
+        RoutingContext context = mock(RoutingContext.class, RETURNS_DEEP_STUBS);
+        when(context.get("userId")).thenReturn("u1");
+        when(context.body().asJsonObject()).thenReturn(body);
+        return context;
+    }
+
+    @Test
+    void testQuietHoursAreSaved() {
+        RoutingContext context = request(new JsonObject()
+                .put("quietHoursStart", 22).put("quietHoursEnd", 7).put("timeZone", "Asia/Kolkata"));
+        userManagement.handleQuietHours(context);
+        verify(mongoDBClient).updateRecord(eq(new JsonObject().put("userId", "u1")),
+                argThat(update -> update.getJsonObject("$set").getInteger("quietHoursStart") == 22
+                        && "Asia/Kolkata".equals(update.getJsonObject("$set").getString("timeZone"))),
+                eq("users"));
+        verify(context.response()).setStatusCode(200);
+    }
+
+    @Test
+    void testInvalidQuietHoursAreRejected() {
+        userManagement.handleQuietHours(request(new JsonObject().put("quietHoursStart", 24).put("quietHoursEnd", 7)));
+        userManagement.handleQuietHours(request(new JsonObject().put("quietHoursStart", 22)));
+        userManagement.handleQuietHours(request(new JsonObject()
+                .put("quietHoursStart", 22).put("quietHoursEnd", 7).put("timeZone", "Mars/Olympus")));
+        verify(mongoDBClient, never()).updateRecord(any(), any(), any());
+    }
+
+    @Test
+    void testNoHoursClearQuietHours() {
+        userManagement.handleQuietHours(request(new JsonObject()));
+        verify(mongoDBClient).updateRecord(any(),
+                argThat(update -> update.getJsonObject("$unset").containsKey("quietHoursStart")), eq("users"));
+    }
+}
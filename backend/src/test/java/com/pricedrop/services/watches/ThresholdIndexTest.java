@@ -0,0 +1,52 @@
+package com.pricedrop.services.watches;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThresholdIndexTest {
+    private final ThresholdIndex index = new ThresholdIndex(60_000);
+
+    private static JsonObject watch(String id, long threshold) {
+        return new JsonObject().put("_id", id).put("threshold", threshold);
+    }
+
+    @Test
+    void testTriggeredByReturnsWatchesAtOrAbovePrice() {
+        ThresholdIndex.Thresholds thresholds = ThresholdIndex.Thresholds.of(
+                List.of(watch("w1", 105_000), watch("w2", 52_500), watch("w3", 210_000), watch("w4", 84_000)), 0);
+
+        assertEquals(List.of("w1", "w3"), thresholds.triggeredBy(105_000));
+        assertEquals(List.of("w3"), thresholds.triggeredBy(105_001));
+        assertEquals(List.of("w2", "w4", "w1", "w3"), thresholds.triggeredBy(50_000));
+        assertTrue(thresholds.triggeredBy(300_000).isEmpty());
+    }
+
+    @Test
+    void testMovedThresholdsPatchLoadedEntries() {
+        index.put("pid", ThresholdIndex.Thresholds.of(List.of(watch("w1", 105_000), watch("w2", Long.MAX_VALUE)), 0));
+
+        // w2 took its baseline at 1000.00
+        index.moveTo("pid", List.of("w2"), 99_999);
+        assertEquals(List.of("w2", "w1"), index.get("pid", 0).triggeredBy(90_000));
+        assertEquals(List.of("w1"), index.get("pid", 0).triggeredBy(100_000));
+        assertEquals(2, index.get("pid", 0).size());
+
+        // not loaded: left for the next load
+        index.moveTo("other", List.of("w3"), 1);
+        assertNull(index.get("other", 0));
+    }
+
+    @Test
+    void testEntriesExpireAndInvalidate() {
+        index.put("pid", ThresholdIndex.Thresholds.of(List.of(watch("w1", 105_000)), 0));
+
+        assertNotNull(index.get("pid", 59_999));
+        assertNull(index.get("pid", 60_000));
+        index.invalidate("pid");
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.pricedrop.services.watches;
+
+import com.pricedrop.models.AlertRule;
+import com.pricedrop.models.Price;
+import com.pricedrop.services.mongo.MongoDBClient;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WatchStoreTest {
+    private MongoDBClient mongoDBClient;
+    private WatchStore watchStore;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBClient = mock(MongoDBClient.class);
+        watchStore = new WatchStore(mongoDBClient, 5, new ThresholdIndex(60_000));
+    }
+
+    @Test
+    void testThresholdAddsMarginRoundingDown() {
+        assertEquals(105_000, watchStore.threshold(100_000));
+        assertEquals(103, watchStore.threshold(99));
+    }
+
+    @Test
+    void testTriggeredLoadsThresholdsOnceAndReadsOnlyReachedWatches() {
+        JsonObject load = new JsonObject().put("productId", "pid")
+                .put("threshold", new JsonObject().put("$exists", true));
+        when(mongoDBClient.queryRecords(eq(load), any(FindOptions.class), eq(WatchStore.COLLECTION)))
+                .thenReturn(Future.succeededFuture(List.of(
+                        new JsonObject().put("_id", "w1").put("threshold", 105_000L),
+                        new JsonObject().put("_id", "w2").put("threshold", 90_000L))));
+        JsonObject reached = new JsonObject().put("productId", "pid")
+                .put("_id", new JsonObject().put("$in", new JsonArray().add("w1")));
+        when(mongoDBClient.queryRecords(eq(reached), any(FindOptions.class), eq(WatchStore.COLLECTION)))
+                .thenReturn(Future.succeededFuture(List.of(new JsonObject().put("userId", "u1"))));
+
+        assertEquals(1, watchStore.triggered("pid", 100_000, new JsonArray()).result().size());
+        // above every threshold and no rule clause: answered from memory
+        assertTrue(watchStore.triggered("pid", 110_000, new JsonArray()).result().isEmpty());
+        verify(mongoDBClient, times(1)).queryRecords(eq(load), any(FindOptions.class), eq(WatchStore.COLLECTION));
+        verify(mongoDBClient, times(2)).queryRecords(any(), any(FindOptions.class), eq(WatchStore.COLLECTION));
+    }
+
+    @Test
+    void testAddReportsExistingWatch() {
+        when(mongoDBClient.updateRecords(any(), any(), eq(WatchStore.COLLECTION), eq(true)))
+                .thenReturn(Future.succeededFuture(0L));
+
+        assertFalse(watchStore.add("u1", "pid", Price.parse("1000")).result());
+        verify(mongoDBClient, never()).updateRecords(any(), any(), eq("products"), anyBoolean());
+    }
+
+    @Test
+    void testRuleWatchIsKeyedByRuleAndPercent() {
+        when(mongoDBClient.updateRecords(any(), any(), eq(WatchStore.COLLECTION), eq(true)))
+                .thenReturn(Future.succeededFuture(1L));
+
+        assertTrue(watchStore.addRule("u1", "pid", AlertRule.DROP_FROM_AVERAGE, 10.0).result());
+        verify(mongoDBClient).updateRecords(
+                eq(new JsonObject().put("userId", "u1").put("productId", "pid")
+                        .put("rule", "DROP_FROM_AVERAGE").put("dropPercent", 10.0)),
+                any(), eq(WatchStore.COLLECTION), eq(true));
+        verify(mongoDBClient, never()).updateRecords(any(), any(), eq("products"), anyBoolean());
+    }
+}
@@ -1,7 +1,12 @@
 from fastapi import APIRouter, Request
+from fastapi.responses import StreamingResponse
 from pydantic import BaseModel
+from typing import List, Optional
 from utils import get_browser_context
 from platforms import get_platform_handler
+import asyncio
+import json
+import os
 import traceback
 import time
 from urllib.parse import urlparse
@@ -11,6 +16,16 @@ router = APIRouter()
 class ScrapeProductRequest(BaseModel):
     url: str
 
+class BatchItem(BaseModel):
+    id: str
+    url: str
+
+class ScrapeProductsRequest(BaseModel):
+    items: List[BatchItem]
+    concurrency: Optional[int] = None
+
+BATCH_MAX_CONCURRENCY = int(os.getenv("BATCH_MAX_CONCURRENCY", "4"))
+
 DOMAIN_PLATFORM_MAP = {
     "amazon.in": "amazon",
     "www.amazon.in": "amazon",
@@ -29,11 +44,10 @@ def extract_platform_from_url(url: str) -> str:
     domain = urlparse(url).netloc.lower()
     return DOMAIN_PLATFORM_MAP.get(domain)
 
-@router.post("/scrape/product")
-async def scrape_product(payload: ScrapeProductRequest, request: Request):
-    platform = extract_platform_from_url(payload.url)
+async def scrape_on_context(context, url: str) -> dict:
+    platform = extract_platform_from_url(url)
     if not platform:
-        return {"error": f"Unsupported or unknown domain in URL: {payload.url}"}
+        return {"error": f"Unsupported or unknown domain in URL: {url}"}
 
     handler = get_platform_handler(platform)
     if not handler:
@@ -42,7 +56,6 @@ async def scrape_product(payload: ScrapeProductRequest, request: Request):
     result = {"error": None, "timings": {}}
     total_start = time.time()
 
-    context = await get_browser_context(request)
     page = await context.new_page()
 
     await page.set_extra_http_headers({
@@ -57,13 +70,60 @@ async def scrape_product(payload: ScrapeProductRequest, request: Request):
                      )
 
     try:
-        result.update(await handler.scrape_product(page, payload.url))
+        result.update(await handler.scrape_product(page, url))
     except Exception as e:
         result["error"] = str(e)
         traceback.print_exc()
     finally:
         await page.close()
-        await context.close()
 
     result["timings"]["total"] = round(time.time() - total_start, 2)
     return result
+
+
+@router.post("/scrape/product")
+async def scrape_product(payload: ScrapeProductRequest, request: Request):
+    context = await get_browser_context(request)
+    try:
+        return await scrape_on_context(context, payload.url)
+    finally:
+        await context.close()
+
+
+# One NDJSON line per item, written as soon as its page is done, in completion order:
+# {"id": ..., "status": 200, "result": {...}}. status 400 marks an unsupported URL, 500 a failed scrape.
+@router.post("/scrape/products")
+async def scrape_products(payload: ScrapeProductsRequest, request: Request):
+    concurrency = max(1, min(payload.concurrency or BATCH_MAX_CONCURRENCY, BATCH_MAX_CONCURRENCY))
+    semaphore = asyncio.Semaphore(concurrency)
+    context = await get_browser_context(request)
+
+    async def scrape_item(item: BatchItem) -> dict:
+        async with semaphore:
+            try:
+                result = await scrape_on_context(context, item.url)
+            except Exception as e:
+                traceback.print_exc()
+                result = {"error": str(e)}
+        platform = extract_platform_from_url(item.url)
+        if result.get("error") and not (platform and get_platform_handler(platform)):
+            status = 400
+        elif result.get("error"):
+            status = 500
+        else:
+            status = 200
+        return {"id": item.id, "status": status, "result": result}
+
+    async def lines():
+        tasks = [asyncio.create_task(scrape_item(item)) for item in payload.items]
+        try:
+            for finished in asyncio.as_completed(tasks):
+                yield json.dumps(await finished) + "\n"
+        finally:
+            # the client went away: stop the remaining pages before closing their context
+            for task in tasks:
+                task.cancel()
+            await asyncio.gather(*tasks, return_exceptions=True)
+            await context.close()
+
+    return StreamingResponse(lines(), media_type="application/x-ndjson")
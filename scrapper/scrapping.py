@@ -5,7 +5,7 @@ from selenium.webdriver.support.ui import WebDriverWait
 from selenium.webdriver.support import expected_conditions as EC
 import time
 
-def get_amazon_details(url):
+def create_driver():
     options = uc.ChromeOptions()
     options.binary_location = "/usr/bin/google-chrome"
     options.add_argument("--headless=new")
@@ -23,7 +23,13 @@ def get_amazon_details(url):
     }
     options.add_experimental_option("prefs", prefs)
 
-    driver = uc.Chrome(options=options, use_subprocess=False)
+    return uc.Chrome(options=options, use_subprocess=False)
+
+# pass a driver to reuse it across calls; without one a browser is started and quit for this url only
+def get_amazon_details(url, driver=None):
+    owns_driver = driver is None
+    if owns_driver:
+        driver = create_driver()
 
     result = {
         "title": None,
@@ -54,7 +60,8 @@ def get_amazon_details(url):
     except Exception as e:
         result["error"] = str(e)
     finally:
-        driver.quit()
+        if owns_driver:
+            driver.quit()
 
     return result
 
@@ -0,0 +1,94 @@
+"""Long-lived scrape worker for the backend's PythonWorkerPool.
+
+Reads one JSON request per line on stdin ({"id": ..., "url": ...}) and writes one JSON reply per
+line on stdout ({"id": ..., "result": {...}} or {"id": ..., "error": "..."}). Requests run
+concurrently, so replies can come back in any order; the id ties them together. Each thread keeps its
+own browser for every request it runs, and only starts a new one after the old one failed.
+"""
+from concurrent.futures import ThreadPoolExecutor
+import json
+import os
+import sys
+import threading
+
+from scrapping import create_driver, get_amazon_details
+
+# keep stdout for the protocol only: anything a library prints goes to stderr instead
+protocol_out = sys.stdout
+sys.stdout = sys.stderr
+write_lock = threading.Lock()
+# a WebDriver isn't safe to share between threads, so there is one per executor thread
+local = threading.local()
+drivers = []
+drivers_lock = threading.Lock()
+
+
+def reply(message):
+    line = json.dumps(message)
+    with write_lock:
+        protocol_out.write(line + "\n")
+        protocol_out.flush()
+
+
+def driver():
+    if getattr(local, "driver", None) is None:
+        local.driver = create_driver()
+        with drivers_lock:
+            drivers.append(local.driver)
+    return local.driver
+
+
+def drop_driver():
+    with drivers_lock:
+        drivers.remove(local.driver)
+    quit_quietly(local.driver)
+    local.driver = None
+
+
+def quit_quietly(browser):
+    try:
+        browser.quit()
+    except Exception:
+        pass
+
+
+def handle(request_id, url):
+    try:
+        result = get_amazon_details(url, driver())
+        if result.get("error"):
+            # the page may have left the browser unusable, so the next request starts a fresh one
+            drop_driver()
+            reply({"id": request_id, "error": result["error"]})
+        else:
+            reply({"id": request_id, "result": result})
+    except Exception as e:
+        if getattr(local, "driver", None) is not None:
+            drop_driver()
+        reply({"id": request_id, "error": str(e)})
+
+
+def main():
+    concurrency = int(os.environ.get("PYTHON_WORKER_CONCURRENCY", "4"))
+    with ThreadPoolExecutor(max_workers=concurrency) as executor:
+        for line in sys.stdin:
+            line = line.strip()
+            if not line:
+                continue
+            try:
+                request = json.loads(line)
+            except ValueError:
+                print(f"[WARN] ignoring malformed request: {line}", file=sys.stderr)
+                continue
+            request_id = request.get("id")
+            url = request.get("url")
+            if not url:
+                reply({"id": request_id, "error": "missing 'url'"})
+                continue
+            executor.submit(handle, request_id, url)
+    # stdin closed: the backend is done with this worker
+    for browser in drivers:
+        quit_quietly(browser)
+
+
+if __name__ == "__main__":
+    main()